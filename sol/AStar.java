@@ -0,0 +1,152 @@
+package sol;
+
+import src.ICompactDijkstra;
+import src.ICompactGraph;
+import src.Transport;
+import src.Weighting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The AStar class implements the ICompactDijkstra interface. It orders its
+ * queue by distance so far plus a lower bound on the distance left, so the
+ * search explores a corridor towards the destination instead of the whole
+ * graph. The lower bound is the great-circle distance to the destination
+ * times the smallest minutes per km (the fastest speed any transport reaches)
+ * and the smallest price per km any transport charges, both measured over
+ * the graph when the AStar is made. If some city has no coordinates the bound
+ * is not admissible, so the bound is 0 and AStar behaves like Dijkstra.
+ * The search runs in the calling thread's SearchWorkspace, which also keeps
+ * each reached city's bound so it is only computed once.
+ */
+public class AStar implements ICompactDijkstra {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private ICompactGraph graph;
+    private boolean located;
+    private double minutesPerKm;
+    private double pricePerKm;
+
+    /**
+     * constructs an AStar for a graph, measuring the fastest speed and the
+     * lowest price per km over its edges
+     * @param graph the graph that will be searched
+     */
+    public AStar(ICompactGraph graph) {
+        this.graph = graph;
+        this.located = true;
+        for (int v = 0; v < graph.getVertexCount(); v++) {
+            if (Double.isNaN(graph.getLatitude(v))
+                    || Double.isNaN(graph.getLongitude(v))) {
+                this.located = false;
+                break;
+            }
+        }
+        this.minutesPerKm = Double.POSITIVE_INFINITY;
+        this.pricePerKm = Double.POSITIVE_INFINITY;
+        if (!this.located) {
+            return;
+        }
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            double km = AStar.greatCircleKm(graph,
+                    graph.getEdgeSourceId(e), graph.getEdgeTargetId(e));
+            if (km > 0) {
+                this.minutesPerKm = Math.min(this.minutesPerKm,
+                        graph.getMinutes(e) / km);
+                this.pricePerKm = Math.min(this.pricePerKm,
+                        graph.getPrice(e) / km);
+            }
+        }
+        if (this.minutesPerKm == Double.POSITIVE_INFINITY) {
+            // no edge covers any distance, so any bound would do; use 0
+            this.minutesPerKm = 0.0;
+            this.pricePerKm = 0.0;
+        }
+    }
+
+    /**
+     * gets the path from source to destination with the lowest total weight
+     *
+     * @param graph       the graph to search, the one this AStar was made for
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting   how each edge is weighted
+     * @return a List<Transport> representing the path from source to
+     * destination, or empty if there is none
+     * @throws IllegalArgumentException if graph is not the graph this AStar
+     *                                  was made for
+     */
+    @Override
+    public List<Transport> getShortestPath(ICompactGraph graph, int source,
+                                           int destination,
+                                           Weighting weighting) {
+        if (graph != this.graph) {
+            throw new IllegalArgumentException("AStar was made for a "
+                    + "different graph.");
+        }
+        double perKm = 0.0;
+        if (this.located) {
+            perKm = weighting.getMinutesFactor() * this.minutesPerKm
+                    + weighting.getPriceFactor() * this.pricePerKm;
+        }
+
+        SearchWorkspace workspace = SearchWorkspace.get(
+                SearchWorkspace.FORWARD, graph.getVertexCount());
+        IndexedHeap toCheckQueue = workspace.getHeap();
+
+        workspace.reach(source, 0.0, -1);
+        toCheckQueue.insert(source, 0.0);
+        while (!toCheckQueue.isEmpty()) {
+            int checking = toCheckQueue.pop();
+            if (checking == destination) {
+                break;
+            }
+            double checkingDist = workspace.getDist(checking);
+            int end = graph.getEdgeEnd(checking);
+            for (int e = graph.getEdgeStart(checking); e < end; e++) {
+                int neighbor = graph.getEdgeTargetId(e);
+                double candidate = checkingDist + weighting.weight(graph, e);
+                if (candidate < workspace.getDist(neighbor)) {
+                    boolean first = !workspace.isReached(neighbor);
+                    workspace.reach(neighbor, candidate, e);
+                    if (first) {
+                        workspace.setEstimate(neighbor, perKm == 0.0 ? 0.0
+                                : perKm * AStar.greatCircleKm(graph, neighbor,
+                                destination));
+                    }
+                    // a vertex improved after being settled goes back in the
+                    // queue, so rounding in the bound cannot lose a path
+                    toCheckQueue.insertOrDecrease(neighbor,
+                            candidate + workspace.getEstimate(neighbor));
+                }
+            }
+        }
+        if (!workspace.isReached(destination)) {
+            return new ArrayList<Transport>();
+        }
+        return CompactDijkstra.extractPath(graph, workspace.getParentEdges(),
+                source, destination);
+    }
+
+    /**
+     * calculates the great-circle distance between two cities with the
+     * haversine formula
+     * @param graph the graph holding the cities
+     * @param from the first vertex id
+     * @param to the second vertex id
+     * @return the distance in km
+     */
+    static double greatCircleKm(ICompactGraph graph, int from, int to) {
+        double lat1 = Math.toRadians(graph.getLatitude(from));
+        double lat2 = Math.toRadians(graph.getLatitude(to));
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(graph.getLongitude(to)
+                - graph.getLongitude(from));
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2)
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
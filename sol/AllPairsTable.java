@@ -0,0 +1,273 @@
+package sol;
+
+import src.ICompactBFS;
+import src.ICompactDijkstra;
+import src.ICompactGraph;
+import src.Transport;
+import src.Weighting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The AllPairsTable class implements the ICompactDijkstra and ICompactBFS
+ * interfaces by answering every query from tables computed when it is made.
+ * For every source and destination it stores the fewest minutes, the lowest
+ * price, and for minutes, price and legs the last edge of the best path, all
+ * in flat primitive arrays indexed by source * n + destination. The tables
+ * are filled by one Dijkstra search per source for minutes, one for price and
+ * one breadth first search, in parallel across sources, each in the heap
+ * and queue of its thread's SearchWorkspace. Each row is the shortest path
+ * tree of its source, so a path is read off by following last edges back
+ * from the destination in O(path length). Weightings other than minutes or
+ * price fall back to CompactDijkstra. The tables take
+ * estimateBytes(n) bytes, which grows with the square of the city count, so
+ * this is only meant for networks of a few thousand cities.
+ */
+public class AllPairsTable implements ICompactDijkstra, ICompactBFS {
+
+    private static final int BYTES_PER_PAIR = 8 + 8 + 4 + 4 + 4;
+
+    private ICompactGraph graph;
+    private int n;
+    private double[] minutes;
+    private double[] price;
+    private int[] minutesEdge;
+    private int[] priceEdge;
+    private int[] hopEdge;
+
+    /**
+     * constructs an AllPairsTable, filling in every table
+     * @param graph the graph that will be searched
+     * @throws IllegalArgumentException if the graph has too many cities for
+     *                                  the tables to be indexed by int
+     */
+    public AllPairsTable(ICompactGraph graph) {
+        int n = graph.getVertexCount();
+        if ((long) n * n > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Graph is too large for an "
+                    + "all pairs table.");
+        }
+        this.graph = graph;
+        this.n = n;
+        this.minutes = new double[n * n];
+        this.price = new double[n * n];
+        this.minutesEdge = new int[n * n];
+        this.priceEdge = new int[n * n];
+        this.hopEdge = new int[n * n];
+
+        IntStream.range(0, n).parallel().forEach(s -> {
+            // the searches write straight into the tables, so only the
+            // workspace's heap and queue are used
+            SearchWorkspace workspace = SearchWorkspace.get(
+                    SearchWorkspace.FORWARD, n);
+            this.fillRow(s, Weighting.MINUTES, this.minutes, this.minutesEdge,
+                    workspace.getHeap());
+            this.fillRow(s, Weighting.PRICE, this.price, this.priceEdge,
+                    workspace.getHeap());
+            this.fillHopRow(s, workspace.getQueue());
+        });
+    }
+
+    /**
+     * gets how many bytes the tables of a graph with the inputted number of
+     * cities take
+     * @param vertexCount the number of cities
+     * @return the size of the tables in bytes, or Long.MAX_VALUE if they
+     * cannot be built at all
+     */
+    public static long estimateBytes(int vertexCount) {
+        long pairs = (long) vertexCount * vertexCount;
+        if (pairs > Integer.MAX_VALUE - 8) {
+            return Long.MAX_VALUE;
+        }
+        return pairs * BYTES_PER_PAIR;
+    }
+
+    /**
+     * gets the lowest cost from source to destination straight from the
+     * tables
+     * @param source the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting Weighting.MINUTES or Weighting.PRICE
+     * @return the cost, or infinity if destination cannot be reached
+     * @throws IllegalArgumentException if weighting is not minutes or price
+     */
+    public double getCost(int source, int destination, Weighting weighting) {
+        if (weighting.equals(Weighting.MINUTES)) {
+            return this.minutes[source * this.n + destination];
+        }
+        if (weighting.equals(Weighting.PRICE)) {
+            return this.price[source * this.n + destination];
+        }
+        throw new IllegalArgumentException("Only minutes and price are "
+                + "tabled.");
+    }
+
+    /**
+     * gets the path from source to destination with the lowest total weight
+     *
+     * @param graph       the graph to search, the one this table was made for
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting   how each edge is weighted
+     * @return a List<Transport> representing the path from source to
+     * destination, or empty if there is none
+     * @throws IllegalArgumentException if graph is not the graph this table
+     *                                  was made for
+     */
+    @Override
+    public List<Transport> getShortestPath(ICompactGraph graph, int source,
+                                           int destination,
+                                           Weighting weighting) {
+        this.checkGraph(graph);
+        if (weighting.equals(Weighting.MINUTES)) {
+            return this.readPath(this.minutesEdge, source, destination);
+        }
+        if (weighting.equals(Weighting.PRICE)) {
+            return this.readPath(this.priceEdge, source, destination);
+        }
+        return new CompactDijkstra().getShortestPath(graph, source,
+                destination, weighting);
+    }
+
+    /**
+     * gets the path from start to end with the fewest edges
+     *
+     * @param graph the graph to search, the one this table was made for
+     * @param start the start vertex id
+     * @param end   the end vertex id
+     * @return a List<Transport> representing the path from start to end, or
+     * empty if there is none
+     * @throws IllegalArgumentException if graph is not the graph this table
+     *                                  was made for
+     */
+    @Override
+    public List<Transport> getPath(ICompactGraph graph, int start, int end) {
+        this.checkGraph(graph);
+        return this.readPath(this.hopEdge, start, end);
+    }
+
+    /**
+     * gets the fewest edges needed to get from start to every vertex
+     *
+     * @param graph the graph to search, the one this table was made for
+     * @param start the start vertex id
+     * @return the hop count of each vertex id, -1 where it cannot be reached
+     * @throws IllegalArgumentException if graph is not the graph this table
+     *                                  was made for
+     */
+    @Override
+    public int[] getHopDistances(ICompactGraph graph, int start) {
+        this.checkGraph(graph);
+        int row = start * this.n;
+        int[] hops = new int[this.n];
+        Arrays.fill(hops, -1);
+        hops[start] = 0;
+        // a city's last edge leaves a city one leg closer, so walking back
+        // until a city with a known count is reached fills each city once
+        int[] stack = new int[this.n];
+        for (int v = 0; v < this.n; v++) {
+            int size = 0;
+            for (int at = v; hops[at] < 0 && this.hopEdge[row + at] >= 0;
+                 at = this.graph.getEdgeSourceId(this.hopEdge[row + at])) {
+                stack[size++] = at;
+            }
+            while (size > 0) {
+                int at = stack[--size];
+                int from = this.graph.getEdgeSourceId(this.hopEdge[row + at]);
+                hops[at] = hops[from] + 1;
+            }
+        }
+        return hops;
+    }
+
+    /**
+     * throws if the inputted graph is not the one the tables were made for
+     * @param graph the graph a query was asked on
+     */
+    private void checkGraph(ICompactGraph graph) {
+        if (graph != this.graph) {
+            throw new IllegalArgumentException("AllPairsTable was made for a "
+                    + "different graph.");
+        }
+    }
+
+    /**
+     * follows last edges back from destination to source
+     * @param lastEdge the last edge table to read
+     * @return the path from source to destination, or empty if there is none
+     */
+    private List<Transport> readPath(int[] lastEdge, int source,
+                                     int destination) {
+        int row = source * this.n;
+        if (source == destination || lastEdge[row + destination] < 0) {
+            return new ArrayList<Transport>();
+        }
+        int hops = 0;
+        for (int v = destination; v != source;
+             v = this.graph.getEdgeSourceId(lastEdge[row + v])) {
+            hops++;
+        }
+        Transport[] path = new Transport[hops];
+        for (int v = destination; v != source;
+             v = this.graph.getEdgeSourceId(lastEdge[row + v])) {
+            path[--hops] = this.graph.getEdge(lastEdge[row + v]);
+        }
+        return new ArrayList<Transport>(Arrays.asList(path));
+    }
+
+    /**
+     * runs a Dijkstra search from s straight into row s of a cost table and
+     * its last edge table
+     */
+    private void fillRow(int s, Weighting weighting, double[] cost,
+                         int[] lastEdge, IndexedHeap toCheckQueue) {
+        int row = s * this.n;
+        Arrays.fill(cost, row, row + this.n, Double.POSITIVE_INFINITY);
+        Arrays.fill(lastEdge, row, row + this.n, -1);
+        cost[row + s] = 0.0;
+        toCheckQueue.insert(s, 0.0);
+        while (!toCheckQueue.isEmpty()) {
+            int checking = toCheckQueue.pop();
+            int end = this.graph.getEdgeEnd(checking);
+            for (int e = this.graph.getEdgeStart(checking); e < end; e++) {
+                int neighbor = this.graph.getEdgeTargetId(e);
+                double candidate = cost[row + checking]
+                        + weighting.weight(this.graph, e);
+                if (candidate < cost[row + neighbor]) {
+                    cost[row + neighbor] = candidate;
+                    lastEdge[row + neighbor] = e;
+                    toCheckQueue.insertOrDecrease(neighbor, candidate);
+                }
+            }
+        }
+    }
+
+    /**
+     * runs a breadth first search from s straight into row s of the hop last
+     * edge table, where a city has been reached once its last edge is set
+     * @param queue an array with room for every city
+     */
+    private void fillHopRow(int s, int[] queue) {
+        int row = s * this.n;
+        Arrays.fill(this.hopEdge, row, row + this.n, -1);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = s;
+        while (head < tail) {
+            int checking = queue[head++];
+            int end = this.graph.getEdgeEnd(checking);
+            for (int e = this.graph.getEdgeStart(checking); e < end; e++) {
+                int target = this.graph.getEdgeTargetId(e);
+                if (target == s || this.hopEdge[row + target] >= 0) {
+                    continue;
+                }
+                this.hopEdge[row + target] = e;
+                queue[tail++] = target;
+            }
+        }
+    }
+}
@@ -5,8 +5,8 @@ import src.IBFS;
 import src.IGraph;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.HashMap;
 
 /**
  * The BFS class implements the IBSF<V, E> interface. It uses the breadth
@@ -19,7 +19,11 @@ public class BFS<V, E> implements IBFS<V, E> {
 
     /**
      * gets the most direct path from start to end using the inputted graph
-     * using Breadth-For-Search
+     * using Breadth-For-Search. Vertices get dense ids in the calling
+     * thread's VertexWorkspace in the order they are reached, so the reached
+     * vertices double as the queue and a vertex is reached exactly when it
+     * has an id. The path from a vertex to itself is empty, even if a cycle
+     * leads back to it, which is what the search this replaced returned too.
      *
      * @param graph the graph including the vertices
      * @param start the start vertex
@@ -28,54 +32,51 @@ public class BFS<V, E> implements IBFS<V, E> {
      */
     @Override
     public List<E> getPath(IGraph<V, E> graph, V start, V end) {
+        if (start.equals(end)) {
+            return new ArrayList<E>();
+        }
+        VertexWorkspace<V, E> workspace = VertexWorkspace.get();
+        workspace.add(start, 0, null);
 
-        ArrayList<E> toCheck = new ArrayList<E>();
-        toCheck.addAll(graph.getOutgoingEdges(start));
-        HashMap<V, E> routes = new HashMap<V, E>();
-        ArrayList<E> visited = new ArrayList<E>();
-
-        while (!toCheck.isEmpty()) {
-            E checkingEdge = toCheck.remove(0);
-            if (!routes.containsKey(graph.getEdgeTarget(checkingEdge))) {
-            routes.put(graph.getEdgeTarget(checkingEdge), checkingEdge);}
-            if (graph.getEdgeTarget(checkingEdge).equals(end)) {
-                return this.backtrack(graph, routes, start, end,
-                        new ArrayList<E>());
-            }
-            visited.add(checkingEdge);
-
-            for (E edge :
-                    graph.getOutgoingEdges(graph.getEdgeTarget(checkingEdge))){
-                if (!visited.contains(edge)) {
-                    toCheck.add(edge);
+        for (int head = 0; head < workspace.size(); head++) {
+            V checking = workspace.getVertex(head);
+            for (E edge : graph.getOutgoingEdges(checking)) {
+                V target = graph.getEdgeTarget(edge);
+                if (workspace.getId(target) >= 0) {
+                    continue;
+                }
+                workspace.add(target, 0, edge);
+                if (target.equals(end)) {
+                    return this.backtrack(graph, workspace, start, end);
                 }
             }
         }
         return new ArrayList<E>();
-
     }
 
     /**
      * A helper method which compiles the list representing the path in getPath
      * @param graph - the graph to use
-     * @param routes - a hashmap containing city and the route that can be used
+     * @param workspace - the search's workspace, holding each reached vertex
+     *                  and the edge it was reached by
      * @param start - start of path
      * @param end - end of path
-     * @param finalRoute - final path  from start to end
-     *                   (recursively gets bigger)
      * @return the final path from start to end
      */
-    private List<E> backtrack(IGraph<V, E> graph, HashMap<V, E> routes, V start,
-                             V end, ArrayList<E> finalRoute) {
-
-        if (!end.equals(start)) {
-            E edge = routes.get(end);
-            finalRoute.add(0, edge);
-            return this.backtrack(graph, routes, start,
-                    graph.getEdgeSource(edge),
-                    finalRoute);
+    private List<E> backtrack(IGraph<V, E> graph,
+                              VertexWorkspace<V, E> workspace, V start,
+                              V end) {
+        int hops = 0;
+        for (V v = end; !v.equals(start);
+             v = graph.getEdgeSource(workspace.getEdge(workspace.getId(v)))) {
+            hops++;
         }
+        ArrayList<E> finalRoute = new ArrayList<E>(hops);
+        for (V v = end; !v.equals(start);
+             v = graph.getEdgeSource(workspace.getEdge(workspace.getId(v)))) {
+            finalRoute.add(workspace.getEdge(workspace.getId(v)));
+        }
+        Collections.reverse(finalRoute);
         return finalRoute;
-
     }
 }
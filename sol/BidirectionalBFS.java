@@ -0,0 +1,130 @@
+package sol;
+
+import src.ICompactBFS;
+import src.ICompactGraph;
+import src.Transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The BidirectionalBFS class implements the ICompactBFS interface. It grows
+ * one breadth first search forward from the start over outgoing edges and
+ * one backward from the end over incoming edges, a whole level at a time,
+ * always advancing the side with the smaller frontier. Before a level is
+ * expanded no city has been reached from both sides, so the first city the
+ * level reaches that the other side has already reached lies on a path with
+ * the fewest edges and the search stops there. On dense graphs the two
+ * frontiers together stay far smaller than the one a one-sided search would
+ * grow. Frontiers are kept in discovery order and edges are scanned in id
+ * order, so the same graph always gives the same path. The two searches run
+ * in the calling thread's forward and backward SearchWorkspaces.
+ */
+public class BidirectionalBFS implements ICompactBFS {
+
+    /**
+     * gets the path from start to end with the fewest edges
+     *
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @param end   the end vertex id
+     * @return a List<Transport> representing the path from start to end, or
+     * empty if there is none
+     */
+    @Override
+    public List<Transport> getPath(ICompactGraph graph, int start, int end) {
+        if (start == end) {
+            return new ArrayList<Transport>();
+        }
+        int n = graph.getVertexCount();
+        SearchWorkspace forward =
+                SearchWorkspace.get(SearchWorkspace.FORWARD, n);
+        SearchWorkspace backward =
+                SearchWorkspace.get(SearchWorkspace.BACKWARD, n);
+        // each side's queue holds every city it reached in the order it
+        // reached them, its frontier being the last level [head, tail)
+        int[] forwardQueue = forward.getQueue();
+        int[] backwardQueue = backward.getQueue();
+
+        forward.reach(start, 0, -1);
+        backward.reach(end, 0, -1);
+        forwardQueue[0] = start;
+        backwardQueue[0] = end;
+        int forwardHead = 0;
+        int forwardTail = 1;
+        int backwardHead = 0;
+        int backwardTail = 1;
+        int meeting = -1;
+
+        while (meeting < 0 && forwardHead < forwardTail
+                && backwardHead < backwardTail) {
+            if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+                int levelEnd = forwardTail;
+                for (int i = forwardHead; i < levelEnd && meeting < 0; i++) {
+                    int checking = forwardQueue[i];
+                    int last = graph.getEdgeEnd(checking);
+                    for (int e = graph.getEdgeStart(checking); e < last; e++) {
+                        int target = graph.getEdgeTargetId(e);
+                        if (forward.isReached(target)) {
+                            continue;
+                        }
+                        forward.reach(target, 0, e);
+                        if (backward.isReached(target)) {
+                            meeting = target;
+                            break;
+                        }
+                        forwardQueue[forwardTail++] = target;
+                    }
+                }
+                forwardHead = levelEnd;
+            } else {
+                int levelEnd = backwardTail;
+                for (int i = backwardHead; i < levelEnd && meeting < 0; i++) {
+                    int checking = backwardQueue[i];
+                    int last = graph.getInEdgeEnd(checking);
+                    for (int s = graph.getInEdgeStart(checking); s < last;
+                         s++) {
+                        int e = graph.getInEdge(s);
+                        int source = graph.getEdgeSourceId(e);
+                        if (backward.isReached(source)) {
+                            continue;
+                        }
+                        backward.reach(source, 0, e);
+                        if (forward.isReached(source)) {
+                            meeting = source;
+                            break;
+                        }
+                        backwardQueue[backwardTail++] = source;
+                    }
+                }
+                backwardHead = levelEnd;
+            }
+        }
+
+        if (meeting < 0) {
+            return new ArrayList<Transport>();
+        }
+        int[] backwardEdge = backward.getParentEdges();
+        List<Transport> path = CompactDijkstra.extractPath(graph,
+                forward.getParentEdges(), start, meeting);
+        for (int v = meeting; v != end;
+             v = graph.getEdgeTargetId(backwardEdge[v])) {
+            path.add(graph.getEdge(backwardEdge[v]));
+        }
+        return path;
+    }
+
+    /**
+     * gets the fewest edges needed to get from start to every vertex. With
+     * no end to grow a second search from, this is a plain breadth first
+     * search.
+     *
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @return the hop count of each vertex id, -1 where it cannot be reached
+     */
+    @Override
+    public int[] getHopDistances(ICompactGraph graph, int start) {
+        return new CompactBFS().getHopDistances(graph, start);
+    }
+}
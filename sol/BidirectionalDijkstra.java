@@ -0,0 +1,109 @@
+package sol;
+
+import src.ICompactDijkstra;
+import src.ICompactGraph;
+import src.Transport;
+import src.Weighting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The BidirectionalDijkstra class implements the ICompactDijkstra interface.
+ * It grows one Dijkstra search forward from the source over outgoing edges
+ * and one backward from the destination over incoming edges, always
+ * advancing the side whose queue has the smaller minimum. It stops once the
+ * two minimums together reach the best source-destination path seen where
+ * the frontiers meet, which settles far fewer cities than a one-sided search.
+ * The two searches run in the calling thread's forward and backward
+ * SearchWorkspaces, so repeated queries allocate nothing but the path.
+ */
+public class BidirectionalDijkstra implements ICompactDijkstra {
+
+    /**
+     * gets the path from source to destination with the lowest total weight
+     *
+     * @param graph       the graph to search
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting   how each edge is weighted
+     * @return a List<Transport> representing the path from source to
+     * destination, or empty if there is none
+     */
+    @Override
+    public List<Transport> getShortestPath(ICompactGraph graph, int source,
+                                           int destination,
+                                           Weighting weighting) {
+        int n = graph.getVertexCount();
+        SearchWorkspace forward =
+                SearchWorkspace.get(SearchWorkspace.FORWARD, n);
+        SearchWorkspace backward =
+                SearchWorkspace.get(SearchWorkspace.BACKWARD, n);
+        IndexedHeap forwardQueue = forward.getHeap();
+        IndexedHeap backwardQueue = backward.getHeap();
+
+        forward.reach(source, 0.0, -1);
+        backward.reach(destination, 0.0, -1);
+        forwardQueue.insert(source, 0.0);
+        backwardQueue.insert(destination, 0.0);
+
+        double best = source == destination ? 0.0 : Double.POSITIVE_INFINITY;
+        int meeting = source == destination ? source : -1;
+
+        while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+            double forwardMin = forwardQueue.getKey(forwardQueue.peek());
+            double backwardMin = backwardQueue.getKey(backwardQueue.peek());
+            if (forwardMin + backwardMin >= best) {
+                break;
+            }
+            if (forwardMin <= backwardMin) {
+                int checking = forwardQueue.pop();
+                int end = graph.getEdgeEnd(checking);
+                for (int e = graph.getEdgeStart(checking); e < end; e++) {
+                    int neighbor = graph.getEdgeTargetId(e);
+                    double candidate = forward.getDist(checking)
+                            + weighting.weight(graph, e);
+                    if (candidate < forward.getDist(neighbor)) {
+                        forward.reach(neighbor, candidate, e);
+                        forwardQueue.insertOrDecrease(neighbor, candidate);
+                        double through = candidate + backward.getDist(neighbor);
+                        if (through < best) {
+                            best = through;
+                            meeting = neighbor;
+                        }
+                    }
+                }
+            } else {
+                int checking = backwardQueue.pop();
+                int end = graph.getInEdgeEnd(checking);
+                for (int i = graph.getInEdgeStart(checking); i < end; i++) {
+                    int e = graph.getInEdge(i);
+                    int neighbor = graph.getEdgeSourceId(e);
+                    double candidate = backward.getDist(checking)
+                            + weighting.weight(graph, e);
+                    if (candidate < backward.getDist(neighbor)) {
+                        backward.reach(neighbor, candidate, e);
+                        backwardQueue.insertOrDecrease(neighbor, candidate);
+                        double through = forward.getDist(neighbor) + candidate;
+                        if (through < best) {
+                            best = through;
+                            meeting = neighbor;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (meeting < 0) {
+            return new ArrayList<Transport>();
+        }
+        int[] backwardEdge = backward.getParentEdges();
+        List<Transport> path = CompactDijkstra.extractPath(graph,
+                forward.getParentEdges(), source, meeting);
+        for (int v = meeting; v != destination;
+             v = graph.getEdgeTargetId(backwardEdge[v])) {
+            path.add(graph.getEdge(backwardEdge[v]));
+        }
+        return path;
+    }
+}
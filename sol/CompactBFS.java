@@ -0,0 +1,94 @@
+package sol;
+
+import src.ICompactBFS;
+import src.ICompactGraph;
+import src.Transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The CompactBFS class implements the ICompactBFS interface. It runs breadth
+ * first search on the id arrays of an ICompactGraph: the queue is an int
+ * array holding each city at most once, and the edge each city was reached
+ * by is kept in an int array. Paths are searched in the calling thread's
+ * SearchWorkspace, whose generation stamps mark the reached cities, so once
+ * a thread has searched a graph its later searches allocate nothing but the
+ * path.
+ */
+public class CompactBFS implements ICompactBFS {
+
+    /**
+     * gets the path from start to end with the fewest edges
+     *
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @param end   the end vertex id
+     * @return a List<Transport> representing the path from start to end, or
+     * empty if there is none
+     */
+    @Override
+    public List<Transport> getPath(ICompactGraph graph, int start, int end) {
+        if (start == end) {
+            return new ArrayList<Transport>();
+        }
+        SearchWorkspace workspace = SearchWorkspace.get(
+                SearchWorkspace.FORWARD, graph.getVertexCount());
+        int[] queue = workspace.getQueue();
+        int head = 0;
+        int tail = 0;
+
+        workspace.reach(start, 0, -1);
+        queue[tail++] = start;
+        while (head < tail) {
+            int checking = queue[head++];
+            int last = graph.getEdgeEnd(checking);
+            for (int e = graph.getEdgeStart(checking); e < last; e++) {
+                int target = graph.getEdgeTargetId(e);
+                if (workspace.isReached(target)) {
+                    continue;
+                }
+                workspace.reach(target, 0, e);
+                if (target == end) {
+                    return CompactDijkstra.extractPath(graph,
+                            workspace.getParentEdges(), start, end);
+                }
+                queue[tail++] = target;
+            }
+        }
+        return new ArrayList<Transport>();
+    }
+
+    /**
+     * gets the fewest edges needed to get from start to every vertex
+     *
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @return the hop count of each vertex id, -1 where it cannot be reached
+     */
+    @Override
+    public int[] getHopDistances(ICompactGraph graph, int start) {
+        int n = graph.getVertexCount();
+        int[] hops = new int[n];
+        Arrays.fill(hops, -1);
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+
+        hops[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int checking = queue[head++];
+            int last = graph.getEdgeEnd(checking);
+            for (int e = graph.getEdgeStart(checking); e < last; e++) {
+                int target = graph.getEdgeTargetId(e);
+                if (hops[target] < 0) {
+                    hops[target] = hops[checking] + 1;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return hops;
+    }
+}
@@ -0,0 +1,181 @@
+package sol;
+
+import src.ICompactDijkstra;
+import src.ICompactGraph;
+import src.Transport;
+import src.Weighting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The CompactDijkstra class implements the ICompactDijkstra interface. It
+ * runs Dijkstra's algorithm directly on the id arrays of an ICompactGraph.
+ * Distances and predecessor edges live in primitive arrays indexed by city
+ * id, the queue is an IndexedHeap that only holds reached cities, and
+ * Transport views are only materialized for the returned path. Point to point
+ * searches run in the calling thread's SearchWorkspace, so once a thread has
+ * searched a graph its later searches allocate nothing but the path.
+ */
+public class CompactDijkstra implements ICompactDijkstra {
+
+    /**
+     * gets the path from source to destination with the lowest total weight
+     *
+     * @param graph       the graph to search
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting   how each edge is weighted
+     * @return a List<Transport> representing the path from source to
+     * destination, or empty if there is none
+     */
+    @Override
+    public List<Transport> getShortestPath(ICompactGraph graph, int source,
+                                           int destination,
+                                           Weighting weighting) {
+        return this.getShortestPath(graph, source, destination, weighting,
+                Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * gets the path from source to destination with the lowest total weight,
+     * as long as that weight is at most maxCost. The search stops as soon as
+     * destination is settled, and never labels a vertex above maxCost.
+     *
+     * @param graph       the graph to search
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting   how each edge is weighted
+     * @param maxCost     the largest total weight a path may have
+     * @return a List<Transport> representing the path from source to
+     * destination, or empty if there is none within maxCost
+     */
+    public List<Transport> getShortestPath(ICompactGraph graph, int source,
+                                           int destination,
+                                           Weighting weighting,
+                                           double maxCost) {
+        SearchWorkspace workspace = SearchWorkspace.get(
+                SearchWorkspace.FORWARD, graph.getVertexCount());
+        IndexedHeap toCheckQueue = workspace.getHeap();
+
+        workspace.reach(source, 0.0, -1);
+        toCheckQueue.insert(source, 0.0);
+        while (!toCheckQueue.isEmpty()) {
+            int checking = toCheckQueue.pop();
+            if (checking == destination) {
+                break;
+            }
+            double checkingDist = workspace.getDist(checking);
+            int end = graph.getEdgeEnd(checking);
+            for (int e = graph.getEdgeStart(checking); e < end; e++) {
+                int neighbor = graph.getEdgeTargetId(e);
+                double candidate = checkingDist + weighting.weight(graph, e);
+                if (candidate < workspace.getDist(neighbor)
+                        && candidate <= maxCost) {
+                    workspace.reach(neighbor, candidate, e);
+                    toCheckQueue.insertOrDecrease(neighbor, candidate);
+                }
+            }
+        }
+        if (!workspace.isReached(destination)) {
+            return new ArrayList<Transport>();
+        }
+        return CompactDijkstra.extractPath(graph, workspace.getParentEdges(),
+                source, destination);
+    }
+
+    /**
+     * gets the lowest total weight from source to every vertex
+     *
+     * @param graph     the graph to search
+     * @param source    the source vertex id
+     * @param weighting how each edge is weighted
+     * @return the distances indexed by vertex id, infinite if unreachable
+     */
+    public double[] getDistancesFrom(ICompactGraph graph, int source,
+                                     Weighting weighting) {
+        return CompactDijkstra.sweep(graph, source, weighting, false);
+    }
+
+    /**
+     * gets the lowest total weight from every vertex to destination
+     *
+     * @param graph       the graph to search
+     * @param destination the destination vertex id
+     * @param weighting   how each edge is weighted
+     * @return the distances indexed by vertex id, infinite if destination
+     * cannot be reached
+     */
+    public double[] getDistancesTo(ICompactGraph graph, int destination,
+                                   Weighting weighting) {
+        return CompactDijkstra.sweep(graph, destination, weighting, true);
+    }
+
+    /**
+     * runs Dijkstra from root until every reachable vertex is settled
+     *
+     * @param graph     the graph to search
+     * @param root      the vertex id the search starts from
+     * @param weighting how each edge is weighted
+     * @param backward  true to follow incoming edges instead of outgoing ones
+     * @return the distances indexed by vertex id
+     */
+    private static double[] sweep(ICompactGraph graph, int root,
+                                  Weighting weighting, boolean backward) {
+        int n = graph.getVertexCount();
+        double[] dist = new double[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        IndexedHeap toCheckQueue = new IndexedHeap(n);
+
+        dist[root] = 0.0;
+        toCheckQueue.insert(root, 0.0);
+        while (!toCheckQueue.isEmpty()) {
+            int checking = toCheckQueue.pop();
+            int start = backward ? graph.getInEdgeStart(checking)
+                    : graph.getEdgeStart(checking);
+            int end = backward ? graph.getInEdgeEnd(checking)
+                    : graph.getEdgeEnd(checking);
+            for (int i = start; i < end; i++) {
+                int e = backward ? graph.getInEdge(i) : i;
+                int neighbor = backward ? graph.getEdgeSourceId(e)
+                        : graph.getEdgeTargetId(e);
+                double candidate = dist[checking] + weighting.weight(graph, e);
+                if (candidate < dist[neighbor]) {
+                    dist[neighbor] = candidate;
+                    toCheckQueue.insertOrDecrease(neighbor, candidate);
+                }
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * builds the path ending at destination by following predecessor edges
+     * back to source
+     *
+     * @param graph       the graph that was searched
+     * @param parentEdge  the edge id each vertex was reached by, or -1
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @return the path from source to destination, or empty if destination
+     * was not reached
+     */
+    static List<Transport> extractPath(ICompactGraph graph, int[] parentEdge,
+                                       int source, int destination) {
+        if (source == destination || parentEdge[destination] < 0) {
+            return new ArrayList<Transport>();
+        }
+        int hops = 0;
+        for (int v = destination; v != source;
+             v = graph.getEdgeSourceId(parentEdge[v])) {
+            hops++;
+        }
+        Transport[] path = new Transport[hops];
+        for (int v = destination; v != source;
+             v = graph.getEdgeSourceId(parentEdge[v])) {
+            path[--hops] = graph.getEdge(parentEdge[v]);
+        }
+        return new ArrayList<Transport>(Arrays.asList(path));
+    }
+}
@@ -0,0 +1,234 @@
+package sol;
+
+import src.TransportType;
+
+import java.util.Arrays;
+
+/**
+ * The CompactGraphBuilder class collects cities and transports into growable
+ * primitive arrays and then lays them out as a CompactTravelGraph, without
+ * the City, Transport and set objects a TravelGraph makes along the way.
+ * Cities are looked up by name in an open addressing table of ids that can
+ * be probed with any CharSequence, so a loader can resolve the cities of a
+ * row straight from its read buffer. The built graph is the one a
+ * CompactTravelGraph of the equivalent TravelGraph would be: cities keep the
+ * order they were first added in, a city added again keeps its id and takes
+ * the new location, and each city's transports keep the order they were
+ * added in.
+ */
+public class CompactGraphBuilder {
+
+    private String[] names;
+    private double[] latitudes;
+    private double[] longitudes;
+    private int cityCount;
+    // city id + 1 per slot, 0 for an empty slot
+    private int[] table;
+
+    private int[] sources;
+    private int[] targets;
+    private double[] minutes;
+    private double[] price;
+    private byte[] type;
+    private int edgeCount;
+
+    /**
+     * constructs an empty CompactGraphBuilder
+     */
+    public CompactGraphBuilder() {
+        this.names = new String[16];
+        this.latitudes = new double[16];
+        this.longitudes = new double[16];
+        this.table = new int[32];
+        this.sources = new int[64];
+        this.targets = new int[64];
+        this.minutes = new double[64];
+        this.price = new double[64];
+        this.type = new byte[64];
+    }
+
+    /**
+     * adds a city, or moves it if a city with that name was already added
+     * @param name the name of the city
+     * @param latitude the latitude, or NaN if unknown
+     * @param longitude the longitude, or NaN if unknown
+     * @return the id of the city
+     */
+    public int addCity(String name, double latitude, double longitude) {
+        int id = this.findCity(name);
+        if (id < 0) {
+            if (this.cityCount == this.names.length) {
+                int capacity = this.cityCount * 2;
+                this.names = Arrays.copyOf(this.names, capacity);
+                this.latitudes = Arrays.copyOf(this.latitudes, capacity);
+                this.longitudes = Arrays.copyOf(this.longitudes, capacity);
+            }
+            id = this.cityCount++;
+            this.names[id] = name;
+            if (this.cityCount * 2 > this.table.length) {
+                this.rehash();
+            } else {
+                this.insert(id);
+            }
+        }
+        this.latitudes[id] = latitude;
+        this.longitudes[id] = longitude;
+        return id;
+    }
+
+    /**
+     * gets the id of a city that was added
+     * @param name the name of the city
+     * @return the id of the city
+     * @throws IllegalArgumentException if no city has that name
+     */
+    public int getCityId(CharSequence name) {
+        int id = this.findCity(name);
+        if (id < 0) {
+            throw new IllegalArgumentException("City is not in the graph.");
+        }
+        return id;
+    }
+
+    /**
+     * adds a transport between two cities that were added
+     * @param origin the id of the source city
+     * @param destination the id of the target city
+     * @param type the type of the transport
+     * @param price the price of the transport
+     * @param minutes the duration of the transport
+     */
+    public void addEdge(int origin, int destination, TransportType type,
+                        double price, double minutes) {
+        if (origin < 0 || origin >= this.cityCount || destination < 0
+                || destination >= this.cityCount) {
+            throw new IllegalArgumentException("City is not in the graph.");
+        }
+        if (this.edgeCount == this.targets.length) {
+            int capacity = this.edgeCount * 2;
+            this.sources = Arrays.copyOf(this.sources, capacity);
+            this.targets = Arrays.copyOf(this.targets, capacity);
+            this.minutes = Arrays.copyOf(this.minutes, capacity);
+            this.price = Arrays.copyOf(this.price, capacity);
+            this.type = Arrays.copyOf(this.type, capacity);
+        }
+        int e = this.edgeCount++;
+        this.sources[e] = origin;
+        this.targets[e] = destination;
+        this.minutes[e] = minutes;
+        this.price[e] = price;
+        this.type[e] = (byte) type.ordinal();
+    }
+
+    /**
+     * gets how many cities were added
+     * @return the number of cities
+     */
+    public int getCityCount() {
+        return this.cityCount;
+    }
+
+    /**
+     * gets how many transports were added
+     * @return the number of transports
+     */
+    public int getEdgeCount() {
+        return this.edgeCount;
+    }
+
+    /**
+     * lays out what was added as a CompactTravelGraph. The builder can keep
+     * being added to afterwards without changing the built graph.
+     * @return the graph
+     */
+    public CompactTravelGraph build() {
+        int n = this.cityCount;
+        int m = this.edgeCount;
+        // stable counting sort of the edges by source
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            offsets[this.sources[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] sortedSources = new int[m];
+        int[] sortedTargets = new int[m];
+        double[] sortedMinutes = new double[m];
+        double[] sortedPrice = new double[m];
+        byte[] sortedType = new byte[m];
+        for (int e = 0; e < m; e++) {
+            int slot = next[this.sources[e]]++;
+            sortedSources[slot] = this.sources[e];
+            sortedTargets[slot] = this.targets[e];
+            sortedMinutes[slot] = this.minutes[e];
+            sortedPrice[slot] = this.price[e];
+            sortedType[slot] = this.type[e];
+        }
+        return new CompactTravelGraph(Arrays.copyOf(this.names, n),
+                Arrays.copyOf(this.latitudes, n),
+                Arrays.copyOf(this.longitudes, n), offsets, sortedSources,
+                sortedTargets, sortedMinutes, sortedPrice, sortedType);
+    }
+
+    /**
+     * finds a city by name
+     * @param name the name of the city
+     * @return the id of the city, or -1 if none was added with that name
+     */
+    private int findCity(CharSequence name) {
+        int mask = this.table.length - 1;
+        for (int slot = hash(name) & mask; this.table[slot] != 0;
+                slot = (slot + 1) & mask) {
+            int id = this.table[slot] - 1;
+            if (this.names[id].contentEquals(name)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * puts a city into the first free slot of its probe sequence
+     * @param id the id of the city
+     */
+    private void insert(int id) {
+        int mask = this.table.length - 1;
+        int slot = hash(this.names[id]) & mask;
+        while (this.table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        this.table[slot] = id + 1;
+    }
+
+    /**
+     * doubles the table and puts every city back into it
+     */
+    private void rehash() {
+        this.table = new int[this.table.length * 2];
+        for (int id = 0; id < this.cityCount; id++) {
+            this.insert(id);
+        }
+    }
+
+    /**
+     * hashes chars the way String.hashCode does, so a name hashes the same
+     * whether it is a String or a view of a read buffer, then spreads the
+     * high bits into the low ones the table indexes by
+     * @param chars the chars
+     * @return the hash
+     */
+    private static int hash(CharSequence chars) {
+        int h;
+        if (chars instanceof String) {
+            h = chars.hashCode();
+        } else {
+            h = 0;
+            for (int i = 0; i < chars.length(); i++) {
+                h = 31 * h + chars.charAt(i);
+            }
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,396 @@
+package sol;
+
+import src.City;
+import src.ICompactGraph;
+import src.Transport;
+import src.TransportType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The CompactTravelGraph class implements the ICompactGraph interface. It is a
+ * frozen copy of a TravelGraph stored in compressed sparse row form: every
+ * City gets a dense int id, and the outgoing edges of city v occupy the slots
+ * [offsets[v], offsets[v + 1]) of the primitive edge arrays. A reverse index
+ * lists the ids of the edges into city v in
+ * inEdges[inOffsets[v], inOffsets[v + 1]). City and Transport objects are
+ * only created (and then cached) when they are asked for, so searches that
+ * work on ids never touch them. Nothing changes after construction except
+ * those caches, which are filled with compare-and-set so that threads
+ * sharing the graph always get the same City and Transport for an id.
+ */
+public class CompactTravelGraph implements ICompactGraph {
+
+    private static final TransportType[] TYPES = TransportType.values();
+
+    private String[] names;
+    private double[] latitudes;
+    private double[] longitudes;
+    private HashMap<String, Integer> ids;
+    private int[] offsets;
+    private int[] sources;
+    private int[] targets;
+    private double[] minutes;
+    private double[] price;
+    private byte[] type;
+    private int[] inOffsets;
+    private int[] inEdges;
+
+    private AtomicReferenceArray<City> cityViews;
+    private AtomicReferenceArray<Transport> edgeViews;
+
+    /**
+     * constructs a CompactTravelGraph holding the same cities and transports
+     * as the inputted graph. Ids follow the order the cities were added in.
+     * @param graph the graph to freeze
+     */
+    public CompactTravelGraph(TravelGraph graph) {
+        Set<City> cities = graph.getVertices();
+        int vertexCount = cities.size();
+        this.names = new String[vertexCount];
+        this.latitudes = new double[vertexCount];
+        this.longitudes = new double[vertexCount];
+        this.ids = new HashMap<String, Integer>(vertexCount * 2);
+        this.offsets = new int[vertexCount + 1];
+
+        int v = 0;
+        int edgeCount = 0;
+        for (City city : cities) {
+            this.names[v] = city.toString();
+            this.latitudes[v] = city.getLatitude();
+            this.longitudes[v] = city.getLongitude();
+            this.ids.put(city.toString(), v);
+            edgeCount += graph.getOutgoingEdges(city).size();
+            v++;
+        }
+
+        this.sources = new int[edgeCount];
+        this.targets = new int[edgeCount];
+        this.minutes = new double[edgeCount];
+        this.price = new double[edgeCount];
+        this.type = new byte[edgeCount];
+
+        v = 0;
+        int e = 0;
+        for (City city : cities) {
+            this.offsets[v] = e;
+            for (Transport t : graph.getOutgoingEdges(city)) {
+                this.sources[e] = v;
+                this.targets[e] = this.getVertexId(t.getTarget().toString());
+                this.minutes[e] = t.getMinutes();
+                this.price[e] = t.getPrice();
+                this.type[e] = (byte) t.getType().ordinal();
+                e++;
+            }
+            v++;
+        }
+        this.offsets[vertexCount] = e;
+        this.index();
+    }
+
+    /**
+     * constructs a CompactTravelGraph from arrays already in compressed
+     * sparse row form, which it takes ownership of. City names must be
+     * distinct.
+     * @param names the name of each city
+     * @param latitudes the latitude of each city, NaN if unknown
+     * @param longitudes the longitude of each city, NaN if unknown
+     * @param offsets where each city's outgoing edges start, followed by the
+     *                edge count
+     * @param sources the source id of each edge
+     * @param targets the target id of each edge
+     * @param minutes the duration of each edge
+     * @param price the price of each edge
+     * @param type the TransportType ordinal of each edge
+     */
+    CompactTravelGraph(String[] names, double[] latitudes,
+                       double[] longitudes, int[] offsets, int[] sources,
+                       int[] targets, double[] minutes, double[] price,
+                       byte[] type) {
+        this(names, latitudes, longitudes, offsets, sources, targets, minutes,
+                price, type, null, null);
+    }
+
+    /**
+     * constructs a CompactTravelGraph from arrays already in compressed
+     * sparse row form, reverse index included, which it takes ownership of
+     * @param inOffsets where each city's incoming slots start, followed by
+     *                  the edge count, or null to build the reverse index
+     * @param inEdges the edge id in each incoming slot, or null to build the
+     *                reverse index
+     * @see #CompactTravelGraph(String[], double[], double[], int[], int[],
+     *      int[], double[], double[], byte[])
+     */
+    CompactTravelGraph(String[] names, double[] latitudes,
+                       double[] longitudes, int[] offsets, int[] sources,
+                       int[] targets, double[] minutes, double[] price,
+                       byte[] type, int[] inOffsets, int[] inEdges) {
+        this.names = names;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.ids = new HashMap<String, Integer>(names.length * 2);
+        for (int v = 0; v < names.length; v++) {
+            this.ids.put(names[v], v);
+        }
+        this.offsets = offsets;
+        this.sources = sources;
+        this.targets = targets;
+        this.minutes = minutes;
+        this.price = price;
+        this.type = type;
+        if (inOffsets == null || inEdges == null) {
+            this.index();
+        } else {
+            this.inOffsets = inOffsets;
+            this.inEdges = inEdges;
+            this.cityViews = new AtomicReferenceArray<City>(names.length);
+            this.edgeViews = new AtomicReferenceArray<Transport>(
+                    targets.length);
+        }
+    }
+
+    /**
+     * builds the reverse index and the empty view caches once the outgoing
+     * edges are in place
+     */
+    private void index() {
+        int vertexCount = this.names.length;
+        int edgeCount = this.targets.length;
+        // counting sort of the edge ids by target keeps each incoming list in
+        // edge id order
+        this.inOffsets = new int[vertexCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            this.inOffsets[this.targets[i] + 1]++;
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            this.inOffsets[i + 1] += this.inOffsets[i];
+        }
+        this.inEdges = new int[edgeCount];
+        int[] next = Arrays.copyOf(this.inOffsets, vertexCount);
+        for (int i = 0; i < edgeCount; i++) {
+            this.inEdges[next[this.targets[i]]++] = i;
+        }
+
+        this.cityViews = new AtomicReferenceArray<City>(vertexCount);
+        this.edgeViews = new AtomicReferenceArray<Transport>(edgeCount);
+    }
+
+    /**
+     * makes a copy of this graph with new weights, sharing every other array
+     * with it since neither graph ever changes them
+     * @param minutes the duration of each edge
+     * @param price the price of each edge
+     * @return the reweighted graph
+     */
+    CompactTravelGraph withWeights(double[] minutes, double[] price) {
+        return new CompactTravelGraph(this.names, this.latitudes,
+                this.longitudes, this.offsets, this.sources, this.targets,
+                minutes, price, this.type, this.inOffsets, this.inEdges);
+    }
+
+    /**
+     * not supported, the graph is frozen once built
+     * @param vertex the vertex
+     */
+    @Override
+    public void addVertex(City vertex) {
+        throw new UnsupportedOperationException("CompactTravelGraph is frozen.");
+    }
+
+    /**
+     * not supported, the graph is frozen once built
+     * @param origin the origin of the edge.
+     * @param edge the edge to be added
+     */
+    @Override
+    public void addEdge(City origin, Transport edge) {
+        throw new UnsupportedOperationException("CompactTravelGraph is frozen.");
+    }
+
+    /**
+     * gets the vertices from the graph, materializing every City view
+     * @return the vertices in a Set
+     */
+    @Override
+    public Set<City> getVertices() {
+        LinkedHashSet<City> c = new LinkedHashSet<City>();
+        for (int v = 0; v < this.names.length; v++) {
+            c.add(this.getVertex(v));
+        }
+        return c;
+    }
+
+    /**
+     * gets the source of the inputted edge
+     * @param edge the edge
+     * @return the source city
+     */
+    @Override
+    public City getEdgeSource(Transport edge) {
+        return edge.getSource();
+    }
+
+    /**
+     * gets the target of the inputted edge
+     * @param edge the edge
+     * @return the destination city
+     */
+    @Override
+    public City getEdgeTarget(Transport edge) {
+        return edge.getTarget();
+    }
+
+    /**
+     * gets the edges that come out of the inputted city, materializing their
+     * Transport views
+     * @param fromVertex the vertex
+     * @return the set of outgoing edges
+     */
+    @Override
+    public Set<Transport> getOutgoingEdges(City fromVertex) {
+        int v = this.getVertexId(fromVertex.toString());
+        LinkedHashSet<Transport> out = new LinkedHashSet<Transport>();
+        for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+            out.add(this.getEdge(e));
+        }
+        return out;
+    }
+
+    /**
+     * gets the edges that go into the inputted city, materializing their
+     * Transport views
+     * @param toVertex the vertex
+     * @return the set of incoming edges
+     */
+    @Override
+    public Set<Transport> getIncomingEdges(City toVertex) {
+        int v = this.getVertexId(toVertex.toString());
+        LinkedHashSet<Transport> in = new LinkedHashSet<Transport>();
+        for (int i = this.inOffsets[v]; i < this.inOffsets[v + 1]; i++) {
+            in.add(this.getEdge(this.inEdges[i]));
+        }
+        return in;
+    }
+
+    /**
+     * gets the City based on the inputted city name
+     * @param name a String representing the name of the city
+     * @return the City of the inputted String
+     * @throws IllegalArgumentException if the String for the city name
+     *                                  does not represent a City in the graph
+     */
+    @Override
+    public City getCity(String name) {
+        return this.getVertex(this.getVertexId(name));
+    }
+
+    @Override
+    public int getVertexCount() {
+        return this.names.length;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return this.targets.length;
+    }
+
+    @Override
+    public int getVertexId(String name) {
+        Integer id = this.ids.get(name);
+        if (id == null) {
+            throw new IllegalArgumentException("City is not in the graph.");
+        }
+        return id;
+    }
+
+    @Override
+    public City getVertex(int vertex) {
+        City city = this.cityViews.get(vertex);
+        if (city == null) {
+            city = new City(this.names[vertex], this.latitudes[vertex],
+                    this.longitudes[vertex]);
+            if (!this.cityViews.compareAndSet(vertex, null, city)) {
+                city = this.cityViews.get(vertex);
+            }
+        }
+        return city;
+    }
+
+    @Override
+    public double getLatitude(int vertex) {
+        return this.latitudes[vertex];
+    }
+
+    @Override
+    public double getLongitude(int vertex) {
+        return this.longitudes[vertex];
+    }
+
+    @Override
+    public int getEdgeStart(int vertex) {
+        return this.offsets[vertex];
+    }
+
+    @Override
+    public int getEdgeEnd(int vertex) {
+        return this.offsets[vertex + 1];
+    }
+
+    @Override
+    public int getInEdgeStart(int vertex) {
+        return this.inOffsets[vertex];
+    }
+
+    @Override
+    public int getInEdgeEnd(int vertex) {
+        return this.inOffsets[vertex + 1];
+    }
+
+    @Override
+    public int getInEdge(int slot) {
+        return this.inEdges[slot];
+    }
+
+    @Override
+    public int getEdgeSourceId(int edge) {
+        return this.sources[edge];
+    }
+
+    @Override
+    public int getEdgeTargetId(int edge) {
+        return this.targets[edge];
+    }
+
+    @Override
+    public double getMinutes(int edge) {
+        return this.minutes[edge];
+    }
+
+    @Override
+    public double getPrice(int edge) {
+        return this.price[edge];
+    }
+
+    @Override
+    public TransportType getType(int edge) {
+        return TYPES[this.type[edge]];
+    }
+
+    @Override
+    public Transport getEdge(int edge) {
+        Transport transport = this.edgeViews.get(edge);
+        if (transport == null) {
+            transport = new Transport(this.getVertex(this.sources[edge]),
+                    this.getVertex(this.targets[edge]), this.getType(edge),
+                    this.price[edge], this.minutes[edge]);
+            if (!this.edgeViews.compareAndSet(edge, null, transport)) {
+                transport = this.edgeViews.get(edge);
+            }
+        }
+        return transport;
+    }
+}
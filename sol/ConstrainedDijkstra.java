@@ -0,0 +1,103 @@
+package sol;
+
+import src.ICompactGraph;
+import src.Transport;
+import src.Weighting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ConstrainedDijkstra class solves the resource constrained shortest path
+ * problem on an ICompactGraph: the path with the lowest cost whose total
+ * resource stays within a bound, for instance the fastest route under a
+ * budget. Cost and resource are both Weightings read from the primitive edge
+ * arrays. It is a label-setting search where a label is one (cost, resource)
+ * way of reaching a city and each city keeps the labels no other label there
+ * dominates. Two backward sweeps from the destination give the lowest cost
+ * and the lowest resource still needed from every city; labels that cannot
+ * finish within the bound are dropped, and labels are expanded in order of
+ * cost plus the lowest cost still needed, so the first label to reach the
+ * destination is the answer. The labels are kept in the calling thread's
+ * LabelStore, with cost and resource as its two totals and no legs.
+ */
+public class ConstrainedDijkstra {
+
+    /**
+     * gets the lowest cost path from source to destination whose total
+     * resource is at most maxResource
+     *
+     * @param graph       the graph to search
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @param costWeighting how each edge adds to the cost being minimized
+     * @param resourceWeighting how each edge uses up the resource
+     * @param maxResource the most resource the path may use
+     * @return a List<Transport> representing the path from source to
+     * destination, or empty if no path stays within maxResource
+     */
+    public List<Transport> getShortestPath(ICompactGraph graph, int source,
+                                           int destination,
+                                           Weighting costWeighting,
+                                           Weighting resourceWeighting,
+                                           double maxResource) {
+        if (source == destination) {
+            return new ArrayList<Transport>();
+        }
+        CompactDijkstra dijkstra = new CompactDijkstra();
+        double[] resourceLeft = dijkstra.getDistancesTo(graph, destination,
+                resourceWeighting);
+        if (!(resourceLeft[source] <= maxResource)) {
+            return new ArrayList<Transport>();
+        }
+        double[] costLeft = dijkstra.getDistancesTo(graph, destination,
+                costWeighting);
+
+        LabelStore labels = LabelStore.get(graph.getVertexCount());
+        IndexedHeap toCheckQueue = labels.getHeap();
+
+        int start = labels.add(source, 0.0, 0.0, 0, -1, -1);
+        toCheckQueue.insert(start, costLeft[source]);
+        int found = -1;
+        while (!toCheckQueue.isEmpty()) {
+            int label = toCheckQueue.pop();
+            if (labels.isDead(label)) {
+                continue;
+            }
+            int v = labels.getVertex(label);
+            if (v == destination) {
+                found = label;
+                break;
+            }
+            int end = graph.getEdgeEnd(v);
+            for (int e = graph.getEdgeStart(v); e < end; e++) {
+                int u = graph.getEdgeTargetId(e);
+                double c = labels.getFirst(label)
+                        + costWeighting.weight(graph, e);
+                double r = labels.getSecond(label)
+                        + resourceWeighting.weight(graph, e);
+                if (r + resourceLeft[u] > maxResource
+                        || labels.isDominated(u, c, r, 0)) {
+                    continue;
+                }
+                labels.removeDominated(u, c, r, 0);
+                int added = labels.add(u, c, r, 0, label, e);
+                toCheckQueue.insert(added, c + costLeft[u]);
+            }
+        }
+
+        ArrayList<Transport> path = new ArrayList<Transport>();
+        if (found >= 0) {
+            for (int at = found; labels.getParent(at) >= 0;
+                 at = labels.getParent(at)) {
+                path.add(graph.getEdge(labels.getEdge(at)));
+            }
+            for (int i = 0, j = path.size() - 1; i < j; i++, j--) {
+                Transport swap = path.get(i);
+                path.set(i, path.get(j));
+                path.set(j, swap);
+            }
+        }
+        return path;
+    }
+}
@@ -0,0 +1,582 @@
+package sol;
+
+import src.ICompactDijkstra;
+import src.ICompactGraph;
+import src.Transport;
+import src.Weighting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ContractionHierarchy class implements the ICompactDijkstra interface
+ * with contraction hierarchies. For each Weighting it contracts the cities
+ * one at a time, least important first, adding a shortcut edge u -> x
+ * whenever removing v would lose the only shortest path u -> v -> x. A query
+ * is then a bidirectional Dijkstra that only ever climbs to more important
+ * cities, which settles a tiny part of the graph, and the shortcuts on the
+ * path it finds are unpacked back into the Transports they stand for.
+ * Hierarchies are only built when the ContractionHierarchy is made, for
+ * minutes and price unless other Weightings are asked for. Contracting takes
+ * far longer than a search, so a query for a Weighting with no hierarchy is
+ * answered by a BidirectionalDijkstra instead of contracting the graph for
+ * it, and arbitrary blends from callers never build up hierarchies.
+ */
+public class ContractionHierarchy implements ICompactDijkstra {
+
+    private ICompactGraph graph;
+    private Map<Weighting, Hierarchy> hierarchies;
+    private BidirectionalDijkstra fallback;
+
+    /**
+     * constructs a ContractionHierarchy for a graph, contracting it for
+     * minutes and for price in parallel
+     * @param graph the graph that will be searched
+     */
+    public ContractionHierarchy(ICompactGraph graph) {
+        this(graph, List.of(Weighting.MINUTES, Weighting.PRICE));
+    }
+
+    /**
+     * constructs a ContractionHierarchy for a graph, contracting it for each
+     * of the Weightings in parallel
+     * @param graph the graph that will be searched
+     * @param weightings the Weightings to build hierarchies for
+     */
+    public ContractionHierarchy(ICompactGraph graph,
+                                List<Weighting> weightings) {
+        this.graph = graph;
+        this.fallback = new BidirectionalDijkstra();
+        List<Weighting> distinct = new ArrayList<Weighting>(
+                new LinkedHashSet<Weighting>(weightings));
+        Hierarchy[] built = new Hierarchy[distinct.size()];
+        Arrays.parallelSetAll(built,
+                i -> new Hierarchy(graph, distinct.get(i)));
+        HashMap<Weighting, Hierarchy> map =
+                new HashMap<Weighting, Hierarchy>();
+        for (int i = 0; i < built.length; i++) {
+            map.put(distinct.get(i), built[i]);
+        }
+        this.hierarchies = map;
+    }
+
+    /**
+     * gets the path from source to destination with the lowest total weight
+     *
+     * @param graph       the graph to search, the one this
+     *                    ContractionHierarchy was made for
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting   how each edge is weighted
+     * @return a List<Transport> representing the path from source to
+     * destination, or empty if there is none
+     * @throws IllegalArgumentException if graph is not the graph this
+     *                                  ContractionHierarchy was made for
+     */
+    @Override
+    public List<Transport> getShortestPath(ICompactGraph graph, int source,
+                                           int destination,
+                                           Weighting weighting) {
+        if (graph != this.graph) {
+            throw new IllegalArgumentException("ContractionHierarchy was made "
+                    + "for a different graph.");
+        }
+        if (source == destination) {
+            return new ArrayList<Transport>();
+        }
+        Hierarchy hierarchy = this.hierarchies.get(weighting);
+        if (hierarchy == null) {
+            return this.fallback.getShortestPath(graph, source, destination,
+                    weighting);
+        }
+        return hierarchy.query(graph, source, destination);
+    }
+
+    /**
+     * checks if a hierarchy was built for a Weighting
+     * @param weighting the Weighting
+     * @return true if queries for it search the hierarchy
+     */
+    public boolean hasHierarchy(Weighting weighting) {
+        return this.hierarchies.containsKey(weighting);
+    }
+
+    /**
+     * gets how many shortcut edges the hierarchy for a Weighting added
+     * @param weighting the Weighting
+     * @return the number of shortcuts
+     * @throws IllegalArgumentException if no hierarchy was built for it
+     */
+    public int getShortcutCount(Weighting weighting) {
+        Hierarchy hierarchy = this.hierarchies.get(weighting);
+        if (hierarchy == null) {
+            throw new IllegalArgumentException("No hierarchy was built for "
+                    + "the weighting.");
+        }
+        return hierarchy.shortcutCount;
+    }
+
+    /**
+     * One contracted graph for one Weighting. Overlay edges are the original
+     * edges (lightest per pair of cities) plus shortcuts, kept in parallel
+     * primitive arrays; a shortcut remembers the two overlay edges it
+     * replaces and an original edge remembers its edge id in the graph.
+     */
+    private static final class Hierarchy {
+
+        private static final int WITNESS_SETTLE_LIMIT = 500;
+
+        private int n;
+        private int edgeCount;
+        private int shortcutCount;
+        private int[] from;
+        private int[] to;
+        private double[] weight;
+        private int[] original;
+        private int[] first;
+        private int[] second;
+
+        private int[] rank;
+        private int[] upOffsets;
+        private int[] upEdges;
+        private int[] downOffsets;
+        private int[] downEdges;
+
+        // only used while contracting
+        private int[][] outAdj;
+        private int[] outSize;
+        private int[][] inAdj;
+        private int[] inSize;
+        private boolean[] contracted;
+        private int[] contractedNeighbors;
+        private double[] witnessDist;
+        private int[] touched;
+        private IndexedHeap witnessQueue;
+
+        /**
+         * contracts a graph for a Weighting
+         * @param graph the graph
+         * @param weighting how each edge is weighted
+         */
+        Hierarchy(ICompactGraph graph, Weighting weighting) {
+            this.n = graph.getVertexCount();
+            int capacity = Math.max(graph.getEdgeCount(), 16);
+            this.from = new int[capacity];
+            this.to = new int[capacity];
+            this.weight = new double[capacity];
+            this.original = new int[capacity];
+            this.first = new int[capacity];
+            this.second = new int[capacity];
+            this.outAdj = new int[this.n][];
+            this.inAdj = new int[this.n][];
+            this.outSize = new int[this.n];
+            this.inSize = new int[this.n];
+            for (int v = 0; v < this.n; v++) {
+                this.outAdj[v] = new int[4];
+                this.inAdj[v] = new int[4];
+            }
+
+            // keep the lightest original edge between each pair of cities
+            int[] edgeTo = new int[this.n];
+            Arrays.fill(edgeTo, -1);
+            for (int v = 0; v < this.n; v++) {
+                int end = graph.getEdgeEnd(v);
+                for (int e = graph.getEdgeStart(v); e < end; e++) {
+                    int u = graph.getEdgeTargetId(e);
+                    if (u == v) {
+                        continue;
+                    }
+                    double w = weighting.weight(graph, e);
+                    int existing = edgeTo[u];
+                    if (existing >= 0 && this.from[existing] == v) {
+                        if (w < this.weight[existing]) {
+                            this.weight[existing] = w;
+                            this.original[existing] = e;
+                        }
+                        continue;
+                    }
+                    edgeTo[u] = this.addEdge(v, u, w, e, -1, -1);
+                }
+            }
+
+            this.contracted = new boolean[this.n];
+            this.contractedNeighbors = new int[this.n];
+            this.witnessDist = new double[this.n];
+            Arrays.fill(this.witnessDist, Double.POSITIVE_INFINITY);
+            this.touched = new int[this.n];
+            this.witnessQueue = new IndexedHeap(this.n);
+            this.rank = new int[this.n];
+
+            IndexedHeap order = new IndexedHeap(this.n);
+            for (int v = 0; v < this.n; v++) {
+                order.insert(v, this.priority(v));
+            }
+            int nextRank = 0;
+            while (!order.isEmpty()) {
+                int v = order.pop();
+                // priorities go stale as neighbours are contracted, so
+                // recompute and put v back if it is no longer the smallest
+                double p = this.priority(v);
+                if (!order.isEmpty() && p > order.getKey(order.peek())) {
+                    order.insert(v, p);
+                    continue;
+                }
+                this.contract(v, true);
+                this.contracted[v] = true;
+                for (int i = 0; i < this.outSize[v]; i++) {
+                    this.contractedNeighbors[this.to[this.outAdj[v][i]]]++;
+                }
+                for (int i = 0; i < this.inSize[v]; i++) {
+                    this.contractedNeighbors[this.from[this.inAdj[v][i]]]++;
+                }
+                this.rank[v] = nextRank++;
+            }
+            this.buildSearchGraph();
+
+            this.outAdj = null;
+            this.inAdj = null;
+            this.outSize = null;
+            this.inSize = null;
+            this.contracted = null;
+            this.contractedNeighbors = null;
+            this.witnessDist = null;
+            this.touched = null;
+            this.witnessQueue = null;
+        }
+
+        /**
+         * estimates how useful it is to contract v next: the shortcuts it
+         * needs minus the edges it removes, plus how many of its neighbours
+         * are already contracted so contraction spreads over the graph
+         * @param v the vertex id
+         * @return the priority, smaller is contracted sooner
+         */
+        private double priority(int v) {
+            int removed = 0;
+            for (int i = 0; i < this.outSize[v]; i++) {
+                if (!this.contracted[this.to[this.outAdj[v][i]]]) {
+                    removed++;
+                }
+            }
+            for (int i = 0; i < this.inSize[v]; i++) {
+                if (!this.contracted[this.from[this.inAdj[v][i]]]) {
+                    removed++;
+                }
+            }
+            return this.contract(v, false) - removed
+                    + this.contractedNeighbors[v];
+        }
+
+        /**
+         * finds the shortcuts contracting v needs and, if apply is true,
+         * adds them
+         * @param v the vertex id
+         * @param apply true to add the shortcuts, false to only count them
+         * @return the number of shortcuts
+         */
+        private int contract(int v, boolean apply) {
+            int shortcuts = 0;
+            for (int i = 0; i < this.inSize[v]; i++) {
+                int in = this.inAdj[v][i];
+                int u = this.from[in];
+                if (this.contracted[u]) {
+                    continue;
+                }
+                double maxCandidate = -1;
+                for (int j = 0; j < this.outSize[v]; j++) {
+                    int out = this.outAdj[v][j];
+                    int x = this.to[out];
+                    if (!this.contracted[x] && x != u) {
+                        maxCandidate = Math.max(maxCandidate,
+                                this.weight[in] + this.weight[out]);
+                    }
+                }
+                if (maxCandidate < 0) {
+                    continue;
+                }
+                int touchedCount = this.witnessSearch(u, v, maxCandidate);
+                for (int j = 0; j < this.outSize[v]; j++) {
+                    int out = this.outAdj[v][j];
+                    int x = this.to[out];
+                    if (this.contracted[x] || x == u) {
+                        continue;
+                    }
+                    double candidate = this.weight[in] + this.weight[out];
+                    if (this.witnessDist[x] > candidate) {
+                        shortcuts++;
+                        if (apply) {
+                            this.addShortcut(u, x, candidate, in, out);
+                        }
+                    }
+                }
+                for (int t = 0; t < touchedCount; t++) {
+                    this.witnessDist[this.touched[t]] = Double.POSITIVE_INFINITY;
+                }
+            }
+            return shortcuts;
+        }
+
+        /**
+         * runs a bounded Dijkstra from u over the uncontracted cities other
+         * than v, leaving the distances in witnessDist
+         * @param u the vertex id to start from
+         * @param v the vertex id being contracted
+         * @param maxDist the distance past which the search stops
+         * @return how many entries of touched were set
+         */
+        private int witnessSearch(int u, int v, double maxDist) {
+            int touchedCount = 0;
+            this.witnessDist[u] = 0.0;
+            this.touched[touchedCount++] = u;
+            this.witnessQueue.insert(u, 0.0);
+            int settled = 0;
+            while (!this.witnessQueue.isEmpty()
+                    && settled < WITNESS_SETTLE_LIMIT) {
+                int checking = this.witnessQueue.pop();
+                double d = this.witnessDist[checking];
+                if (d > maxDist) {
+                    break;
+                }
+                settled++;
+                for (int i = 0; i < this.outSize[checking]; i++) {
+                    int e = this.outAdj[checking][i];
+                    int x = this.to[e];
+                    if (x == v || this.contracted[x]) {
+                        continue;
+                    }
+                    double candidate = d + this.weight[e];
+                    if (candidate < this.witnessDist[x]) {
+                        if (this.witnessDist[x] == Double.POSITIVE_INFINITY) {
+                            this.touched[touchedCount++] = x;
+                        }
+                        this.witnessDist[x] = candidate;
+                        this.witnessQueue.insertOrDecrease(x, candidate);
+                    }
+                }
+            }
+            this.witnessQueue.clear();
+            return touchedCount;
+        }
+
+        /**
+         * adds a shortcut u -> x, or lowers the weight of the edge u -> x if
+         * there already is one
+         */
+        private void addShortcut(int u, int x, double w, int in, int out) {
+            for (int i = 0; i < this.outSize[u]; i++) {
+                int e = this.outAdj[u][i];
+                if (this.to[e] == x) {
+                    if (w < this.weight[e]) {
+                        this.weight[e] = w;
+                        this.original[e] = -1;
+                        this.first[e] = in;
+                        this.second[e] = out;
+                    }
+                    return;
+                }
+            }
+            this.addEdge(u, x, w, -1, in, out);
+            this.shortcutCount++;
+        }
+
+        /**
+         * appends an overlay edge
+         * @return the overlay edge id
+         */
+        private int addEdge(int u, int x, double w, int edge, int in,
+                            int out) {
+            if (this.edgeCount == this.from.length) {
+                int capacity = this.edgeCount * 2;
+                this.from = Arrays.copyOf(this.from, capacity);
+                this.to = Arrays.copyOf(this.to, capacity);
+                this.weight = Arrays.copyOf(this.weight, capacity);
+                this.original = Arrays.copyOf(this.original, capacity);
+                this.first = Arrays.copyOf(this.first, capacity);
+                this.second = Arrays.copyOf(this.second, capacity);
+            }
+            int e = this.edgeCount++;
+            this.from[e] = u;
+            this.to[e] = x;
+            this.weight[e] = w;
+            this.original[e] = edge;
+            this.first[e] = in;
+            this.second[e] = out;
+            if (this.outSize[u] == this.outAdj[u].length) {
+                this.outAdj[u] = Arrays.copyOf(this.outAdj[u],
+                        this.outSize[u] * 2);
+            }
+            this.outAdj[u][this.outSize[u]++] = e;
+            if (this.inSize[x] == this.inAdj[x].length) {
+                this.inAdj[x] = Arrays.copyOf(this.inAdj[x],
+                        this.inSize[x] * 2);
+            }
+            this.inAdj[x][this.inSize[x]++] = e;
+            return e;
+        }
+
+        /**
+         * splits the overlay edges into the upward edges the forward search
+         * follows and the downward edges the backward search follows in
+         * reverse, both in CSR form
+         */
+        private void buildSearchGraph() {
+            this.upOffsets = new int[this.n + 1];
+            this.downOffsets = new int[this.n + 1];
+            for (int e = 0; e < this.edgeCount; e++) {
+                if (this.rank[this.to[e]] > this.rank[this.from[e]]) {
+                    this.upOffsets[this.from[e] + 1]++;
+                } else {
+                    this.downOffsets[this.to[e] + 1]++;
+                }
+            }
+            for (int v = 0; v < this.n; v++) {
+                this.upOffsets[v + 1] += this.upOffsets[v];
+                this.downOffsets[v + 1] += this.downOffsets[v];
+            }
+            this.upEdges = new int[this.upOffsets[this.n]];
+            this.downEdges = new int[this.downOffsets[this.n]];
+            int[] upNext = Arrays.copyOf(this.upOffsets, this.n);
+            int[] downNext = Arrays.copyOf(this.downOffsets, this.n);
+            for (int e = 0; e < this.edgeCount; e++) {
+                if (this.rank[this.to[e]] > this.rank[this.from[e]]) {
+                    this.upEdges[upNext[this.from[e]]++] = e;
+                } else {
+                    this.downEdges[downNext[this.to[e]]++] = e;
+                }
+            }
+        }
+
+        /**
+         * runs the upward bidirectional search in the calling thread's
+         * SearchWorkspaces, so a query only touches the cities it reaches,
+         * and unpacks the path found
+         * @param graph the graph the hierarchy was built for
+         * @param source the source vertex id
+         * @param destination the destination vertex id, not source
+         * @return the path, or empty if there is none
+         */
+        List<Transport> query(ICompactGraph graph, int source,
+                              int destination) {
+            SearchWorkspace forwardSearch =
+                    SearchWorkspace.get(SearchWorkspace.FORWARD, this.n);
+            SearchWorkspace backwardSearch =
+                    SearchWorkspace.get(SearchWorkspace.BACKWARD, this.n);
+            IndexedHeap forwardQueue = forwardSearch.getHeap();
+            IndexedHeap backwardQueue = backwardSearch.getHeap();
+
+            forwardSearch.reach(source, 0.0, -1);
+            backwardSearch.reach(destination, 0.0, -1);
+            forwardQueue.insert(source, 0.0);
+            backwardQueue.insert(destination, 0.0);
+            double best = Double.POSITIVE_INFINITY;
+            int meeting = -1;
+
+            while (true) {
+                boolean forward = !forwardQueue.isEmpty()
+                        && forwardQueue.getKey(forwardQueue.peek()) < best;
+                boolean backward = !backwardQueue.isEmpty()
+                        && backwardQueue.getKey(backwardQueue.peek()) < best;
+                if (!forward && !backward) {
+                    break;
+                }
+                if (forward && (!backward
+                        || forwardQueue.getKey(forwardQueue.peek())
+                        <= backwardQueue.getKey(backwardQueue.peek()))) {
+                    int u = forwardQueue.pop();
+                    double distance = forwardSearch.getDist(u);
+                    if (distance + backwardSearch.getDist(u) < best) {
+                        best = distance + backwardSearch.getDist(u);
+                        meeting = u;
+                    }
+                    for (int i = this.upOffsets[u]; i < this.upOffsets[u + 1];
+                         i++) {
+                        int e = this.upEdges[i];
+                        int x = this.to[e];
+                        double candidate = distance + this.weight[e];
+                        if (candidate < forwardSearch.getDist(x)) {
+                            forwardSearch.reach(x, candidate, e);
+                            forwardQueue.insertOrDecrease(x, candidate);
+                            double through =
+                                    candidate + backwardSearch.getDist(x);
+                            if (through < best) {
+                                best = through;
+                                meeting = x;
+                            }
+                        }
+                    }
+                } else {
+                    int u = backwardQueue.pop();
+                    double distance = backwardSearch.getDist(u);
+                    if (forwardSearch.getDist(u) + distance < best) {
+                        best = forwardSearch.getDist(u) + distance;
+                        meeting = u;
+                    }
+                    for (int i = this.downOffsets[u];
+                         i < this.downOffsets[u + 1]; i++) {
+                        int e = this.downEdges[i];
+                        int x = this.from[e];
+                        double candidate = distance + this.weight[e];
+                        if (candidate < backwardSearch.getDist(x)) {
+                            backwardSearch.reach(x, candidate, e);
+                            backwardQueue.insertOrDecrease(x, candidate);
+                            double through =
+                                    forwardSearch.getDist(x) + candidate;
+                            if (through < best) {
+                                best = through;
+                                meeting = x;
+                            }
+                        }
+                    }
+                }
+            }
+
+            int[] forwardEdge = forwardSearch.getParentEdges();
+            int[] backwardEdge = backwardSearch.getParentEdges();
+            ArrayList<Transport> path = new ArrayList<Transport>();
+            if (meeting < 0) {
+                return path;
+            }
+            // the overlay edges from source to destination: the forward
+            // half counted first so it can be written in order
+            int forwardHops = 0;
+            for (int v = meeting; v != source; v = this.from[forwardEdge[v]]) {
+                forwardHops++;
+            }
+            int[] overlay = new int[forwardHops + 16];
+            int hops = forwardHops;
+            for (int v = meeting; v != source; v = this.from[forwardEdge[v]]) {
+                overlay[--hops] = forwardEdge[v];
+            }
+            hops = forwardHops;
+            for (int v = meeting; v != destination;
+                 v = this.to[backwardEdge[v]]) {
+                if (hops == overlay.length) {
+                    overlay = Arrays.copyOf(overlay, hops * 2);
+                }
+                overlay[hops++] = backwardEdge[v];
+            }
+            int[] stack = new int[16];
+            for (int h = 0; h < hops; h++) {
+                int size = 0;
+                stack[size++] = overlay[h];
+                while (size > 0) {
+                    int top = stack[--size];
+                    if (this.original[top] >= 0) {
+                        path.add(graph.getEdge(this.original[top]));
+                        continue;
+                    }
+                    if (size + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[size++] = this.second[top];
+                    stack[size++] = this.first[top];
+                }
+            }
+            return path;
+        }
+    }
+}
@@ -9,7 +9,9 @@ import java.util.function.Function;
 /**
  * The Dijkstra class implements the IDijkstra<V, E> interface.
  * It uses the Dijkstra algorithm that calculates the best route base on
- * either the lowest price or lowest time of travel
+ * either the lowest price or lowest time of travel. Searches run in the
+ * calling thread's VertexWorkspace, so repeated queries only allocate the
+ * path and whatever the graph and edgeWeight allocate.
  * @param <V> represents a vertex in the graph
  * @param <E> represents an edge in the graph
  */
@@ -29,80 +31,89 @@ public class Dijkstra<V, E> implements IDijkstra<V, E> {
     @Override
     public List<E> getShortestPath(IGraph<V, E> graph, V source, V destination,
                                    Function<E, Double> edgeWeight) {
+        return this.getShortestPath(graph, source, destination, edgeWeight,
+                Double.MAX_VALUE);
+    }
 
-        HashMap<V, Double> cameFrom = new HashMap<V, Double>();
-        for (V v :  graph.getVertices()) {
-            cameFrom.put(v, Double.MAX_VALUE);
-        }
-        cameFrom.put(source, 0.0);
+    /**
+     * gets the path from start to end using the inputted graph and the
+     * corresponding weight, as long as its total weight is at most maxCost.
+     * The search stops as soon as the destination is settled and never
+     * labels a vertex above maxCost.
+     *
+     * @param graph       the graph including the vertices
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @param edgeWeight weight to prioritize
+     * @param maxCost the largest total weight the path may have
+     * @return a List<E> representing the path from start to end in graph,
+     * or empty if there is none within maxCost
+     */
+    public List<E> getShortestPath(IGraph<V, E> graph, V source, V destination,
+                                   Function<E, Double> edgeWeight,
+                                   double maxCost) {
 
-        Comparator<V> byVertex = (V1, V2) -> {
-            return Double.compare(cameFrom.get(V1), cameFrom.get(V2));
-        };
-        PriorityQueue<V> toCheckQueue = new PriorityQueue<V>(byVertex);
-        for (V v :  graph.getVertices()) {
-            toCheckQueue.add(v);
-        }
+        // vertices get dense ids the first time they are reached, so only
+        // reached vertices are ever in the queue
+        VertexWorkspace<V, E> workspace = VertexWorkspace.get();
+        IndexedHeap toCheckQueue = workspace.getHeap();
 
-        HashMap<V, V> routes = new HashMap<V, V>();
+        workspace.add(source, 0.0, null);
+        toCheckQueue.insert(0, 0.0);
 
         while (!toCheckQueue.isEmpty()) {
-            V checkingV = toCheckQueue.remove();
+            int checkingId = toCheckQueue.pop();
+            V checkingV = workspace.getVertex(checkingId);
+            if (checkingV.equals(destination)) {
+                break;
+            }
+            double checkingDist = workspace.getDist(checkingId);
             for (E edge : graph.getOutgoingEdges(checkingV)) {
                 V neighbor = graph.getEdgeTarget(edge);
-                if (cameFrom.get(checkingV) + edgeWeight.apply(edge)
-                        < cameFrom.get(neighbor)) {
-                    cameFrom.put(neighbor,
-                            cameFrom.get(checkingV) + edgeWeight.apply(edge));
-                    routes.put(neighbor, checkingV);
-                    toCheckQueue.remove(neighbor);
-                    toCheckQueue.add(neighbor);
+                int neighborId = workspace.getId(neighbor);
+                if (neighborId < 0) {
+                    neighborId = workspace.add(neighbor, Double.MAX_VALUE,
+                            null);
+                }
+                double candidate = checkingDist + edgeWeight.apply(edge);
+                if (candidate < workspace.getDist(neighborId)
+                        && candidate <= maxCost) {
+                    workspace.improve(neighborId, candidate, edge);
+                    toCheckQueue.insertOrDecrease(neighborId, candidate);
                 }
             }
         }
-        ArrayList<E> lst = new ArrayList<E>();
-        if (!routes.keySet().contains(destination)) {
+        int destinationId = workspace.getId(destination);
+        if (destinationId < 0 || workspace.getEdge(destinationId) == null) {
             return new ArrayList<E>();
         }
-        else {
-            return this.backtrack(graph, routes, source, destination, lst,
-                    edgeWeight);
-        }
-
+        return this.backtrack(graph, workspace, source, destination);
     }
 
     /**
      * A helper method which compiles the list representing the path in getPath
+     * by following the edge each vertex was last relaxed through
      * @param graph the graph including the vertices
-     * @param routes a hashmap containing city and the route that can be used
+     * @param workspace the search's workspace, holding each reached vertex
+     *                  and the edge that reached it
      * @param source the source vertex
      * @param destination the destination vertex
-     * @param currentRoute the current accumulated route
-     * @param edgeWeight the weight which the algorithm cares about
      * @return the final path from start to end
      */
-    private List<E> backtrack(IGraph<V, E> graph, HashMap<V, V> routes,
-                              V source, V destination,
-                              ArrayList<E> currentRoute,
-                              Function<E, Double> edgeWeight) {
-        Comparator<E> byEdge = (E1, E2) -> {
-            return Double.compare(edgeWeight.apply(E1), edgeWeight.apply(E2));
-        };
-        PriorityQueue<E> queue = new PriorityQueue<E>(byEdge);
-
-        V v = routes.get(destination);
-        if (source.equals(destination)) {
-            return currentRoute;
+    private List<E> backtrack(IGraph<V, E> graph,
+                              VertexWorkspace<V, E> workspace, V source,
+                              V destination) {
+        int hops = 0;
+        for (V v = destination; !v.equals(source);
+             v = graph.getEdgeSource(workspace.getEdge(workspace.getId(v)))) {
+            hops++;
         }
-        for (E e : graph.getOutgoingEdges(v)) {
-            if (graph.getEdgeTarget(e).equals(destination)) {
-                queue.add(e);
-            }
+        ArrayList<E> route = new ArrayList<E>(hops);
+        for (V v = destination; !v.equals(source);
+             v = graph.getEdgeSource(workspace.getEdge(workspace.getId(v)))) {
+            route.add(workspace.getEdge(workspace.getId(v)));
         }
-
-        currentRoute.add(0, queue.remove());
-
-        return this.backtrack(graph, routes, source, v, currentRoute,
-                edgeWeight);
+        Collections.reverse(route);
+        return route;
     }
 }
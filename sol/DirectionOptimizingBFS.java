@@ -0,0 +1,196 @@
+package sol;
+
+import src.ICompactBFS;
+import src.ICompactGraph;
+import src.Transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The DirectionOptimizingBFS class implements the ICompactBFS interface. It
+ * is a breadth first search that expands each level either top-down, where
+ * every frontier city scans its outgoing edges, or bottom-up, where every
+ * city not yet reached scans its incoming edges for one that leaves the
+ * frontier and stops at the first. Bottom-up wins once the frontier has more
+ * outgoing edges than the unreached cities have left to check divided by
+ * alpha, and the search goes back to top-down once the frontier shrinks below
+ * the city count divided by beta. Frontiers are walked in id order and
+ * incoming edges are listed in id order, so either way a city's parent is
+ * the lowest id edge into it from the previous level, and which direction
+ * each level used never changes the path. The search runs in the calling
+ * thread's SearchWorkspace.
+ */
+public class DirectionOptimizingBFS implements ICompactBFS {
+
+    public static final int DEFAULT_ALPHA = 14;
+    public static final int DEFAULT_BETA = 24;
+
+    private int alpha;
+    private int beta;
+
+    /**
+     * constructs a DirectionOptimizingBFS with the default switching
+     * thresholds
+     */
+    public DirectionOptimizingBFS() {
+        this(DEFAULT_ALPHA, DEFAULT_BETA);
+    }
+
+    /**
+     * constructs a DirectionOptimizingBFS
+     * @param alpha how many times the frontier's edges must be outnumbered by
+     *              the unreached cities' edges to keep going top-down
+     * @param beta  how many times the city count must exceed the frontier
+     *              size to go back to top-down
+     */
+    public DirectionOptimizingBFS(int alpha, int beta) {
+        if (alpha < 1 || beta < 1) {
+            throw new IllegalArgumentException("Thresholds must be positive.");
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    /**
+     * gets the path from start to end with the fewest edges
+     *
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @param end   the end vertex id
+     * @return a List<Transport> representing the path from start to end, or
+     * empty if there is none
+     */
+    @Override
+    public List<Transport> getPath(ICompactGraph graph, int start, int end) {
+        if (start == end) {
+            return new ArrayList<Transport>();
+        }
+        SearchWorkspace workspace = SearchWorkspace.get(
+                SearchWorkspace.FORWARD, graph.getVertexCount());
+        this.search(graph, start, end, workspace);
+        if (!workspace.isReached(end)) {
+            return new ArrayList<Transport>();
+        }
+        return CompactDijkstra.extractPath(graph, workspace.getParentEdges(),
+                start, end);
+    }
+
+    /**
+     * gets the fewest edges needed to get from start to every vertex
+     *
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @return the hop count of each vertex id, -1 where it cannot be reached
+     */
+    @Override
+    public int[] getHopDistances(ICompactGraph graph, int start) {
+        int n = graph.getVertexCount();
+        int[] hops = new int[n];
+        Arrays.fill(hops, -1);
+        SearchWorkspace workspace = SearchWorkspace.get(
+                SearchWorkspace.FORWARD, n);
+        int reached = this.search(graph, start, -1, workspace);
+        int[] queue = workspace.getQueue();
+        for (int i = 0; i < reached; i++) {
+            hops[queue[i]] = (int) workspace.getDist(queue[i]);
+        }
+        return hops;
+    }
+
+    /**
+     * runs the search level by level until end is reached or every city
+     * that can be reached has been. A city's distance in the workspace is the
+     * level it was reached at, and the workspace's queue holds the cities in
+     * the order they were reached, each level being one run of it.
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @param end the end vertex id, or -1 to reach every city
+     * @param workspace the workspace of the calling thread, fresh
+     * @return how many cities were put in the queue
+     */
+    private int search(ICompactGraph graph, int start, int end,
+                       SearchWorkspace workspace) {
+        int n = graph.getVertexCount();
+        int[] queue = workspace.getQueue();
+
+        workspace.reach(start, 0, -1);
+        queue[0] = start;
+        int head = 0;
+        int tail = 1;
+        int level = 0;
+        long frontierEdges = degree(graph, start);
+        long unreachedEdges = graph.getEdgeCount() - frontierEdges;
+        boolean bottomUp = false;
+
+        while (head < tail) {
+            int frontierSize = tail - head;
+            if (!bottomUp && frontierEdges * this.alpha > unreachedEdges) {
+                bottomUp = true;
+            } else if (bottomUp && (long) frontierSize * this.beta < n) {
+                bottomUp = false;
+            }
+            level++;
+            int levelEnd = tail;
+            long nextEdges = 0;
+            if (bottomUp) {
+                // cities found this level are at this level, not the one
+                // before, so the sweep never mistakes them for frontier
+                // cities
+                for (int v = 0; v < n; v++) {
+                    if (workspace.isReached(v)) {
+                        continue;
+                    }
+                    int last = graph.getInEdgeEnd(v);
+                    for (int s = graph.getInEdgeStart(v); s < last; s++) {
+                        int e = graph.getInEdge(s);
+                        int source = graph.getEdgeSourceId(e);
+                        if (workspace.getDist(source) == level - 1) {
+                            workspace.reach(v, level, e);
+                            queue[tail++] = v;
+                            nextEdges += degree(graph, v);
+                            break;
+                        }
+                    }
+                }
+            } else {
+                // walk the frontier in id order, as a bottom-up level would
+                Arrays.sort(queue, head, levelEnd);
+                for (int i = head; i < levelEnd; i++) {
+                    int v = queue[i];
+                    int last = graph.getEdgeEnd(v);
+                    for (int e = graph.getEdgeStart(v); e < last; e++) {
+                        int target = graph.getEdgeTargetId(e);
+                        if (workspace.isReached(target)) {
+                            continue;
+                        }
+                        workspace.reach(target, level, e);
+                        if (target == end) {
+                            return tail;
+                        }
+                        queue[tail++] = target;
+                        nextEdges += degree(graph, target);
+                    }
+                }
+            }
+            if (end >= 0 && workspace.isReached(end)) {
+                return tail;
+            }
+            head = levelEnd;
+            frontierEdges = nextEdges;
+            unreachedEdges -= nextEdges;
+        }
+        return tail;
+    }
+
+    /**
+     * gets the number of edges leaving a vertex
+     * @param graph the graph
+     * @param v the vertex id
+     * @return the out-degree of v
+     */
+    private static int degree(ICompactGraph graph, int v) {
+        return graph.getEdgeEnd(v) - graph.getEdgeStart(v);
+    }
+}
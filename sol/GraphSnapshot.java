@@ -0,0 +1,507 @@
+package sol;
+
+import src.ICompactGraph;
+import src.TransportType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntUnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * The GraphSnapshot class writes a compact graph to a binary file and reads
+ * it back, so a restart can skip parsing the csv files. The file is a 32 byte
+ * header followed by the graph's arrays, each stored whole and little endian
+ * so reading one is a single bulk copy out of a memory mapped region:
+ * <pre>
+ *     int magic, int version, int cities (n), int transports (m),
+ *     int name bytes, int 0, long CRC32 of everything after the header
+ *     double latitudes[n], double longitudes[n],
+ *     double minutes[m], double price[m],
+ *     int offsets[n + 1], int sources[m], int targets[m],
+ *     int inOffsets[n + 1], int inEdges[m], int nameOffsets[n + 1],
+ *     byte types[m], byte names[name bytes]
+ * </pre>
+ * The arrays are in the order CompactTravelGraph keeps them, types are
+ * TransportType ordinals and names are UTF-8, city v's name being the bytes
+ * [nameOffsets[v], nameOffsets[v + 1]). Every eight byte array comes before
+ * the four and one byte ones, so each array is aligned to its element size.
+ */
+public final class GraphSnapshot {
+
+    static final int MAGIC = 0x54475331;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private static final int TYPE_COUNT = TransportType.values().length;
+
+    // the most bytes mapped at once, a whole number of every element size
+    static final int WINDOW = 1 << 30;
+
+    private GraphSnapshot() {
+    }
+
+    /**
+     * writes a graph to a snapshot file. The snapshot is written to a
+     * temporary file in the same directory, which is then moved over file
+     * in one atomic step, so a reader or a crash never sees a half written
+     * snapshot and a graph mapped from the old file keeps its own copy.
+     * @param graph the graph
+     * @param file the filename to write to
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(ICompactGraph graph, String file)
+            throws IOException {
+        int n = graph.getVertexCount();
+        byte[][] names = new byte[n][];
+        long nameBytes = 0;
+        for (int v = 0; v < n; v++) {
+            names[v] = graph.getVertex(v).toString()
+                    .getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[v].length;
+        }
+        if (nameBytes > Integer.MAX_VALUE) {
+            throw new IOException("City names are too long for a snapshot.");
+        }
+        long totalNameBytes = nameBytes;
+        replace(file, temp -> writeTo(graph, names, totalNameBytes, temp));
+    }
+
+    /**
+     * writes a file by writing a temporary file in the same directory and
+     * moving it over file in one atomic step, so a reader or a crash never
+     * sees it half written. The temporary file is deleted if writing fails.
+     * @param file the filename to write to
+     * @param contents writes the contents to the temporary file, which it
+     *                 must force to disk before returning
+     * @throws IOException if the file cannot be written
+     */
+    static void replace(String file, Contents contents) throws IOException {
+        Path target = Paths.get(file).toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(),
+                target.getFileName() + ".", ".tmp");
+        boolean moved = false;
+        try {
+            contents.writeTo(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * writes the header and arrays of a snapshot to a file
+     * @param graph the graph
+     * @param names the UTF-8 name of each city
+     * @param nameBytes the total length of the names
+     * @param file the file to write to, which already exists
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeTo(ICompactGraph graph, byte[][] names,
+                                long nameBytes, Path file)
+            throws IOException {
+        int n = graph.getVertexCount();
+        int m = graph.getEdgeCount();
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            for (int v = 0; v < n; v++) {
+                out.putDouble(graph.getLatitude(v));
+            }
+            for (int v = 0; v < n; v++) {
+                out.putDouble(graph.getLongitude(v));
+            }
+            for (int e = 0; e < m; e++) {
+                out.putDouble(graph.getMinutes(e));
+            }
+            for (int e = 0; e < m; e++) {
+                out.putDouble(graph.getPrice(e));
+            }
+            for (int v = 0; v < n; v++) {
+                out.putInt(graph.getEdgeStart(v));
+            }
+            out.putInt(m);
+            for (int e = 0; e < m; e++) {
+                out.putInt(graph.getEdgeSourceId(e));
+            }
+            for (int e = 0; e < m; e++) {
+                out.putInt(graph.getEdgeTargetId(e));
+            }
+            for (int v = 0; v < n; v++) {
+                out.putInt(graph.getInEdgeStart(v));
+            }
+            out.putInt(m);
+            for (int slot = 0; slot < m; slot++) {
+                out.putInt(graph.getInEdge(slot));
+            }
+            int nameOffset = 0;
+            for (int v = 0; v < n; v++) {
+                out.putInt(nameOffset);
+                nameOffset += names[v].length;
+            }
+            out.putInt(nameOffset);
+            for (int e = 0; e < m; e++) {
+                out.putByte((byte) graph.getType(e).ordinal());
+            }
+            for (byte[] name : names) {
+                out.putBytes(name);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m)
+                    .putInt((int) nameBytes).putInt(0)
+                    .putLong(out.crc.getValue()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            // on disk before the move makes it the snapshot
+            channel.force(true);
+        }
+    }
+
+    /**
+     * reads a snapshot file into a CompactTravelGraph
+     * @param file the filename of the snapshot
+     * @return the graph
+     * @throws IOException if the file cannot be read, is not a snapshot, has
+     *                     a version this cannot read, or is corrupt
+     */
+    public static CompactTravelGraph read(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file),
+                StandardOpenOption.READ)) {
+            Header header = readHeader(channel, file);
+            int n = header.cities;
+            int m = header.transports;
+            Input in = new Input(channel);
+            double[] latitudes = in.getDoubles(n);
+            double[] longitudes = in.getDoubles(n);
+            double[] minutes = in.getDoubles(m);
+            double[] price = in.getDoubles(m);
+            int[] offsets = in.getInts(n + 1);
+            int[] sources = in.getInts(m);
+            int[] targets = in.getInts(m);
+            int[] inOffsets = in.getInts(n + 1);
+            int[] inEdges = in.getInts(m);
+            int[] nameOffsets = in.getInts(n + 1);
+            byte[] types = in.getBytes(m);
+            byte[] nameBytes = in.getBytes(header.nameBytes);
+            if (in.crc.getValue() != header.checksum) {
+                throw new IOException("Graph snapshot " + file
+                        + " is corrupt.");
+            }
+            validate(file, n, m, header.nameBytes, v -> offsets[v],
+                    e -> sources[e], e -> targets[e], v -> inOffsets[v],
+                    slot -> inEdges[slot], v -> nameOffsets[v],
+                    e -> types[e]);
+            String[] names = new String[n];
+            for (int v = 0; v < n; v++) {
+                names[v] = new String(nameBytes, nameOffsets[v],
+                        nameOffsets[v + 1] - nameOffsets[v],
+                        StandardCharsets.UTF_8);
+            }
+            return new CompactTravelGraph(names, latitudes, longitudes,
+                    offsets, sources, targets, minutes, price, types,
+                    inOffsets, inEdges);
+        }
+    }
+
+    /**
+     * reads and checks the header of a snapshot
+     * @param channel the snapshot file
+     * @param file the filename of the snapshot, for error messages
+     * @return the header
+     * @throws IOException if the file is not a snapshot this can read
+     */
+    static Header readHeader(FileChannel channel, String file)
+            throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, bytes.position()) < 0) {
+                throw new IOException("Not a graph snapshot: " + file);
+            }
+        }
+        bytes.flip();
+        if (bytes.getInt() != MAGIC) {
+            throw new IOException("Not a graph snapshot: " + file);
+        }
+        int version = bytes.getInt();
+        if (version != VERSION) {
+            throw new IOException("Graph snapshot " + file + " has version "
+                    + version + ", expected " + VERSION + ".");
+        }
+        int cities = bytes.getInt();
+        int transports = bytes.getInt();
+        int nameBytes = bytes.getInt();
+        bytes.getInt();
+        Header header = new Header(cities, transports, nameBytes,
+                bytes.getLong());
+        if (header.cities < 0 || header.transports < 0
+                || header.nameBytes < 0
+                || channel.size() != header.end()) {
+            throw new IOException("Graph snapshot " + file
+                    + " is corrupt.");
+        }
+        return header;
+    }
+
+    /**
+     * checks that the arrays of a snapshot describe a graph, so a file that
+     * was written wrongly fails here rather than in a later search. Both
+     * read and MappedTravelGraph call this, each reading the arrays its own
+     * way, so the two readers always accept the same files.
+     * @throws IOException if an offset or id is out of range
+     */
+    static void validate(String file, int n, int m, int nameBytes,
+                         IntUnaryOperator offsets, IntUnaryOperator sources,
+                         IntUnaryOperator targets, IntUnaryOperator inOffsets,
+                         IntUnaryOperator inEdges,
+                         IntUnaryOperator nameOffsets, IntUnaryOperator types)
+            throws IOException {
+        boolean valid = offsets.applyAsInt(0) == 0
+                && offsets.applyAsInt(n) == m
+                && inOffsets.applyAsInt(0) == 0
+                && inOffsets.applyAsInt(n) == m
+                && nameOffsets.applyAsInt(0) == 0
+                && nameOffsets.applyAsInt(n) == nameBytes;
+        for (int v = 0; v < n && valid; v++) {
+            valid = offsets.applyAsInt(v) <= offsets.applyAsInt(v + 1)
+                    && inOffsets.applyAsInt(v) <= inOffsets.applyAsInt(v + 1)
+                    && nameOffsets.applyAsInt(v)
+                    <= nameOffsets.applyAsInt(v + 1);
+        }
+        for (int e = 0; e < m && valid; e++) {
+            int source = sources.applyAsInt(e);
+            int target = targets.applyAsInt(e);
+            int in = inEdges.applyAsInt(e);
+            int type = types.applyAsInt(e);
+            valid = source >= 0 && source < n && target >= 0 && target < n
+                    && in >= 0 && in < m && type >= 0 && type < TYPE_COUNT;
+        }
+        if (!valid) {
+            throw new IOException("Graph snapshot " + file
+                    + " is corrupt.");
+        }
+    }
+
+    /**
+     * Writes the contents of a file that replace moves into place.
+     */
+    interface Contents {
+        void writeTo(Path temp) throws IOException;
+    }
+
+    /**
+     * The counts a snapshot's header holds, and where its sections are.
+     */
+    static final class Header {
+
+        final int cities;
+        final int transports;
+        final int nameBytes;
+        final long checksum;
+
+        Header(int cities, int transports, int nameBytes, long checksum) {
+            this.cities = cities;
+            this.transports = transports;
+            this.nameBytes = nameBytes;
+            this.checksum = checksum;
+        }
+
+        long latitudes() {
+            return HEADER_BYTES;
+        }
+
+        long longitudes() {
+            return this.latitudes() + 8L * this.cities;
+        }
+
+        long minutes() {
+            return this.longitudes() + 8L * this.cities;
+        }
+
+        long price() {
+            return this.minutes() + 8L * this.transports;
+        }
+
+        long offsets() {
+            return this.price() + 8L * this.transports;
+        }
+
+        long sources() {
+            return this.offsets() + 4L * (this.cities + 1);
+        }
+
+        long targets() {
+            return this.sources() + 4L * this.transports;
+        }
+
+        long inOffsets() {
+            return this.targets() + 4L * this.transports;
+        }
+
+        long inEdges() {
+            return this.inOffsets() + 4L * (this.cities + 1);
+        }
+
+        long nameOffsets() {
+            return this.inEdges() + 4L * this.transports;
+        }
+
+        long types() {
+            return this.nameOffsets() + 4L * (this.cities + 1);
+        }
+
+        long names() {
+            return this.types() + this.transports;
+        }
+
+        long end() {
+            return this.names() + this.nameBytes;
+        }
+    }
+
+    /**
+     * Writes little endian values through a buffer, keeping a CRC32 of
+     * everything written.
+     */
+    private static final class Output {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final CRC32 crc;
+        private long position;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(1 << 16)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            this.crc = new CRC32();
+            this.position = HEADER_BYTES;
+        }
+
+        void putDouble(double value) throws IOException {
+            this.ensure(8);
+            this.buffer.putDouble(value);
+        }
+
+        void putInt(int value) throws IOException {
+            this.ensure(4);
+            this.buffer.putInt(value);
+        }
+
+        void putByte(byte value) throws IOException {
+            this.ensure(1);
+            this.buffer.put(value);
+        }
+
+        void putBytes(byte[] values) throws IOException {
+            int at = 0;
+            while (at < values.length) {
+                this.ensure(1);
+                int length = Math.min(values.length - at,
+                        this.buffer.remaining());
+                this.buffer.put(values, at, length);
+                at += length;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (this.buffer.remaining() < bytes) {
+                this.flush();
+            }
+        }
+
+        void flush() throws IOException {
+            this.buffer.flip();
+            this.crc.update(this.buffer.duplicate());
+            while (this.buffer.hasRemaining()) {
+                this.position += this.channel.write(this.buffer,
+                        this.position);
+            }
+            this.buffer.clear();
+        }
+    }
+
+    /**
+     * Reads little endian arrays out of memory mapped windows of a file, in
+     * order, keeping a CRC32 of everything read.
+     */
+    private static final class Input {
+
+        private final FileChannel channel;
+        private final CRC32 crc;
+        private long position;
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+            this.crc = new CRC32();
+            this.position = HEADER_BYTES;
+        }
+
+        double[] getDoubles(int count) throws IOException {
+            double[] values = new double[count];
+            int at = 0;
+            while (at < count) {
+                ByteBuffer window = this.map(8L * (count - at));
+                int length = window.remaining() / 8;
+                window.asDoubleBuffer().get(values, at, length);
+                at += length;
+            }
+            return values;
+        }
+
+        int[] getInts(int count) throws IOException {
+            int[] values = new int[count];
+            int at = 0;
+            while (at < count) {
+                ByteBuffer window = this.map(4L * (count - at));
+                int length = window.remaining() / 4;
+                window.asIntBuffer().get(values, at, length);
+                at += length;
+            }
+            return values;
+        }
+
+        byte[] getBytes(int count) throws IOException {
+            byte[] values = new byte[count];
+            int at = 0;
+            while (at < count) {
+                ByteBuffer window = this.map(count - at);
+                int length = window.remaining();
+                window.get(values, at, length);
+                at += length;
+            }
+            return values;
+        }
+
+        /**
+         * maps the next window of the file and adds it to the CRC
+         * @param wanted how many bytes are still to be read
+         * @return the window, little endian
+         */
+        private ByteBuffer map(long wanted) throws IOException {
+            int length = (int) Math.min(wanted, WINDOW);
+            ByteBuffer window = this.channel.map(FileChannel.MapMode.READ_ONLY,
+                    this.position, length).order(ByteOrder.LITTLE_ENDIAN);
+            this.crc.update(window.duplicate());
+            this.position += length;
+            return window;
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package sol;
+
+import src.CSVRowReader;
+import src.ICompactGraph;
+import src.TransportType;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The GraphUpdate class is a batch of changes to a graph: cities added or
+ * removed, and transports added, removed or repriced. Transports are named by
+ * their origin, destination and type, and a removal or repricing applies to
+ * every transport with those. applyTo never changes the graph it is given but
+ * returns a new one, so queries already running on the old graph finish on
+ * a consistent view while the new one is published. When a batch only
+ * reprices a CompactTravelGraph, the new graph shares every array of the old
+ * one except the weights, which are copied so the old graph stays as it
+ * was; otherwise it is laid out afresh. The result is always a
+ * CompactTravelGraph on the heap, so updating a MappedTravelGraph, whose
+ * file is read only, copies it onto the heap even when the batch only
+ * reprices; saving and mapping a snapshot of the result moves it back off
+ * the heap. Transports are found through the CSR range of their origin, so
+ * a change costs as much as its cities' degrees rather than the whole graph.
+ * Changes apply in the order they were added, and a batch with a change
+ * that cannot apply changes nothing.
+ */
+public class GraphUpdate {
+
+    private static final TransportType[] TYPES = TransportType.values();
+
+    private List<Change> changes;
+
+    /**
+     * constructs an empty GraphUpdate
+     */
+    public GraphUpdate() {
+        this.changes = new ArrayList<Change>();
+    }
+
+    /**
+     * reads a delta csv into a GraphUpdate. Every row has an action column
+     * and the columns its action needs:
+     * <ul>
+     *     <li>addcity: name, and optionally latitude and longitude</li>
+     *     <li>removecity: name</li>
+     *     <li>add and reprice: origin, destination, type, price and
+     *     duration</li>
+     *     <li>remove: origin, destination and type</li>
+     * </ul>
+     * @param deltaFile the filename of the delta csv
+     * @return the changes in the file, in order
+     * @throws IOException if the file cannot be read or has no action column
+     * @throws IllegalArgumentException if a row has an unknown action or type
+     * @throws NumberFormatException if a price or duration is not a number
+     */
+    public static GraphUpdate read(String deltaFile) throws IOException {
+        GraphUpdate update = new GraphUpdate();
+        try (CSVRowReader rows = new CSVRowReader(
+                new FileReader(deltaFile, StandardCharsets.UTF_8))) {
+            int action = rows.requireColumn("action");
+            int name = rows.getColumn("name");
+            int latitude = rows.getColumn("latitude");
+            int longitude = rows.getColumn("longitude");
+            int origin = rows.getColumn("origin");
+            int destination = rows.getColumn("destination");
+            int type = rows.getColumn("type");
+            int price = rows.getColumn("price");
+            int duration = rows.getColumn("duration");
+            while (rows.next()) {
+                switch (rows.getString(action).trim().toLowerCase()) {
+                    case "addcity" -> update.addCity(required(rows, name),
+                            rows.getOptionalDouble(latitude),
+                            rows.getOptionalDouble(longitude));
+                    case "removecity" -> update.removeCity(
+                            required(rows, name));
+                    case "add" -> update.addTransport(required(rows, origin),
+                            required(rows, destination),
+                            TransportType.parse(required(rows, type)),
+                            rows.getDouble(price), rows.getDouble(duration));
+                    case "remove" -> update.removeTransport(
+                            required(rows, origin),
+                            required(rows, destination),
+                            TransportType.parse(required(rows, type)));
+                    case "reprice" -> update.reprice(required(rows, origin),
+                            required(rows, destination),
+                            TransportType.parse(required(rows, type)),
+                            rows.getDouble(price), rows.getDouble(duration));
+                    default -> throw new IllegalArgumentException("Unknown "
+                            + "action: " + rows.getString(action));
+                }
+            }
+        }
+        return update;
+    }
+
+    /**
+     * adds a city, or moves it if the graph already has a city with that name
+     * @param name the name of the city
+     * @param latitude the latitude, or NaN if unknown
+     * @param longitude the longitude, or NaN if unknown
+     * @return this GraphUpdate
+     */
+    public GraphUpdate addCity(String name, double latitude,
+                               double longitude) {
+        this.changes.add(new Change(Action.ADD_CITY, name, null, null,
+                latitude, longitude));
+        return this;
+    }
+
+    /**
+     * removes a city and every transport into or out of it
+     * @param name the name of the city
+     * @return this GraphUpdate
+     */
+    public GraphUpdate removeCity(String name) {
+        this.changes.add(new Change(Action.REMOVE_CITY, name, null, null, 0,
+                0));
+        return this;
+    }
+
+    /**
+     * adds a transport, after the existing transports out of its origin
+     * @param origin the name of the source city
+     * @param destination the name of the target city
+     * @param type the type of the transport
+     * @param price the price of the transport
+     * @param minutes the duration of the transport
+     * @return this GraphUpdate
+     */
+    public GraphUpdate addTransport(String origin, String destination,
+                                    TransportType type, double price,
+                                    double minutes) {
+        this.changes.add(new Change(Action.ADD, origin, destination,
+                Objects.requireNonNull(type), price, minutes));
+        return this;
+    }
+
+    /**
+     * removes the transports of a type from one city to another
+     * @param origin the name of the source city
+     * @param destination the name of the target city
+     * @param type the type of the transports
+     * @return this GraphUpdate
+     */
+    public GraphUpdate removeTransport(String origin, String destination,
+                                       TransportType type) {
+        this.changes.add(new Change(Action.REMOVE, origin, destination,
+                Objects.requireNonNull(type), 0, 0));
+        return this;
+    }
+
+    /**
+     * sets the price and duration of the transports of a type from one city
+     * to another
+     * @param origin the name of the source city
+     * @param destination the name of the target city
+     * @param type the type of the transports
+     * @param price the new price
+     * @param minutes the new duration
+     * @return this GraphUpdate
+     */
+    public GraphUpdate reprice(String origin, String destination,
+                               TransportType type, double price,
+                               double minutes) {
+        this.changes.add(new Change(Action.REPRICE, origin, destination,
+                Objects.requireNonNull(type), price, minutes));
+        return this;
+    }
+
+    /**
+     * gets how many changes the batch holds
+     * @return the number of changes
+     */
+    public int size() {
+        return this.changes.size();
+    }
+
+    /**
+     * makes the graph that results from applying every change to a graph,
+     * which is left as it was
+     * @param graph the graph to change
+     * @return the changed graph, on the heap even if graph is a
+     * MappedTravelGraph
+     * @throws IllegalArgumentException if a change names a city that is not
+     *                                  in the graph, or removes or reprices a
+     *                                  transport that is not
+     */
+    public CompactTravelGraph applyTo(ICompactGraph graph) {
+        boolean onlyReprices = true;
+        for (Change change : this.changes) {
+            onlyReprices &= change.action == Action.REPRICE;
+        }
+        // a mapped graph has no heap arrays to share, so it is copied
+        // through Working like any other batch
+        if (onlyReprices && graph instanceof CompactTravelGraph) {
+            return this.reprice((CompactTravelGraph) graph);
+        }
+        return new Working(graph).apply(this.changes);
+    }
+
+    /**
+     * applies a batch of repricings, copying only the weight arrays
+     * @param graph the graph to change
+     * @return a graph sharing every other array with graph
+     */
+    private CompactTravelGraph reprice(CompactTravelGraph graph) {
+        int m = graph.getEdgeCount();
+        double[] minutes = new double[m];
+        double[] price = new double[m];
+        for (int e = 0; e < m; e++) {
+            minutes[e] = graph.getMinutes(e);
+            price[e] = graph.getPrice(e);
+        }
+        for (Change change : this.changes) {
+            int origin = graph.getVertexId(change.origin);
+            int destination = graph.getVertexId(change.destination);
+            boolean found = false;
+            for (int e = graph.getEdgeStart(origin);
+                    e < graph.getEdgeEnd(origin); e++) {
+                if (graph.getEdgeTargetId(e) == destination
+                        && graph.getType(e) == change.type) {
+                    minutes[e] = change.second;
+                    price[e] = change.first;
+                    found = true;
+                }
+            }
+            if (!found) {
+                throw new IllegalArgumentException("Transport is not in the "
+                        + "graph.");
+            }
+        }
+        return graph.withWeights(minutes, price);
+    }
+
+    /**
+     * gets a field that a row's action needs
+     * @param rows the reader, at the row
+     * @param column the index of the column, or -1 if the file lacks it
+     * @return the field
+     * @throws IllegalArgumentException if the field is missing or blank
+     */
+    private static String required(CSVRowReader rows, int column) {
+        if (rows.isBlank(column)) {
+            throw new IllegalArgumentException("Missing field for action.");
+        }
+        return rows.getString(column);
+    }
+
+    /**
+     * The kinds of change.
+     */
+    private enum Action {
+        ADD_CITY,
+        REMOVE_CITY,
+        ADD,
+        REMOVE,
+        REPRICE
+    }
+
+    /**
+     * One change. For cities origin is the name and first and second are the
+     * latitude and longitude; for transports they are the price and minutes.
+     */
+    private static final class Change {
+
+        private final Action action;
+        private final String origin;
+        private final String destination;
+        private final TransportType type;
+        private final double first;
+        private final double second;
+
+        Change(Action action, String origin, String destination,
+               TransportType type, double first, double second) {
+            this.action = action;
+            this.origin = Objects.requireNonNull(origin);
+            this.destination = destination;
+            this.type = type;
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    /**
+     * A mutable copy of a graph that changes are applied to before it is
+     * laid out as a new CompactTravelGraph. Cities keep their ids and removed
+     * ones and transports are only marked, so nothing shifts while changes
+     * apply. The graph's own transports keep their ids too, so the ones
+     * into or out of a city are found through the graph's CSR ranges, and
+     * added ones are chained per origin and per destination.
+     */
+    private static final class Working {
+
+        private ICompactGraph graph;
+        private int baseCities;
+        private List<String> names;
+        private double[] latitudes;
+        private double[] longitudes;
+        private boolean[] removedCity;
+        private HashMap<String, Integer> ids;
+
+        private int[] sources;
+        private int[] targets;
+        private byte[] types;
+        private double[] minutes;
+        private double[] price;
+        private boolean[] removed;
+        private int edgeCount;
+        // the last added transport out of and into each city, -1 for none,
+        // and the one added before it with the same origin or destination
+        private int[] lastAddedOut;
+        private int[] lastAddedIn;
+        private int[] prevAddedOut;
+        private int[] prevAddedIn;
+
+        Working(ICompactGraph graph) {
+            int n = graph.getVertexCount();
+            int m = graph.getEdgeCount();
+            this.graph = graph;
+            this.baseCities = n;
+            this.names = new ArrayList<String>(n);
+            this.latitudes = new double[Math.max(n, 1)];
+            this.longitudes = new double[Math.max(n, 1)];
+            this.removedCity = new boolean[Math.max(n, 1)];
+            this.ids = new HashMap<String, Integer>(n * 2);
+            for (int v = 0; v < n; v++) {
+                String name = graph.getVertex(v).toString();
+                this.names.add(name);
+                this.latitudes[v] = graph.getLatitude(v);
+                this.longitudes[v] = graph.getLongitude(v);
+                this.ids.put(name, v);
+            }
+            int capacity = Math.max(m, 1);
+            this.sources = new int[capacity];
+            this.targets = new int[capacity];
+            this.types = new byte[capacity];
+            this.minutes = new double[capacity];
+            this.price = new double[capacity];
+            this.removed = new boolean[capacity];
+            for (int e = 0; e < m; e++) {
+                this.sources[e] = graph.getEdgeSourceId(e);
+                this.targets[e] = graph.getEdgeTargetId(e);
+                this.types[e] = (byte) graph.getType(e).ordinal();
+                this.minutes[e] = graph.getMinutes(e);
+                this.price[e] = graph.getPrice(e);
+            }
+            this.edgeCount = m;
+            this.lastAddedOut = new int[Math.max(n, 1)];
+            this.lastAddedIn = new int[Math.max(n, 1)];
+            Arrays.fill(this.lastAddedOut, -1);
+            Arrays.fill(this.lastAddedIn, -1);
+            this.prevAddedOut = new int[capacity];
+            this.prevAddedIn = new int[capacity];
+        }
+
+        /**
+         * applies changes in order and lays out the result
+         * @param changes the changes
+         * @return the changed graph
+         */
+        CompactTravelGraph apply(List<Change> changes) {
+            for (Change change : changes) {
+                switch (change.action) {
+                    case ADD_CITY -> this.addCity(change.origin, change.first,
+                            change.second);
+                    case REMOVE_CITY -> this.removeCity(change.origin);
+                    case ADD -> this.addEdge(this.cityId(change.origin),
+                            this.cityId(change.destination), change.type,
+                            change.first, change.second);
+                    case REMOVE, REPRICE -> this.applyToMatching(change);
+                }
+            }
+            CompactGraphBuilder builder = new CompactGraphBuilder();
+            int[] newIds = new int[this.names.size()];
+            for (int v = 0; v < this.names.size(); v++) {
+                newIds[v] = this.removedCity[v] ? -1 : builder.addCity(
+                        this.names.get(v), this.latitudes[v],
+                        this.longitudes[v]);
+            }
+            for (int e = 0; e < this.edgeCount; e++) {
+                if (!this.removed[e]) {
+                    builder.addEdge(newIds[this.sources[e]],
+                            newIds[this.targets[e]], TYPES[this.types[e]],
+                            this.price[e], this.minutes[e]);
+                }
+            }
+            return builder.build();
+        }
+
+        private int cityId(String name) {
+            Integer id = this.ids.get(name);
+            if (id == null || this.removedCity[id]) {
+                throw new IllegalArgumentException("City is not in the "
+                        + "graph.");
+            }
+            return id;
+        }
+
+        private void addCity(String name, double latitude, double longitude) {
+            Integer id = this.ids.get(name);
+            if (id == null) {
+                id = this.names.size();
+                this.names.add(name);
+                if (id == this.latitudes.length) {
+                    this.latitudes = Arrays.copyOf(this.latitudes, id * 2);
+                    this.longitudes = Arrays.copyOf(this.longitudes, id * 2);
+                    this.removedCity = Arrays.copyOf(this.removedCity,
+                            id * 2);
+                    this.lastAddedOut = grow(this.lastAddedOut, id * 2);
+                    this.lastAddedIn = grow(this.lastAddedIn, id * 2);
+                }
+                this.ids.put(name, id);
+            }
+            this.removedCity[id] = false;
+            this.latitudes[id] = latitude;
+            this.longitudes[id] = longitude;
+        }
+
+        /**
+         * marks a city and every transport into or out of it removed,
+         * visiting only those transports
+         */
+        private void removeCity(String name) {
+            int id = this.cityId(name);
+            this.removedCity[id] = true;
+            if (id < this.baseCities) {
+                for (int e = this.graph.getEdgeStart(id);
+                        e < this.graph.getEdgeEnd(id); e++) {
+                    this.removed[e] = true;
+                }
+                for (int slot = this.graph.getInEdgeStart(id);
+                        slot < this.graph.getInEdgeEnd(id); slot++) {
+                    this.removed[this.graph.getInEdge(slot)] = true;
+                }
+            }
+            for (int e = this.lastAddedOut[id]; e >= 0;
+                    e = this.prevAddedOut[e]) {
+                this.removed[e] = true;
+            }
+            for (int e = this.lastAddedIn[id]; e >= 0;
+                    e = this.prevAddedIn[e]) {
+                this.removed[e] = true;
+            }
+        }
+
+        private void addEdge(int origin, int destination, TransportType type,
+                             double price, double minutes) {
+            if (this.edgeCount == this.sources.length) {
+                int capacity = this.edgeCount * 2;
+                this.sources = Arrays.copyOf(this.sources, capacity);
+                this.targets = Arrays.copyOf(this.targets, capacity);
+                this.types = Arrays.copyOf(this.types, capacity);
+                this.minutes = Arrays.copyOf(this.minutes, capacity);
+                this.price = Arrays.copyOf(this.price, capacity);
+                this.removed = Arrays.copyOf(this.removed, capacity);
+                this.prevAddedOut = Arrays.copyOf(this.prevAddedOut,
+                        capacity);
+                this.prevAddedIn = Arrays.copyOf(this.prevAddedIn, capacity);
+            }
+            int e = this.edgeCount++;
+            this.sources[e] = origin;
+            this.targets[e] = destination;
+            this.types[e] = (byte) type.ordinal();
+            this.price[e] = price;
+            this.minutes[e] = minutes;
+            this.prevAddedOut[e] = this.lastAddedOut[origin];
+            this.lastAddedOut[origin] = e;
+            this.prevAddedIn[e] = this.lastAddedIn[destination];
+            this.lastAddedIn[destination] = e;
+        }
+
+        /**
+         * removes or reprices the transports a change names, looking only at
+         * the transports out of its origin
+         * @param change the removal or repricing
+         * @throws IllegalArgumentException if no transport that is not
+         *                                  removed matches
+         */
+        private void applyToMatching(Change change) {
+            int origin = this.cityId(change.origin);
+            int destination = this.cityId(change.destination);
+            boolean found = false;
+            if (origin < this.baseCities) {
+                for (int e = this.graph.getEdgeStart(origin);
+                        e < this.graph.getEdgeEnd(origin); e++) {
+                    found |= this.applyIfMatching(change, e, destination);
+                }
+            }
+            for (int e = this.lastAddedOut[origin]; e >= 0;
+                    e = this.prevAddedOut[e]) {
+                found |= this.applyIfMatching(change, e, destination);
+            }
+            if (!found) {
+                throw new IllegalArgumentException("Transport is not in the "
+                        + "graph.");
+            }
+        }
+
+        /**
+         * removes or reprices a transport out of the change's origin if it
+         * goes to the destination with the change's type
+         * @return true if the transport matched
+         */
+        private boolean applyIfMatching(Change change, int e,
+                                        int destination) {
+            if (this.removed[e] || this.targets[e] != destination
+                    || this.types[e] != change.type.ordinal()) {
+                return false;
+            }
+            if (change.action == Action.REMOVE) {
+                this.removed[e] = true;
+            } else {
+                this.price[e] = change.first;
+                this.minutes[e] = change.second;
+            }
+            return true;
+        }
+
+        /**
+         * grows an array of chain heads, filling the new part with -1
+         */
+        private static int[] grow(int[] heads, int capacity) {
+            int length = heads.length;
+            int[] grown = Arrays.copyOf(heads, capacity);
+            Arrays.fill(grown, length, capacity, -1);
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package sol;
+
+/**
+ * An enum representing the breadth first search engines TravelController can
+ * answer mostDirectRoute with
+ */
+public enum HopStrategy {
+    BFS,
+    BIDIRECTIONAL,
+    DIRECTION_OPTIMIZING,
+    PARALLEL
+}
@@ -0,0 +1,233 @@
+package sol;
+
+import java.util.Arrays;
+
+/**
+ * The IndexedHeap class is a 4-ary min heap of dense int ids ordered by
+ * primitive double keys. It remembers where every id sits in the heap, so
+ * decreasing the key of an id already in the heap is O(log n) instead of the
+ * linear remove-and-add a PriorityQueue needs. Ids are only inserted when
+ * they are first reached, and the heap grows if an id is past its capacity.
+ */
+public class IndexedHeap {
+
+    private static final int ARITY = 4;
+
+    private int[] heap;
+    private int[] position;
+    private double[] keys;
+    private int size;
+
+    /**
+     * constructs an empty IndexedHeap
+     * @param capacity the number of ids expected, ids range over
+     *                 [0, capacity) before the heap has to grow
+     */
+    public IndexedHeap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(this.position, -1);
+        this.size = 0;
+    }
+
+    /**
+     * checks if the heap is empty
+     * @return true if no ids are in the heap
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * gets the number of ids in the heap
+     * @return the size of the heap
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * checks if an id is currently in the heap
+     * @param id the id
+     * @return true if the id is in the heap
+     */
+    public boolean contains(int id) {
+        return id < this.position.length && this.position[id] >= 0;
+    }
+
+    /**
+     * gets the key of an id in the heap
+     * @param id the id
+     * @return the key the id is ordered by
+     */
+    public double getKey(int id) {
+        return this.keys[id];
+    }
+
+    /**
+     * adds an id that is not in the heap
+     * @param id the id
+     * @param key the key to order it by
+     * @throws IllegalArgumentException if the id is already in the heap
+     */
+    public void insert(int id, double key) {
+        if (this.contains(id)) {
+            throw new IllegalArgumentException("Id is already in the heap.");
+        }
+        this.ensureCapacity(id);
+        this.keys[id] = key;
+        this.heap[this.size] = id;
+        this.position[id] = this.size;
+        this.size++;
+        this.siftUp(this.size - 1);
+    }
+
+    /**
+     * lowers the key of an id that is in the heap
+     * @param id the id
+     * @param key the new key, no larger than the current one
+     * @throws IllegalArgumentException if the id is not in the heap or the
+     *                                  key is larger than the current key
+     */
+    public void decreaseKey(int id, double key) {
+        if (!this.contains(id)) {
+            throw new IllegalArgumentException("Id is not in the heap.");
+        }
+        if (key > this.keys[id]) {
+            throw new IllegalArgumentException("Key is larger than current.");
+        }
+        this.keys[id] = key;
+        this.siftUp(this.position[id]);
+    }
+
+    /**
+     * inserts an id, or lowers its key if it is already in the heap
+     * @param id the id
+     * @param key the key to order it by
+     * @return true if the heap changed
+     */
+    public boolean insertOrDecrease(int id, double key) {
+        if (!this.contains(id)) {
+            this.insert(id, key);
+            return true;
+        }
+        if (key < this.keys[id]) {
+            this.decreaseKey(id, key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * gets the id with the smallest key without removing it
+     * @return the id with the smallest key
+     * @throws IllegalStateException if the heap is empty
+     */
+    public int peek() {
+        if (this.size == 0) {
+            throw new IllegalStateException("Heap is empty.");
+        }
+        return this.heap[0];
+    }
+
+    /**
+     * removes the id with the smallest key
+     * @return the id with the smallest key
+     * @throws IllegalStateException if the heap is empty
+     */
+    public int pop() {
+        int top = this.peek();
+        this.size--;
+        this.position[top] = -1;
+        if (this.size > 0) {
+            int last = this.heap[this.size];
+            this.heap[0] = last;
+            this.position[last] = 0;
+            this.siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * removes every id from the heap, in time proportional to the ids left
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.position[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+    /**
+     * grows the arrays so that the inputted id fits
+     * @param id the id
+     */
+    private void ensureCapacity(int id) {
+        if (id < this.position.length) {
+            return;
+        }
+        int capacity = Math.max(id + 1, this.position.length * 2);
+        int old = this.position.length;
+        this.heap = Arrays.copyOf(this.heap, capacity);
+        this.position = Arrays.copyOf(this.position, capacity);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        Arrays.fill(this.position, old, capacity, -1);
+    }
+
+    /**
+     * moves the id in the inputted slot up until its parent is not larger
+     * @param slot the heap slot
+     */
+    private void siftUp(int slot) {
+        int id = this.heap[slot];
+        double key = this.keys[id];
+        while (slot > 0) {
+            int parent = (slot - 1) / ARITY;
+            int parentId = this.heap[parent];
+            if (this.keys[parentId] <= key) {
+                break;
+            }
+            this.heap[slot] = parentId;
+            this.position[parentId] = slot;
+            slot = parent;
+        }
+        this.heap[slot] = id;
+        this.position[id] = slot;
+    }
+
+    /**
+     * moves the id in the inputted slot down until no child is smaller
+     * @param slot the heap slot
+     */
+    private void siftDown(int slot) {
+        int id = this.heap[slot];
+        double key = this.keys[id];
+        while (true) {
+            int first = slot * ARITY + 1;
+            if (first >= this.size) {
+                break;
+            }
+            int last = Math.min(first + ARITY, this.size);
+            int best = first;
+            double bestKey = this.keys[this.heap[first]];
+            for (int child = first + 1; child < last; child++) {
+                double childKey = this.keys[this.heap[child]];
+                if (childKey < bestKey) {
+                    best = child;
+                    bestKey = childKey;
+                }
+            }
+            if (bestKey >= key) {
+                break;
+            }
+            int bestId = this.heap[best];
+            this.heap[slot] = bestId;
+            this.position[bestId] = slot;
+            slot = best;
+        }
+        this.heap[slot] = id;
+        this.position[id] = slot;
+    }
+}
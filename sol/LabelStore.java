@@ -0,0 +1,253 @@
+package sol;
+
+import java.util.Arrays;
+
+/**
+ * The LabelStore class holds the labels of a label-setting search, which
+ * ParetoSearch and ConstrainedDijkstra share. A label is one way of reaching
+ * a city with its totals: two double criteria and a leg count, a search that
+ * only weighs two criteria leaving the legs at 0. Labels live in parallel
+ * primitive arrays indexed by label id, together with the city, the label
+ * they were extended from and the edge used, and each city has a bag of the
+ * ids of its labels that no other label there dominates. Every thread keeps
+ * one store and reuses it for its next search, and like SearchWorkspace a
+ * bag only counts as written if its stamp equals the current generation, so
+ * starting a search never clears the bags. A search must be done with the
+ * store before the thread starts another.
+ */
+final class LabelStore {
+
+    private static final ThreadLocal<LabelStore> STORES =
+            ThreadLocal.withInitial(LabelStore::new);
+
+    private int labelCount;
+    private double[] first;
+    private double[] second;
+    private int[] legs;
+    private int[] vertex;
+    private int[] parent;
+    private int[] edge;
+    private boolean[] dead;
+
+    private int generation;
+    private int[] stamp;
+    private int[][] bags;
+    private int[] bagSize;
+    private IndexedHeap toCheckQueue;
+
+    private LabelStore() {
+        this.first = new double[64];
+        this.second = new double[64];
+        this.legs = new int[64];
+        this.vertex = new int[64];
+        this.parent = new int[64];
+        this.edge = new int[64];
+        this.dead = new boolean[64];
+        this.stamp = new int[0];
+        this.bags = new int[0][];
+        this.bagSize = new int[0];
+        this.toCheckQueue = new IndexedHeap(64);
+    }
+
+    /**
+     * gets the calling thread's store, ready for a new search
+     * @param n the number of vertices in the graph being searched
+     * @return the store, with no labels and an empty heap
+     */
+    static LabelStore get(int n) {
+        LabelStore store = STORES.get();
+        store.begin(n);
+        return store;
+    }
+
+    /**
+     * forgets the last search
+     * @param n the number of vertices in the graph being searched
+     */
+    private void begin(int n) {
+        if (this.stamp.length < n) {
+            this.stamp = new int[n];
+            this.bags = Arrays.copyOf(this.bags, n);
+            this.bagSize = new int[n];
+            this.generation = 0;
+        }
+        this.labelCount = 0;
+        this.toCheckQueue.clear();
+        this.generation++;
+        if (this.generation == Integer.MAX_VALUE) {
+            Arrays.fill(this.stamp, 0);
+            this.generation = 1;
+        }
+    }
+
+    /**
+     * gets how many labels a city's bag holds
+     * @param v the vertex id
+     * @return the bag size, 0 if the current search has not reached v
+     */
+    int getBagSize(int v) {
+        return this.stamp[v] == this.generation ? this.bagSize[v] : 0;
+    }
+
+    /**
+     * gets the labels in a city's bag
+     * @param v the vertex id
+     * @return a copy of the label ids
+     */
+    int[] copyBag(int v) {
+        int size = this.getBagSize(v);
+        return size == 0 ? new int[0] : Arrays.copyOf(this.bags[v], size);
+    }
+
+    /**
+     * checks if a label at v is at least as good as the inputted totals
+     * @param v the vertex id
+     * @return true if some label at v dominates or equals the totals
+     */
+    boolean isDominated(int v, double a, double b, int l) {
+        int size = this.getBagSize(v);
+        for (int i = 0; i < size; i++) {
+            int other = this.bags[v][i];
+            if (this.first[other] <= a && this.second[other] <= b
+                    && this.legs[other] <= l) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * drops the labels at v that the inputted totals dominate, marking them
+     * dead so they are skipped when they come off the heap
+     * @param v the vertex id
+     */
+    void removeDominated(int v, double a, double b, int l) {
+        int size = this.getBagSize(v);
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int other = this.bags[v][i];
+            if (a <= this.first[other] && b <= this.second[other]
+                    && l <= this.legs[other]) {
+                this.dead[other] = true;
+            } else {
+                this.bags[v][kept++] = other;
+            }
+        }
+        if (size > 0) {
+            this.bagSize[v] = kept;
+        }
+    }
+
+    /**
+     * stores a new label and adds it to the bag of its vertex
+     * @param v the vertex id
+     * @param a the first total
+     * @param b the second total
+     * @param l the number of legs
+     * @param from the label this one extends, or -1 for the first
+     * @param e the edge used, or -1 for the first
+     * @return the label id
+     */
+    int add(int v, double a, double b, int l, int from, int e) {
+        if (this.labelCount == this.first.length) {
+            int capacity = this.labelCount * 2;
+            this.first = Arrays.copyOf(this.first, capacity);
+            this.second = Arrays.copyOf(this.second, capacity);
+            this.legs = Arrays.copyOf(this.legs, capacity);
+            this.vertex = Arrays.copyOf(this.vertex, capacity);
+            this.parent = Arrays.copyOf(this.parent, capacity);
+            this.edge = Arrays.copyOf(this.edge, capacity);
+            this.dead = Arrays.copyOf(this.dead, capacity);
+        }
+        int label = this.labelCount++;
+        this.first[label] = a;
+        this.second[label] = b;
+        this.legs[label] = l;
+        this.vertex[label] = v;
+        this.parent[label] = from;
+        this.edge[label] = e;
+        this.dead[label] = false;
+        if (this.stamp[v] != this.generation) {
+            this.stamp[v] = this.generation;
+            this.bagSize[v] = 0;
+        }
+        if (this.bags[v] == null) {
+            this.bags[v] = new int[4];
+        } else if (this.bagSize[v] == this.bags[v].length) {
+            this.bags[v] = Arrays.copyOf(this.bags[v], this.bagSize[v] * 2);
+        }
+        this.bags[v][this.bagSize[v]++] = label;
+        return label;
+    }
+
+    /**
+     * gets the first total of a label
+     * @param label the label id
+     * @return the first total
+     */
+    double getFirst(int label) {
+        return this.first[label];
+    }
+
+    /**
+     * gets the second total of a label
+     * @param label the label id
+     * @return the second total
+     */
+    double getSecond(int label) {
+        return this.second[label];
+    }
+
+    /**
+     * gets how many legs a label took
+     * @param label the label id
+     * @return the number of legs
+     */
+    int getLegs(int label) {
+        return this.legs[label];
+    }
+
+    /**
+     * gets the city a label is at
+     * @param label the label id
+     * @return the vertex id
+     */
+    int getVertex(int label) {
+        return this.vertex[label];
+    }
+
+    /**
+     * gets the label a label extends
+     * @param label the label id
+     * @return the label id, or -1 for the first
+     */
+    int getParent(int label) {
+        return this.parent[label];
+    }
+
+    /**
+     * gets the edge a label was reached by
+     * @param label the label id
+     * @return the edge id, or -1 for the first
+     */
+    int getEdge(int label) {
+        return this.edge[label];
+    }
+
+    /**
+     * checks if a label was dominated after it was added
+     * @param label the label id
+     * @return true if the label was dropped from its bag
+     */
+    boolean isDead(int label) {
+        return this.dead[label];
+    }
+
+    /**
+     * gets the heap, empty at the start of each search
+     * @return the heap
+     */
+    IndexedHeap getHeap() {
+        return this.toCheckQueue;
+    }
+}
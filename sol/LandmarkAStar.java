@@ -0,0 +1,410 @@
+package sol;
+
+import src.ICompactDijkstra;
+import src.ICompactGraph;
+import src.Transport;
+import src.Weighting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * The LandmarkAStar class implements the ICompactDijkstra interface with ALT
+ * (A*, landmarks, triangle inequality). When it is made it picks a few
+ * landmark cities spread far apart and stores, for minutes and for price, the
+ * distance from every landmark to every city and from every city to every
+ * landmark. By the triangle inequality d(L, t) - d(L, v) and d(v, L) - d(t, L)
+ * are lower bounds on d(v, t), and the largest of them over all landmarks
+ * guides an A* search. Unlike AStar this needs no coordinates. The search
+ * runs in the calling thread's SearchWorkspace.
+ */
+public class LandmarkAStar implements ICompactDijkstra {
+
+    public static final int DEFAULT_LANDMARKS = 8;
+
+    private static final int FILE_MAGIC = 0x414c5431;
+
+    private ICompactGraph graph;
+    private int[] landmarks;
+    private double[] minutesFrom;
+    private double[] minutesTo;
+    private double[] priceFrom;
+    private double[] priceTo;
+
+    /**
+     * constructs a LandmarkAStar for a graph, running the searches for each
+     * landmark in parallel
+     * @param graph the graph that will be searched
+     * @param landmarkCount how many landmarks to pick, at most the number of
+     *                      cities
+     * @throws IllegalArgumentException if landmarkCount is negative
+     */
+    public LandmarkAStar(ICompactGraph graph, int landmarkCount) {
+        if (landmarkCount < 0) {
+            throw new IllegalArgumentException("Landmark count cannot be "
+                    + "negative.");
+        }
+        int n = graph.getVertexCount();
+        this.graph = graph;
+        this.landmarks = LandmarkAStar.pickLandmarks(graph,
+                Math.min(landmarkCount, n));
+        int k = this.landmarks.length;
+        this.minutesFrom = new double[k * n];
+        this.minutesTo = new double[k * n];
+        this.priceFrom = new double[k * n];
+        this.priceTo = new double[k * n];
+
+        CompactDijkstra dijkstra = new CompactDijkstra();
+        IntStream.range(0, k).parallel().forEach(l -> {
+            int landmark = this.landmarks[l];
+            System.arraycopy(dijkstra.getDistancesFrom(graph, landmark,
+                    Weighting.MINUTES), 0, this.minutesFrom, l * n, n);
+            System.arraycopy(dijkstra.getDistancesTo(graph, landmark,
+                    Weighting.MINUTES), 0, this.minutesTo, l * n, n);
+            System.arraycopy(dijkstra.getDistancesFrom(graph, landmark,
+                    Weighting.PRICE), 0, this.priceFrom, l * n, n);
+            System.arraycopy(dijkstra.getDistancesTo(graph, landmark,
+                    Weighting.PRICE), 0, this.priceTo, l * n, n);
+        });
+    }
+
+    /**
+     * constructs a LandmarkAStar from tables that were already computed
+     */
+    private LandmarkAStar(ICompactGraph graph, int[] landmarks,
+                          double[] minutesFrom, double[] minutesTo,
+                          double[] priceFrom, double[] priceTo) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.minutesFrom = minutesFrom;
+        this.minutesTo = minutesTo;
+        this.priceFrom = priceFrom;
+        this.priceTo = priceTo;
+    }
+
+    /**
+     * reads landmark tables written by save
+     * @param graph the graph the tables are for
+     * @param file the filename of the tables
+     * @return the LandmarkAStar for graph
+     * @throws IOException if the file cannot be read, is not a landmark file,
+     *                     was written for a different graph, or holds a
+     *                     landmark count or id that is out of range
+     */
+    public static LandmarkAStar load(ICompactGraph graph, String file)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a landmark file: " + file);
+            }
+            int n = in.readInt();
+            if (n != graph.getVertexCount()
+                    || in.readLong() != LandmarkAStar.checksum(graph)) {
+                throw new IOException("Landmark file " + file
+                        + " was built for a different graph.");
+            }
+            int k = in.readInt();
+            // checked before anything is sized by k, so a corrupt file is
+            // an IOException and recomputed rather than a failed allocation
+            if (k > n || (k < 1 && n > 0) || (long) k * n > Integer.MAX_VALUE) {
+                throw new IOException("Landmark file " + file
+                        + " is corrupt.");
+            }
+            int[] landmarks = new int[k];
+            for (int l = 0; l < k; l++) {
+                landmarks[l] = in.readInt();
+                if (landmarks[l] < 0 || landmarks[l] >= n) {
+                    throw new IOException("Landmark file " + file
+                            + " is corrupt.");
+                }
+            }
+            double[][] tables = new double[4][k * n];
+            for (double[] table : tables) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = in.readDouble();
+                }
+            }
+            return new LandmarkAStar(graph, landmarks, tables[0], tables[1],
+                    tables[2], tables[3]);
+        }
+    }
+
+    /**
+     * writes the landmark tables so a restart can load them instead of
+     * recomputing them. The tables are written next to file and moved over
+     * it in one step, so no reader ever sees half of them.
+     * @param file the filename to write to
+     * @throws IOException if the file cannot be written
+     */
+    public void save(String file) throws IOException {
+        GraphSnapshot.replace(file, this::writeTo);
+    }
+
+    /**
+     * writes the landmark tables to a file and forces them to disk
+     * @param temp the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    private void writeTo(Path temp) throws IOException {
+        FileOutputStream file = new FileOutputStream(temp.toFile());
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(file))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(this.graph.getVertexCount());
+            out.writeLong(LandmarkAStar.checksum(this.graph));
+            out.writeInt(this.landmarks.length);
+            for (int landmark : this.landmarks) {
+                out.writeInt(landmark);
+            }
+            for (double[] table : new double[][]{this.minutesFrom,
+                    this.minutesTo, this.priceFrom, this.priceTo}) {
+                for (double d : table) {
+                    out.writeDouble(d);
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+    }
+
+    /**
+     * gets the landmarks that were picked
+     * @return the landmark vertex ids
+     */
+    public int[] getLandmarks() {
+        return this.landmarks.clone();
+    }
+
+    /**
+     * gets the path from source to destination with the lowest total weight
+     *
+     * @param graph       the graph to search, the one this LandmarkAStar was
+     *                    made for
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting   how each edge is weighted
+     * @return a List<Transport> representing the path from source to
+     * destination, or empty if there is none
+     * @throws IllegalArgumentException if graph is not the graph this
+     *                                  LandmarkAStar was made for
+     */
+    @Override
+    public List<Transport> getShortestPath(ICompactGraph graph, int source,
+                                           int destination,
+                                           Weighting weighting) {
+        if (graph != this.graph) {
+            throw new IllegalArgumentException("LandmarkAStar was made for a "
+                    + "different graph.");
+        }
+        SearchWorkspace workspace = SearchWorkspace.get(
+                SearchWorkspace.FORWARD, graph.getVertexCount());
+        IndexedHeap toCheckQueue = workspace.getHeap();
+
+        workspace.reach(source, 0.0, -1);
+        toCheckQueue.insert(source, 0.0);
+        while (!toCheckQueue.isEmpty()) {
+            int checking = toCheckQueue.pop();
+            if (checking == destination) {
+                break;
+            }
+            double checkingDist = workspace.getDist(checking);
+            int end = graph.getEdgeEnd(checking);
+            for (int e = graph.getEdgeStart(checking); e < end; e++) {
+                int neighbor = graph.getEdgeTargetId(e);
+                double candidate = checkingDist + weighting.weight(graph, e);
+                if (candidate < workspace.getDist(neighbor)) {
+                    if (!workspace.isReached(neighbor)) {
+                        // a city the landmarks prove cannot reach destination
+                        // stays at infinity, with its bound kept
+                        workspace.reach(neighbor, Double.POSITIVE_INFINITY,
+                                -1);
+                        workspace.setEstimate(neighbor, this.lowerBound(
+                                neighbor, destination, weighting));
+                    }
+                    if (workspace.getEstimate(neighbor)
+                            == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    workspace.reach(neighbor, candidate, e);
+                    toCheckQueue.insertOrDecrease(neighbor,
+                            candidate + workspace.getEstimate(neighbor));
+                }
+            }
+        }
+        if (workspace.getDist(destination) == Double.POSITIVE_INFINITY) {
+            return new ArrayList<Transport>();
+        }
+        return CompactDijkstra.extractPath(graph, workspace.getParentEdges(),
+                source, destination);
+    }
+
+    /**
+     * calculates the landmark lower bound on the distance from v to t
+     * @param v the vertex id
+     * @param t the destination vertex id
+     * @param weighting how each edge is weighted
+     * @return a lower bound on the weight of any path from v to t
+     */
+    private double lowerBound(int v, int t, Weighting weighting) {
+        double bound = 0.0;
+        if (weighting.getMinutesFactor() > 0) {
+            bound += weighting.getMinutesFactor()
+                    * this.lowerBound(this.minutesFrom, this.minutesTo, v, t);
+        }
+        if (weighting.getPriceFactor() > 0) {
+            bound += weighting.getPriceFactor()
+                    * this.lowerBound(this.priceFrom, this.priceTo, v, t);
+        }
+        return bound;
+    }
+
+    /**
+     * calculates the landmark lower bound for one metric
+     * @param from the distances from each landmark
+     * @param to the distances to each landmark
+     * @param v the vertex id
+     * @param t the destination vertex id
+     * @return the largest triangle inequality bound over the landmarks
+     */
+    private double lowerBound(double[] from, double[] to, int v, int t) {
+        int n = this.graph.getVertexCount();
+        double bound = 0.0;
+        for (int l = 0; l < this.landmarks.length; l++) {
+            int base = l * n;
+            // d(v, t) >= d(L, t) - d(L, v) when L reaches v
+            if (from[base + v] < Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, from[base + t] - from[base + v]);
+            }
+            // d(v, t) >= d(v, L) - d(t, L) when t reaches L
+            if (to[base + t] < Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, to[base + v] - to[base + t]);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * picks landmarks by farthest point selection on hop counts, ignoring
+     * edge directions: each landmark is a city as many hops as possible from
+     * the landmarks before it, and cities no landmark reaches come first
+     * @param graph the graph
+     * @param count how many landmarks to pick
+     * @return the landmark vertex ids
+     */
+    private static int[] pickLandmarks(ICompactGraph graph, int count) {
+        int n = graph.getVertexCount();
+        int[] landmarks = new int[count];
+        if (count == 0) {
+            return landmarks;
+        }
+        int[] nearest = new int[n];
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        int[] hops = LandmarkAStar.undirectedHops(graph, 0);
+        int next = LandmarkAStar.farthest(hops);
+        for (int l = 0; l < count; l++) {
+            landmarks[l] = next;
+            hops = LandmarkAStar.undirectedHops(graph, next);
+            for (int v = 0; v < n; v++) {
+                nearest[v] = Math.min(nearest[v], hops[v]);
+            }
+            next = LandmarkAStar.farthest(nearest);
+        }
+        return landmarks;
+    }
+
+    /**
+     * finds the vertex with the largest hop count, the smallest id on ties
+     * @param hops the hop counts
+     * @return the vertex id
+     */
+    private static int farthest(int[] hops) {
+        int best = 0;
+        for (int v = 1; v < hops.length; v++) {
+            if (hops[v] > hops[best]) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * counts the hops from root to every vertex, following edges both ways
+     * @param graph the graph
+     * @param root the vertex id to start from
+     * @return the hop counts, Integer.MAX_VALUE if unreached
+     */
+    private static int[] undirectedHops(ICompactGraph graph, int root) {
+        int n = graph.getVertexCount();
+        int[] hops = new int[n];
+        Arrays.fill(hops, Integer.MAX_VALUE);
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        hops[root] = 0;
+        queue[tail++] = root;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = graph.getEdgeStart(v); e < graph.getEdgeEnd(v); e++) {
+                int u = graph.getEdgeTargetId(e);
+                if (hops[u] == Integer.MAX_VALUE) {
+                    hops[u] = hops[v] + 1;
+                    queue[tail++] = u;
+                }
+            }
+            for (int i = graph.getInEdgeStart(v); i < graph.getInEdgeEnd(v);
+                 i++) {
+                int u = graph.getEdgeSourceId(graph.getInEdge(i));
+                if (hops[u] == Integer.MAX_VALUE) {
+                    hops[u] = hops[v] + 1;
+                    queue[tail++] = u;
+                }
+            }
+        }
+        return hops;
+    }
+
+    /**
+     * calculates a checksum of a graph's structure and weights, used to make
+     * sure saved tables belong to the graph they are loaded for
+     * @param graph the graph
+     * @return the checksum
+     */
+    static long checksum(ICompactGraph graph) {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[24];
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            LandmarkAStar.putInt(buffer, 0, graph.getEdgeSourceId(e));
+            LandmarkAStar.putInt(buffer, 4, graph.getEdgeTargetId(e));
+            LandmarkAStar.putLong(buffer, 8,
+                    Double.doubleToLongBits(graph.getMinutes(e)));
+            LandmarkAStar.putLong(buffer, 16,
+                    Double.doubleToLongBits(graph.getPrice(e)));
+            crc.update(buffer, 0, buffer.length);
+        }
+        return ((long) graph.getEdgeCount() << 32) ^ crc.getValue();
+    }
+
+    private static void putInt(byte[] buffer, int at, int value) {
+        for (int i = 0; i < 4; i++) {
+            buffer[at + i] = (byte) (value >>> (24 - 8 * i));
+        }
+    }
+
+    private static void putLong(byte[] buffer, int at, long value) {
+        for (int i = 0; i < 8; i++) {
+            buffer[at + i] = (byte) (value >>> (56 - 8 * i));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package sol;
+
+/**
+ * An enum representing the ways TravelController can read a transportation
+ * file on load
+ */
+public enum LoadStrategy {
+    STREAMING,
+    MAPPED
+}
@@ -0,0 +1,391 @@
+package sol;
+
+import src.CSVRowReader;
+import src.TransportType;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The MappedTransportLoader class reads a transportation csv into a
+ * CompactGraphBuilder on many threads at once. The file is memory mapped and
+ * split into chunks that each end at a line break, every chunk is parsed on
+ * a ForkJoinPool into its own primitive edge buffer, and the buffers are
+ * added to the builder in file order, so the graph is the same one reading
+ * the file row by row gives. Only twice as many chunks as the pool has
+ * workers are mapped and parsed ahead of the one being added, so memory
+ * stays bounded however large the file is. The cities must already be in
+ * the builder, whose name table is only read while chunks are parsed, so
+ * the workers look cities up without locking. Quoted fields are unquoted,
+ * but a line break inside a quoted field is not supported since chunks are
+ * split at line breaks.
+ */
+public class MappedTransportLoader {
+
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 22;
+
+    private ForkJoinPool pool;
+    private int chunkBytes;
+    private int maxInFlight;
+
+    /**
+     * constructs a MappedTransportLoader that runs on the common ForkJoinPool
+     */
+    public MappedTransportLoader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * constructs a MappedTransportLoader
+     * @param pool the pool chunks are parsed on
+     * @param chunkBytes about how many bytes each chunk holds
+     */
+    public MappedTransportLoader(ForkJoinPool pool, int chunkBytes) {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("Chunks must hold at least one "
+                    + "byte.");
+        }
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+        // enough to keep every worker busy while the oldest chunk is added
+        this.maxInFlight = 2 * pool.getParallelism();
+    }
+
+    /**
+     * adds every transport in a file to a builder
+     * @param transportFile the filename of the transportations csv
+     * @param builder the builder holding every city the file names
+     * @throws IOException if the file cannot be read or lacks a column
+     * @throws IllegalArgumentException if a row names a city that is not in
+     *                                  the builder or an unknown type
+     * @throws NumberFormatException if a price or duration is not a number
+     */
+    public void load(String transportFile, CompactGraphBuilder builder)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(transportFile),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headerEnd = nextLineStart(channel, 0, size);
+            ByteBuffer header = ByteBuffer.allocate((int) headerEnd);
+            channel.read(header, 0);
+            CSVRowReader headerRow = new CSVRowReader(new StringReader(
+                    new String(header.array(), StandardCharsets.UTF_8)));
+            int[] columns = {headerRow.requireColumn("origin"),
+                headerRow.requireColumn("destination"),
+                headerRow.requireColumn("type"),
+                headerRow.requireColumn("price"),
+                headerRow.requireColumn("duration")};
+
+            // chunks are joined in file order, and a new one is only mapped
+            // once fewer than maxInFlight are waiting, so a large file never
+            // has every chunk mapped or parsed into memory at once
+            ArrayDeque<ForkJoinTask<EdgeBuffer>> chunks =
+                    new ArrayDeque<ForkJoinTask<EdgeBuffer>>();
+            RuntimeException failure = null;
+            long start = headerEnd;
+            while (start < size || !chunks.isEmpty()) {
+                if (start < size && failure == null
+                        && chunks.size() < this.maxInFlight) {
+                    long end = nextLineStart(channel,
+                            Math.min(start + this.chunkBytes, size), size);
+                    MappedByteBuffer bytes = channel.map(
+                            FileChannel.MapMode.READ_ONLY, start, end - start);
+                    chunks.add(this.pool.submit(() ->
+                            parseChunk(bytes, columns, builder)));
+                    start = end;
+                    continue;
+                }
+                if (failure != null) {
+                    // nothing more is mapped once a chunk has failed
+                    start = size;
+                    if (chunks.isEmpty()) {
+                        break;
+                    }
+                }
+                // every task is joined, so a failed chunk never leaves
+                // others running against the builder after load returns
+                try {
+                    EdgeBuffer edges = chunks.poll().join();
+                    if (failure == null) {
+                        edges.addTo(builder);
+                    }
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * finds where the line holding a position ends
+     * @param channel the file
+     * @param position a byte offset in the file
+     * @param size the size of the file
+     * @return the offset just past the next line break at or after
+     * position - 1, or size if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long position,
+                                      long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        long at = Math.max(position - 1, 0);
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        while (at < size) {
+            window.clear();
+            int read = channel.read(window, at);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += read;
+        }
+        return size;
+    }
+
+    /**
+     * parses the rows of one chunk
+     * @param bytes the chunk, starting at a line start and ending just past a
+     *              line break or at the end of the file
+     * @param columns the indices of origin, destination, type, price and
+     *                duration
+     * @param builder the builder cities are looked up in
+     * @return the chunk's transports
+     */
+    private static EdgeBuffer parseChunk(ByteBuffer bytes, int[] columns,
+                                         CompactGraphBuilder builder) {
+        EdgeBuffer edges = new EdgeBuffer();
+        int wanted = 0;
+        for (int column : columns) {
+            wanted = Math.max(wanted, column + 1);
+        }
+        // one decoded field per wanted column, -1 for columns not needed
+        int[] slotOf = new int[wanted];
+        Arrays.fill(slotOf, -1);
+        for (int slot = 0; slot < columns.length; slot++) {
+            slotOf[columns[slot]] = slot;
+        }
+        CharField[] fields = new CharField[columns.length];
+        for (int slot = 0; slot < fields.length; slot++) {
+            fields[slot] = new CharField();
+        }
+
+        int limit = bytes.limit();
+        int i = 0;
+        while (i < limit) {
+            int lineEnd = i;
+            while (lineEnd < limit && bytes.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int rowEnd = lineEnd;
+            if (rowEnd > i && bytes.get(rowEnd - 1) == '\r') {
+                rowEnd--;
+            }
+            if (rowEnd > i) {
+                for (CharField field : fields) {
+                    field.length = 0;
+                }
+                int column = 0;
+                int at = i;
+                while (column < wanted) {
+                    int slot = slotOf[column];
+                    at = slot < 0 ? skipField(bytes, at, rowEnd)
+                            : fields[slot].read(bytes, at, rowEnd);
+                    column++;
+                    if (at >= rowEnd) {
+                        break;
+                    }
+                    at++;
+                }
+                edges.add(builder.getCityId(fields[0]),
+                        builder.getCityId(fields[1]),
+                        TransportType.parse(fields[2]),
+                        fields[3].toDouble(), fields[4].toDouble());
+            }
+            i = lineEnd + 1;
+        }
+        return edges;
+    }
+
+    /**
+     * steps over a field
+     * @param bytes the chunk
+     * @param at where the field starts
+     * @param rowEnd where the row ends
+     * @return the index of the comma after the field, or rowEnd
+     */
+    private static int skipField(ByteBuffer bytes, int at, int rowEnd) {
+        boolean quoted = false;
+        for (; at < rowEnd; at++) {
+            byte b = bytes.get(at);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == ',' && !quoted) {
+                break;
+            }
+        }
+        return at;
+    }
+
+    /**
+     * One field decoded into a reusable char array.
+     */
+    private static final class CharField implements CharSequence {
+
+        private char[] chars = new char[32];
+        private int length;
+
+        /**
+         * decodes the field starting at an index, unquoting it
+         * @param bytes the chunk
+         * @param at where the field starts
+         * @param rowEnd where the row ends
+         * @return the index of the comma after the field, or rowEnd
+         */
+        int read(ByteBuffer bytes, int at, int rowEnd) {
+            int end = at;
+            boolean quoted = false;
+            boolean ascii = true;
+            for (; end < rowEnd; end++) {
+                byte b = bytes.get(end);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == ',' && !quoted) {
+                    break;
+                } else if (b < 0) {
+                    ascii = false;
+                }
+            }
+            if (ascii) {
+                this.ensure(end - at);
+                for (int i = at; i < end; i++) {
+                    this.chars[this.length++] = (char) bytes.get(i);
+                }
+            } else {
+                byte[] raw = new byte[end - at];
+                bytes.get(at, raw);
+                String decoded = new String(raw, StandardCharsets.UTF_8);
+                this.ensure(decoded.length());
+                decoded.getChars(0, decoded.length(), this.chars, 0);
+                this.length = decoded.length();
+            }
+            if (this.length > 0 && this.chars[0] == '"') {
+                this.unquote();
+            }
+            return end;
+        }
+
+        /**
+         * drops the surrounding quotes and turns each doubled quote into one
+         */
+        private void unquote() {
+            int to = 0;
+            int i = 1;
+            while (i < this.length) {
+                char c = this.chars[i++];
+                if (c == '"') {
+                    if (i < this.length && this.chars[i] == '"') {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                this.chars[to++] = c;
+            }
+            this.length = to;
+        }
+
+        private void ensure(int capacity) {
+            if (this.chars.length < capacity) {
+                this.chars = new char[Math.max(capacity,
+                        this.chars.length * 2)];
+            }
+        }
+
+        double toDouble() {
+            return CSVRowReader.parseDouble(this.chars, 0, this.length);
+        }
+
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= this.length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return this.chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return this.toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(this.chars, 0, this.length);
+        }
+    }
+
+    /**
+     * The transports of one chunk, in the order they appear in it.
+     */
+    private static final class EdgeBuffer {
+
+        private int[] origins = new int[256];
+        private int[] destinations = new int[256];
+        private byte[] types = new byte[256];
+        private double[] prices = new double[256];
+        private double[] minutes = new double[256];
+        private int size;
+
+        void add(int origin, int destination, TransportType type,
+                 double price, double duration) {
+            if (this.size == this.origins.length) {
+                int capacity = this.size * 2;
+                this.origins = Arrays.copyOf(this.origins, capacity);
+                this.destinations = Arrays.copyOf(this.destinations,
+                        capacity);
+                this.types = Arrays.copyOf(this.types, capacity);
+                this.prices = Arrays.copyOf(this.prices, capacity);
+                this.minutes = Arrays.copyOf(this.minutes, capacity);
+            }
+            this.origins[this.size] = origin;
+            this.destinations[this.size] = destination;
+            this.types[this.size] = (byte) type.ordinal();
+            this.prices[this.size] = price;
+            this.minutes[this.size] = duration;
+            this.size++;
+        }
+
+        void addTo(CompactGraphBuilder builder) {
+            TransportType[] types = TransportType.values();
+            for (int e = 0; e < this.size; e++) {
+                builder.addEdge(this.origins[e], this.destinations[e],
+                        types[this.types[e]], this.prices[e], this.minutes[e]);
+            }
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package sol;
+
+import src.City;
+import src.ICompactGraph;
+import src.Transport;
+import src.TransportType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+
+/**
+ * The MappedTravelGraph class implements the ICompactGraph interface over a
+ * memory mapped GraphSnapshot file. The edge arrays, the offsets and the
+ * reverse index are never copied onto the heap: every getter reads straight
+ * out of the mapped file, so the engines that search an ICompactGraph read
+ * weights and targets from it too. The file is mapped read only, so any
+ * number of processes opening the same snapshot share one copy of it in the
+ * page cache. Only what grows with the number of cities stays on the heap:
+ * the names, the index from name to id and the City views. Transport views
+ * are made each time they are asked for rather than cached, since a cache
+ * sized to the edges would defeat the point. The mapping is released once
+ * the graph is garbage collected.
+ */
+public class MappedTravelGraph implements ICompactGraph {
+
+    private static final TransportType[] TYPES = TransportType.values();
+
+    // elements per mapped window, so no window is larger than
+    // GraphSnapshot.WINDOW bytes
+    private static final int DOUBLE_SHIFT = 27;
+    private static final int INT_SHIFT = 28;
+    private static final int BYTE_SHIFT = 30;
+
+    private Path file;
+    private int vertexCount;
+    private int edgeCount;
+    private String[] names;
+    private HashMap<String, Integer> ids;
+    private DoubleBuffer[] latitudes;
+    private DoubleBuffer[] longitudes;
+    private DoubleBuffer[] minutes;
+    private DoubleBuffer[] price;
+    private IntBuffer[] offsets;
+    private IntBuffer[] sources;
+    private IntBuffer[] targets;
+    private IntBuffer[] inOffsets;
+    private IntBuffer[] inEdges;
+    private ByteBuffer[] type;
+
+    private AtomicReferenceArray<City> cityViews;
+
+    /**
+     * maps a snapshot file, checking its checksum and that its offsets and
+     * ids are in range
+     * @param snapshotFile the filename of a snapshot written by GraphSnapshot
+     * @throws IOException if the file cannot be read, is not a snapshot, has
+     *                     a version this cannot read, or is corrupt
+     */
+    public MappedTravelGraph(String snapshotFile) throws IOException {
+        this(snapshotFile, true);
+    }
+
+    /**
+     * maps a snapshot file
+     * @param snapshotFile the filename of a snapshot written by GraphSnapshot
+     * @param verify whether to check the checksum and ranges, which reads
+     *               the whole file; without it only the header is checked
+     * @throws IOException if the file cannot be read, is not a snapshot, has
+     *                     a version this cannot read, or is corrupt
+     */
+    public MappedTravelGraph(String snapshotFile, boolean verify)
+            throws IOException {
+        this.file = Paths.get(snapshotFile).toAbsolutePath();
+        try (FileChannel channel = FileChannel.open(this.file,
+                StandardOpenOption.READ)) {
+            GraphSnapshot.Header header =
+                    GraphSnapshot.readHeader(channel, snapshotFile);
+            if (verify && checksum(channel, header) != header.checksum) {
+                throw new IOException("Graph snapshot " + snapshotFile
+                        + " is corrupt.");
+            }
+            int n = header.cities;
+            int m = header.transports;
+            this.vertexCount = n;
+            this.edgeCount = m;
+            this.latitudes = mapDoubles(channel, header.latitudes(), n);
+            this.longitudes = mapDoubles(channel, header.longitudes(), n);
+            this.minutes = mapDoubles(channel, header.minutes(), m);
+            this.price = mapDoubles(channel, header.price(), m);
+            this.offsets = mapInts(channel, header.offsets(), n + 1);
+            this.sources = mapInts(channel, header.sources(), m);
+            this.targets = mapInts(channel, header.targets(), m);
+            this.inOffsets = mapInts(channel, header.inOffsets(), n + 1);
+            this.inEdges = mapInts(channel, header.inEdges(), m);
+            this.type = mapBytes(channel, header.types(), m);
+            IntBuffer[] nameOffsets =
+                    mapInts(channel, header.nameOffsets(), n + 1);
+            ByteBuffer[] nameBytes =
+                    mapBytes(channel, header.names(), header.nameBytes);
+            if (verify) {
+                GraphSnapshot.validate(snapshotFile, n, m, header.nameBytes,
+                        v -> get(this.offsets, v), e -> get(this.sources, e),
+                        e -> get(this.targets, e),
+                        v -> get(this.inOffsets, v),
+                        slot -> get(this.inEdges, slot),
+                        v -> get(nameOffsets, v), e -> get(this.type, e));
+            }
+
+            this.names = new String[n];
+            this.ids = new HashMap<String, Integer>(n * 2);
+            for (int v = 0; v < n; v++) {
+                int start = get(nameOffsets, v);
+                byte[] name = new byte[get(nameOffsets, v + 1) - start];
+                for (int i = 0; i < name.length; i++) {
+                    name[i] = get(nameBytes, start + i);
+                }
+                this.names[v] = new String(name, StandardCharsets.UTF_8);
+                this.ids.put(this.names[v], v);
+            }
+        }
+        this.cityViews = new AtomicReferenceArray<City>(this.vertexCount);
+    }
+
+    /**
+     * gets the snapshot file this graph is mapped from
+     * @return the absolute path of the file
+     */
+    public Path getSnapshotFile() {
+        return this.file;
+    }
+
+    /**
+     * not supported, the graph is read only
+     * @param vertex the vertex
+     */
+    @Override
+    public void addVertex(City vertex) {
+        throw new UnsupportedOperationException("MappedTravelGraph is read "
+                + "only.");
+    }
+
+    /**
+     * not supported, the graph is read only
+     * @param origin the origin of the edge.
+     * @param edge the edge to be added
+     */
+    @Override
+    public void addEdge(City origin, Transport edge) {
+        throw new UnsupportedOperationException("MappedTravelGraph is read "
+                + "only.");
+    }
+
+    /**
+     * gets the vertices from the graph, materializing every City view
+     * @return the vertices in a Set
+     */
+    @Override
+    public Set<City> getVertices() {
+        LinkedHashSet<City> c = new LinkedHashSet<City>();
+        for (int v = 0; v < this.vertexCount; v++) {
+            c.add(this.getVertex(v));
+        }
+        return c;
+    }
+
+    @Override
+    public City getEdgeSource(Transport edge) {
+        return edge.getSource();
+    }
+
+    @Override
+    public City getEdgeTarget(Transport edge) {
+        return edge.getTarget();
+    }
+
+    /**
+     * gets the edges that come out of the inputted city as new Transport
+     * views
+     * @param fromVertex the vertex
+     * @return the set of outgoing edges
+     */
+    @Override
+    public Set<Transport> getOutgoingEdges(City fromVertex) {
+        int v = this.getVertexId(fromVertex.toString());
+        LinkedHashSet<Transport> out = new LinkedHashSet<Transport>();
+        for (int e = this.getEdgeStart(v); e < this.getEdgeEnd(v); e++) {
+            out.add(this.getEdge(e));
+        }
+        return out;
+    }
+
+    /**
+     * gets the edges that go into the inputted city as new Transport views
+     * @param toVertex the vertex
+     * @return the set of incoming edges
+     */
+    @Override
+    public Set<Transport> getIncomingEdges(City toVertex) {
+        int v = this.getVertexId(toVertex.toString());
+        LinkedHashSet<Transport> in = new LinkedHashSet<Transport>();
+        for (int i = this.getInEdgeStart(v); i < this.getInEdgeEnd(v); i++) {
+            in.add(this.getEdge(this.getInEdge(i)));
+        }
+        return in;
+    }
+
+    @Override
+    public City getCity(String name) {
+        return this.getVertex(this.getVertexId(name));
+    }
+
+    @Override
+    public int getVertexCount() {
+        return this.vertexCount;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return this.edgeCount;
+    }
+
+    @Override
+    public int getVertexId(String name) {
+        Integer id = this.ids.get(name);
+        if (id == null) {
+            throw new IllegalArgumentException("City is not in the graph.");
+        }
+        return id;
+    }
+
+    @Override
+    public City getVertex(int vertex) {
+        City city = this.cityViews.get(vertex);
+        if (city == null) {
+            city = new City(this.names[vertex], this.getLatitude(vertex),
+                    this.getLongitude(vertex));
+            if (!this.cityViews.compareAndSet(vertex, null, city)) {
+                city = this.cityViews.get(vertex);
+            }
+        }
+        return city;
+    }
+
+    @Override
+    public double getLatitude(int vertex) {
+        return get(this.latitudes, vertex);
+    }
+
+    @Override
+    public double getLongitude(int vertex) {
+        return get(this.longitudes, vertex);
+    }
+
+    @Override
+    public int getEdgeStart(int vertex) {
+        return get(this.offsets, vertex);
+    }
+
+    @Override
+    public int getEdgeEnd(int vertex) {
+        return get(this.offsets, vertex + 1);
+    }
+
+    @Override
+    public int getInEdgeStart(int vertex) {
+        return get(this.inOffsets, vertex);
+    }
+
+    @Override
+    public int getInEdgeEnd(int vertex) {
+        return get(this.inOffsets, vertex + 1);
+    }
+
+    @Override
+    public int getInEdge(int slot) {
+        return get(this.inEdges, slot);
+    }
+
+    @Override
+    public int getEdgeSourceId(int edge) {
+        return get(this.sources, edge);
+    }
+
+    @Override
+    public int getEdgeTargetId(int edge) {
+        return get(this.targets, edge);
+    }
+
+    @Override
+    public double getMinutes(int edge) {
+        return get(this.minutes, edge);
+    }
+
+    @Override
+    public double getPrice(int edge) {
+        return get(this.price, edge);
+    }
+
+    @Override
+    public TransportType getType(int edge) {
+        return TYPES[get(this.type, edge)];
+    }
+
+    /**
+     * makes a Transport view of an edge id
+     * @param edge the edge id
+     * @return a new Transport with that id's cities, type and weights
+     */
+    @Override
+    public Transport getEdge(int edge) {
+        return new Transport(this.getVertex(this.getEdgeSourceId(edge)),
+                this.getVertex(this.getEdgeTargetId(edge)),
+                this.getType(edge), this.getPrice(edge),
+                this.getMinutes(edge));
+    }
+
+    /**
+     * calculates the CRC32 of everything after a snapshot's header
+     * @param channel the snapshot file
+     * @param header the snapshot's header
+     * @return the checksum
+     */
+    private static long checksum(FileChannel channel,
+                                 GraphSnapshot.Header header)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        long position = header.latitudes();
+        while (position < header.end()) {
+            long length = Math.min(header.end() - position,
+                    GraphSnapshot.WINDOW);
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    length));
+            position += length;
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * maps an array of the file as windows of at most 2^shift elements
+     * @param channel the snapshot file
+     * @param position where the array starts
+     * @param count the number of elements
+     * @param size the bytes per element
+     * @param shift log2 of the elements per window
+     * @return the windows, little endian
+     */
+    private static ByteBuffer[] map(FileChannel channel, long position,
+                                    int count, int size, int shift)
+            throws IOException {
+        int windowCount = (int) (((long) count + (1L << shift) - 1) >>> shift);
+        ByteBuffer[] windows = new ByteBuffer[Math.max(windowCount, 1)];
+        for (int w = 0; w < windows.length; w++) {
+            long first = (long) w << shift;
+            long elements = Math.min(count - first, 1L << shift);
+            windows[w] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position + first * size, Math.max(elements, 0) * size)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return windows;
+    }
+
+    private static DoubleBuffer[] mapDoubles(FileChannel channel,
+                                             long position, int count)
+            throws IOException {
+        ByteBuffer[] bytes = map(channel, position, count, 8, DOUBLE_SHIFT);
+        DoubleBuffer[] windows = new DoubleBuffer[bytes.length];
+        for (int w = 0; w < bytes.length; w++) {
+            windows[w] = bytes[w].asDoubleBuffer();
+        }
+        return windows;
+    }
+
+    private static IntBuffer[] mapInts(FileChannel channel, long position,
+                                       int count) throws IOException {
+        ByteBuffer[] bytes = map(channel, position, count, 4, INT_SHIFT);
+        IntBuffer[] windows = new IntBuffer[bytes.length];
+        for (int w = 0; w < bytes.length; w++) {
+            windows[w] = bytes[w].asIntBuffer();
+        }
+        return windows;
+    }
+
+    private static ByteBuffer[] mapBytes(FileChannel channel, long position,
+                                         int count) throws IOException {
+        return map(channel, position, count, 1, BYTE_SHIFT);
+    }
+
+    private static double get(DoubleBuffer[] windows, int i) {
+        return windows[i >>> DOUBLE_SHIFT].get(i & ((1 << DOUBLE_SHIFT) - 1));
+    }
+
+    private static int get(IntBuffer[] windows, int i) {
+        return windows[i >>> INT_SHIFT].get(i & ((1 << INT_SHIFT) - 1));
+    }
+
+    private static byte get(ByteBuffer[] windows, int i) {
+        return windows[i >>> BYTE_SHIFT].get(i & ((1 << BYTE_SHIFT) - 1));
+    }
+}
@@ -0,0 +1,212 @@
+package sol;
+
+import src.ICompactBFS;
+import src.ICompactGraph;
+import src.Transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The ParallelBFS class implements the ICompactBFS interface. It is a level
+ * synchronous breadth first search whose levels are expanded on a
+ * ForkJoinPool: the frontier is split into slices, each worker scans the
+ * outgoing edges of its slice into a frontier of its own, and the slices'
+ * frontiers are joined into the next level. Reached cities are bits in a
+ * shared bitmap that workers claim with compare-and-set, so every city is
+ * added to exactly one next frontier. Small levels are expanded on the
+ * calling thread where splitting would cost more than it saves. Hop counts do
+ * not depend on which worker claims a city, and paths are rebuilt from them
+ * by taking the lowest id edge from the previous level, so results are the
+ * same on every run. Unlike the single threaded engines it does not search
+ * in a SearchWorkspace, since its hop counts and bitmap are shared by every
+ * worker of the pool rather than owned by the calling thread.
+ */
+public class ParallelBFS implements ICompactBFS {
+
+    private static final int GRAIN = 1024;
+
+    private ForkJoinPool pool;
+
+    /**
+     * constructs a ParallelBFS that runs on the common ForkJoinPool
+     */
+    public ParallelBFS() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * constructs a ParallelBFS
+     * @param pool the pool levels are expanded on
+     */
+    public ParallelBFS(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * gets the path from start to end with the fewest edges
+     *
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @param end   the end vertex id
+     * @return a List<Transport> representing the path from start to end, or
+     * empty if there is none
+     */
+    @Override
+    public List<Transport> getPath(ICompactGraph graph, int start, int end) {
+        if (start == end) {
+            return new ArrayList<Transport>();
+        }
+        int[] hops = this.sweep(graph, start, end);
+        if (hops[end] < 0) {
+            return new ArrayList<Transport>();
+        }
+        ArrayList<Transport> path = new ArrayList<Transport>(hops[end]);
+        for (int v = end; v != start; ) {
+            int last = graph.getInEdgeEnd(v);
+            for (int s = graph.getInEdgeStart(v); s < last; s++) {
+                int e = graph.getInEdge(s);
+                int source = graph.getEdgeSourceId(e);
+                if (hops[source] == hops[v] - 1) {
+                    path.add(graph.getEdge(e));
+                    v = source;
+                    break;
+                }
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * gets the fewest edges needed to get from start to every vertex
+     *
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @return the hop count of each vertex id, -1 where it cannot be reached
+     */
+    @Override
+    public int[] getHopDistances(ICompactGraph graph, int start) {
+        return this.sweep(graph, start, -1);
+    }
+
+    /**
+     * expands levels until end is reached or every city that can be reached
+     * has been
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @param end the end vertex id, or -1 to reach every city
+     * @return the hop count of each vertex id, -1 where it was not reached
+     */
+    private int[] sweep(ICompactGraph graph, int start, int end) {
+        int n = graph.getVertexCount();
+        int[] hops = new int[n];
+        Arrays.fill(hops, -1);
+        AtomicLongArray reached = new AtomicLongArray((n + 63) >>> 6);
+        claim(reached, start);
+        hops[start] = 0;
+
+        int[] frontier = {start};
+        int level = 0;
+        while (frontier.length > 0 && (end < 0 || hops[end] < 0)) {
+            level++;
+            Expand task = new Expand(graph, frontier, 0, frontier.length,
+                    reached, hops, level);
+            frontier = frontier.length <= GRAIN ? task.compute()
+                    : this.pool.invoke(task);
+        }
+        return hops;
+    }
+
+    /**
+     * marks a vertex as reached
+     * @param reached the shared bitmap of reached vertices
+     * @param v the vertex id
+     * @return true if this call reached v first
+     */
+    private static boolean claim(AtomicLongArray reached, int v) {
+        int word = v >>> 6;
+        long bit = 1L << v;
+        long seen = reached.get(word);
+        while ((seen & bit) == 0) {
+            if (reached.compareAndSet(word, seen, seen | bit)) {
+                return true;
+            }
+            seen = reached.get(word);
+        }
+        return false;
+    }
+
+    /**
+     * A task that expands the slice [lo, hi) of a frontier and returns the
+     * vertices it claimed for the next level.
+     */
+    private static class Expand extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private ICompactGraph graph;
+        private int[] frontier;
+        private int lo;
+        private int hi;
+        private AtomicLongArray reached;
+        private int[] hops;
+        private int level;
+
+        Expand(ICompactGraph graph, int[] frontier, int lo, int hi,
+               AtomicLongArray reached, int[] hops, int level) {
+            this.graph = graph;
+            this.frontier = frontier;
+            this.lo = lo;
+            this.hi = hi;
+            this.reached = reached;
+            this.hops = hops;
+            this.level = level;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (this.hi - this.lo > GRAIN) {
+                int mid = (this.lo + this.hi) >>> 1;
+                Expand left = new Expand(this.graph, this.frontier, this.lo,
+                        mid, this.reached, this.hops, this.level);
+                Expand right = new Expand(this.graph, this.frontier, mid,
+                        this.hi, this.reached, this.hops, this.level);
+                left.fork();
+                int[] rightNext = right.compute();
+                int[] leftNext = left.join();
+                int[] next = Arrays.copyOf(leftNext,
+                        leftNext.length + rightNext.length);
+                System.arraycopy(rightNext, 0, next, leftNext.length,
+                        rightNext.length);
+                return next;
+            }
+            int[] next = new int[16];
+            int size = 0;
+            for (int i = this.lo; i < this.hi; i++) {
+                int checking = this.frontier[i];
+                int last = this.graph.getEdgeEnd(checking);
+                for (int e = this.graph.getEdgeStart(checking); e < last;
+                     e++) {
+                    int target = this.graph.getEdgeTargetId(e);
+                    if (!claim(this.reached, target)) {
+                        continue;
+                    }
+                    // only the claiming worker writes hops[target], and the
+                    // join publishes it to the thread that reads it
+                    this.hops[target] = this.level;
+                    if (size == next.length) {
+                        next = Arrays.copyOf(next, size * 2);
+                    }
+                    next[size++] = target;
+                }
+            }
+            return Arrays.copyOf(next, size);
+        }
+    }
+}
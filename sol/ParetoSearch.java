@@ -0,0 +1,113 @@
+package sol;
+
+import src.ICompactGraph;
+import src.Transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ParetoSearch class finds every route between two cities that is not
+ * beaten on minutes, price and number of legs all at once by another route.
+ * It is a label-setting search: a label is one way of reaching a city with
+ * its three totals, each city keeps the labels no other label there
+ * dominates, and labels are expanded in order of minutes + price + legs so
+ * that a label is never dominated by one expanded after it. Labels that a
+ * route already found to the destination dominates are dropped, and each city
+ * keeps at most a fixed number of labels so the search stays bounded. The
+ * labels are kept in the calling thread's LabelStore, with minutes and price
+ * as its two totals.
+ */
+public class ParetoSearch {
+
+    public static final int DEFAULT_MAX_LABELS = 32;
+
+    private int maxLabels;
+
+    /**
+     * constructs a ParetoSearch
+     * @param maxLabelsPerCity the most labels any city keeps
+     */
+    public ParetoSearch(int maxLabelsPerCity) {
+        if (maxLabelsPerCity < 1) {
+            throw new IllegalArgumentException("A city must keep at least "
+                    + "one label.");
+        }
+        this.maxLabels = maxLabelsPerCity;
+    }
+
+    /**
+     * gets the Pareto-optimal paths from source to destination over
+     * (minutes, price, legs)
+     *
+     * @param graph       the graph to search
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @return the paths, fastest first, or empty if destination is source or
+     * cannot be reached
+     */
+    public List<List<Transport>> getParetoPaths(ICompactGraph graph,
+                                                int source,
+                                                int destination) {
+        List<List<Transport>> paths = new ArrayList<List<Transport>>();
+        if (source == destination) {
+            return paths;
+        }
+        LabelStore labels = LabelStore.get(graph.getVertexCount());
+        IndexedHeap toCheckQueue = labels.getHeap();
+
+        int start = labels.add(source, 0.0, 0.0, 0, -1, -1);
+        toCheckQueue.insert(start, 0.0);
+        while (!toCheckQueue.isEmpty()) {
+            int label = toCheckQueue.pop();
+            int v = labels.getVertex(label);
+            if (labels.isDead(label) || v == destination) {
+                continue;
+            }
+            int end = graph.getEdgeEnd(v);
+            for (int e = graph.getEdgeStart(v); e < end; e++) {
+                int u = graph.getEdgeTargetId(e);
+                double m = labels.getFirst(label) + graph.getMinutes(e);
+                double p = labels.getSecond(label) + graph.getPrice(e);
+                int l = labels.getLegs(label) + 1;
+                if (labels.isDominated(destination, m, p, l)
+                        || labels.isDominated(u, m, p, l)) {
+                    continue;
+                }
+                labels.removeDominated(u, m, p, l);
+                if (labels.getBagSize(u) == this.maxLabels) {
+                    continue;
+                }
+                int added = labels.add(u, m, p, l, label, e);
+                toCheckQueue.insert(added, m + p + l);
+            }
+        }
+
+        int[] results = labels.copyBag(destination);
+        // sort the labels at destination fastest first, then cheapest
+        for (int i = 1; i < results.length; i++) {
+            int key = results[i];
+            int j = i - 1;
+            while (j >= 0 && (labels.getFirst(results[j])
+                    > labels.getFirst(key)
+                    || labels.getFirst(results[j]) == labels.getFirst(key)
+                    && labels.getSecond(results[j])
+                    > labels.getSecond(key))) {
+                results[j + 1] = results[j];
+                j--;
+            }
+            results[j + 1] = key;
+        }
+        for (int label : results) {
+            Transport[] path = new Transport[labels.getLegs(label)];
+            for (int at = label; labels.getParent(at) >= 0;
+                 at = labels.getParent(at)) {
+                path[labels.getLegs(at) - 1] = graph.getEdge(
+                        labels.getEdge(at));
+            }
+            paths.add(new ArrayList<Transport>(Arrays.asList(path)));
+        }
+        return paths;
+    }
+}
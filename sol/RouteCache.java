@@ -0,0 +1,238 @@
+package sol;
+
+import src.ICompactGraph;
+import src.Transport;
+import src.Weighting;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * The RouteCache class remembers the paths of recent queries, keyed by the
+ * graph they were searched on, source id, destination id and the Weighting
+ * they were searched with, where a null Weighting stands for the fewest legs.
+ * Keying by graph means a query on a newly loaded graph never sees a path
+ * from the old one, even before the cache is cleared. It holds about a fixed
+ * number of paths in a ConcurrentHashMap, so lookups from many threads never
+ * wait on one another, and evicts approximately the least recently used ones
+ * to make room. Each entry is stamped with a clock that only insertions
+ * advance, a hit stamping its entry just past the newest insertion without
+ * writing the clock, so hits between two insertions tie. Once the map holds
+ * more than the capacity, one thread at a time drops the entries with the
+ * oldest stamps, a sixteenth of the capacity beyond the excess so the scan is
+ * rare. Paths are computed outside of any lock, so a slow search never holds
+ * up other threads. Two threads that miss on the same key at once both
+ * search and the later one's result is kept, and a path whose search began
+ * before the last clear is never kept. Paths are stored as unmodifiable lists
+ * so no caller can change what another caller will be handed.
+ */
+public class RouteCache {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int EVICT_FRACTION = 16;
+
+    private int capacity;
+    private ConcurrentHashMap<Key, Entry> paths;
+    private AtomicLong clock;
+    private ReentrantLock evicting;
+    private LongAdder hits;
+    private LongAdder misses;
+    private AtomicLong generation;
+
+    /**
+     * constructs a RouteCache
+     * @param capacity the most paths the cache holds, 0 to hold none
+     */
+    public RouteCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        this.capacity = capacity;
+        this.paths = new ConcurrentHashMap<Key, Entry>();
+        this.clock = new AtomicLong();
+        this.generation = new AtomicLong();
+        this.evicting = new ReentrantLock();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * gets the cached path of a query, computing and caching it on a miss
+     * @param graph the graph the path is searched on
+     * @param source the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting the Weighting the path was searched with, or null for
+     *                  the fewest legs
+     * @param search computes the path when it is not cached
+     * @return an unmodifiable copy of the path
+     */
+    public List<Transport> get(ICompactGraph graph, int source,
+                               int destination, Weighting weighting,
+                               Supplier<List<Transport>> search) {
+        Key key = new Key(graph, source, destination, weighting);
+        long searchedIn = this.generation.get();
+        Entry entry = this.paths.get(key);
+        if (entry != null) {
+            this.hits.increment();
+            long now = this.clock.get() + 1;
+            if (entry.lastUsed != now) {
+                entry.lastUsed = now;
+            }
+            return entry.path;
+        }
+        this.misses.increment();
+        List<Transport> path = List.copyOf(search.get());
+        if (this.capacity > 0 && searchedIn == this.generation.get()) {
+            entry = new Entry(path, this.clock.addAndGet(2));
+            this.paths.put(key, entry);
+            // a path searched before the last clear may be from the old graph
+            if (searchedIn != this.generation.get()) {
+                this.paths.remove(key, entry);
+            } else if (this.paths.size() > this.capacity) {
+                this.evict();
+            }
+        }
+        return path;
+    }
+
+    /**
+     * drops every cached path, for when the graph they were found on is
+     * replaced. The hit and miss counts are kept.
+     */
+    public void clear() {
+        this.generation.incrementAndGet();
+        this.paths.clear();
+    }
+
+    /**
+     * gets how many paths are cached
+     * @return the number of cached paths
+     */
+    public int size() {
+        return this.paths.size();
+    }
+
+    /**
+     * gets the most paths the cache holds
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * gets how many queries were answered from the cache
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * gets how many queries had to be searched
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * drops the entries with the oldest stamps until the cache is a
+     * sixteenth of its capacity under it, unless another thread already is
+     */
+    private void evict() {
+        if (!this.evicting.tryLock()) {
+            return;
+        }
+        try {
+            int excess = this.paths.size() - this.capacity;
+            if (excess <= 0) {
+                return;
+            }
+            int count = excess + this.capacity / EVICT_FRACTION;
+            long[] stamps = new long[this.paths.size() + EVICT_FRACTION];
+            int size = 0;
+            for (Entry entry : this.paths.values()) {
+                if (size == stamps.length) {
+                    break;
+                }
+                stamps[size++] = entry.lastUsed;
+            }
+            if (size == 0) {
+                return;
+            }
+            Arrays.sort(stamps, 0, size);
+            long oldest = stamps[Math.min(count, size) - 1];
+            Iterator<Entry> entries = this.paths.values().iterator();
+            while (count > 0 && entries.hasNext()) {
+                if (entries.next().lastUsed <= oldest) {
+                    entries.remove();
+                    count--;
+                }
+            }
+        } finally {
+            this.evicting.unlock();
+        }
+    }
+
+    /**
+     * A cached path and when it was last used.
+     */
+    private static final class Entry {
+
+        private final List<Transport> path;
+        private volatile long lastUsed;
+
+        Entry(List<Transport> path, long lastUsed) {
+            this.path = path;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * A query: the graph, the source, the destination, and what the path
+     * minimizes.
+     */
+    private static final class Key {
+
+        private ICompactGraph graph;
+        private int source;
+        private int destination;
+        private Weighting weighting;
+
+        Key(ICompactGraph graph, int source, int destination,
+            Weighting weighting) {
+            this.graph = graph;
+            this.source = source;
+            this.destination = destination;
+            this.weighting = weighting;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return this.graph == other.graph
+                    && this.source == other.source
+                    && this.destination == other.destination
+                    && Objects.equals(this.weighting, other.weighting);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((System.identityHashCode(this.graph) * 31
+                    + this.source) * 31 + this.destination) * 31
+                    + Objects.hashCode(this.weighting);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package sol;
+
+import src.ICompactGraph;
+import src.IRouteMatrix;
+import src.Transport;
+import src.Weighting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The RouteMatrix class implements the IRouteMatrix interface. It runs one
+ * Dijkstra search per source, in parallel across sources, and each search
+ * stops as soon as every destination has been settled. Each search runs in
+ * the calling thread's SearchWorkspace, its FORWARD slot holding the search
+ * and its BACKWARD slot marking the destinations, so a thread reuses the
+ * same arrays for every source it is dealt. When paths are kept, each row
+ * only stores the edges of its paths to the destinations, not the parent
+ * edge of every city, and the Transports are only made when a path is asked
+ * for.
+ */
+public class RouteMatrix implements IRouteMatrix<Transport> {
+
+    private ICompactGraph graph;
+    private int[] sources;
+    private int[] destinations;
+    private double[][] costs;
+    // per row, the edges of the path to column j are
+    // pathEdges[row][pathOffsets[row][j] .. pathOffsets[row][j + 1])
+    private int[][] pathOffsets;
+    private int[][] pathEdges;
+
+    /**
+     * constructs a RouteMatrix, running the searches right away
+     * @param graph the graph to search
+     * @param sources the source vertex ids, one row each
+     * @param destinations the destination vertex ids, one column each
+     * @param weighting how each edge is weighted
+     * @param keepPaths whether to keep what is needed to rebuild paths
+     */
+    public RouteMatrix(ICompactGraph graph, int[] sources, int[] destinations,
+                       Weighting weighting, boolean keepPaths) {
+        this.graph = graph;
+        this.sources = sources.clone();
+        this.destinations = destinations.clone();
+        this.costs = new double[sources.length][];
+        if (keepPaths) {
+            this.pathOffsets = new int[sources.length][];
+            this.pathEdges = new int[sources.length][];
+        }
+
+        IntStream.range(0, sources.length).parallel().forEach(row ->
+                this.search(row, weighting));
+    }
+
+    @Override
+    public double[][] getCosts() {
+        double[][] copy = new double[this.costs.length][];
+        for (int i = 0; i < this.costs.length; i++) {
+            copy[i] = this.costs[i].clone();
+        }
+        return copy;
+    }
+
+    @Override
+    public double getCost(int row, int column) {
+        return this.costs[row][column];
+    }
+
+    @Override
+    public boolean hasPaths() {
+        return this.pathEdges != null;
+    }
+
+    @Override
+    public List<Transport> getPath(int row, int column) {
+        if (this.pathEdges == null) {
+            throw new IllegalStateException("Paths were not kept.");
+        }
+        int start = this.pathOffsets[row][column];
+        int end = this.pathOffsets[row][column + 1];
+        ArrayList<Transport> path = new ArrayList<Transport>(end - start);
+        for (int i = start; i < end; i++) {
+            path.add(this.graph.getEdge(this.pathEdges[row][i]));
+        }
+        return path;
+    }
+
+    /**
+     * fills in one row of the matrix
+     * @param row the index of the source
+     * @param weighting how each edge is weighted
+     */
+    private void search(int row, Weighting weighting) {
+        int n = this.graph.getVertexCount();
+        SearchWorkspace workspace = SearchWorkspace.get(
+                SearchWorkspace.FORWARD, n);
+        SearchWorkspace targets = SearchWorkspace.get(
+                SearchWorkspace.BACKWARD, n);
+        IndexedHeap toCheckQueue = workspace.getHeap();
+        int source = this.sources[row];
+
+        // a destination listed twice is only counted once
+        int remaining = 0;
+        for (int target : this.destinations) {
+            if (!targets.isReached(target)) {
+                targets.reach(target, 0.0, -1);
+                remaining++;
+            }
+        }
+
+        workspace.reach(source, 0.0, -1);
+        toCheckQueue.insert(source, 0.0);
+        while (remaining > 0 && !toCheckQueue.isEmpty()) {
+            int checking = toCheckQueue.pop();
+            if (targets.isReached(checking) && --remaining == 0) {
+                break;
+            }
+            double checkingDist = workspace.getDist(checking);
+            int end = this.graph.getEdgeEnd(checking);
+            for (int e = this.graph.getEdgeStart(checking); e < end; e++) {
+                int neighbor = this.graph.getEdgeTargetId(e);
+                double candidate = checkingDist
+                        + weighting.weight(this.graph, e);
+                if (candidate < workspace.getDist(neighbor)) {
+                    workspace.reach(neighbor, candidate, e);
+                    toCheckQueue.insertOrDecrease(neighbor, candidate);
+                }
+            }
+        }
+
+        double[] costRow = new double[this.destinations.length];
+        for (int j = 0; j < costRow.length; j++) {
+            costRow[j] = workspace.getDist(this.destinations[j]);
+        }
+        this.costs[row] = costRow;
+        if (this.pathEdges != null) {
+            this.keepPaths(row, source, workspace.getParentEdges(), costRow);
+        }
+    }
+
+    /**
+     * stores the edges of the paths a row's search found to its destinations
+     * @param row the index of the source
+     * @param source the source vertex id
+     * @param parentEdge the parent edges of the search, only read for the
+     *                   cities on those paths
+     * @param costRow the costs the search found
+     */
+    private void keepPaths(int row, int source, int[] parentEdge,
+                           double[] costRow) {
+        int[] offsets = new int[this.destinations.length + 1];
+        for (int j = 0; j < costRow.length; j++) {
+            int hops = 0;
+            if (costRow[j] != Double.POSITIVE_INFINITY) {
+                for (int v = this.destinations[j]; v != source;
+                     v = this.graph.getEdgeSourceId(parentEdge[v])) {
+                    hops++;
+                }
+            }
+            offsets[j + 1] = offsets[j] + hops;
+        }
+        int[] edges = new int[offsets[costRow.length]];
+        for (int j = 0; j < costRow.length; j++) {
+            int i = offsets[j + 1];
+            for (int v = this.destinations[j]; i > offsets[j];
+                 v = this.graph.getEdgeSourceId(parentEdge[v])) {
+                edges[--i] = parentEdge[v];
+            }
+        }
+        this.pathOffsets[row] = offsets;
+        this.pathEdges[row] = edges;
+    }
+}
@@ -0,0 +1,14 @@
+package sol;
+
+/**
+ * An enum representing the shortest path engines TravelController can answer
+ * fastestRoute and cheapestRoute with
+ */
+public enum RouteStrategy {
+    DIJKSTRA,
+    SHORTEST_PATH_TREES,
+    BIDIRECTIONAL,
+    ASTAR,
+    LANDMARKS,
+    CONTRACTION
+}
@@ -0,0 +1,151 @@
+package sol;
+
+import java.util.Arrays;
+
+/**
+ * The SearchWorkspace class holds the distance, parent edge, estimate and
+ * queue arrays of one search so that the thread running it can reuse them for
+ * its next search instead of allocating new ones. Every thread keeps a
+ * workspace per slot, a search that grows from both ends using one slot for
+ * each. A slot of a city only counts as written if its stamp equals the
+ * current generation, so starting a search is O(1): it bumps the generation
+ * instead of clearing the arrays. Arrays only grow, when a larger graph is
+ * searched. A search must be done with its workspace before the thread
+ * starts another search in the same slot.
+ */
+final class SearchWorkspace {
+
+    static final int FORWARD = 0;
+    static final int BACKWARD = 1;
+
+    private static final ThreadLocal<SearchWorkspace[]> WORKSPACES =
+            ThreadLocal.withInitial(() -> new SearchWorkspace[] {
+                new SearchWorkspace(), new SearchWorkspace()});
+
+    private int generation;
+    private int[] stamp;
+    private double[] dist;
+    private int[] parentEdge;
+    private double[] estimate;
+    private int[] queue;
+    private IndexedHeap toCheckQueue;
+
+    private SearchWorkspace() {
+        this.stamp = new int[0];
+        this.dist = new double[0];
+        this.parentEdge = new int[0];
+        this.estimate = new double[0];
+        this.queue = new int[0];
+        this.toCheckQueue = new IndexedHeap(16);
+    }
+
+    /**
+     * gets the calling thread's workspace for a slot, ready for a new search
+     * @param slot FORWARD, or BACKWARD for the second end of a search
+     * @param n the number of vertices in the graph being searched
+     * @return the workspace, with no vertex reached and an empty heap
+     */
+    static SearchWorkspace get(int slot, int n) {
+        SearchWorkspace workspace = WORKSPACES.get()[slot];
+        workspace.begin(n);
+        return workspace;
+    }
+
+    /**
+     * forgets the last search
+     * @param n the number of vertices in the graph being searched
+     */
+    private void begin(int n) {
+        if (this.stamp.length < n) {
+            this.stamp = new int[n];
+            this.dist = new double[n];
+            this.parentEdge = new int[n];
+            this.estimate = new double[n];
+            this.queue = new int[n];
+            this.generation = 0;
+        }
+        this.toCheckQueue.clear();
+        this.generation++;
+        if (this.generation == Integer.MAX_VALUE) {
+            // stamps from 2^31 searches ago would look current once the
+            // generation wraps, so clear them instead
+            Arrays.fill(this.stamp, 0);
+            this.generation = 1;
+        }
+    }
+
+    /**
+     * checks if the current search has reached a vertex
+     * @param v the vertex id
+     * @return true if a distance was set for v in this search
+     */
+    boolean isReached(int v) {
+        return this.stamp[v] == this.generation;
+    }
+
+    /**
+     * gets the distance of a vertex in the current search
+     * @param v the vertex id
+     * @return the distance, or infinity if v was not reached
+     */
+    double getDist(int v) {
+        return this.stamp[v] == this.generation ? this.dist[v]
+                : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * records that the current search reached a vertex
+     * @param v the vertex id
+     * @param distance the distance v was reached at
+     * @param edge the edge v was reached by, or -1 for where the search began
+     */
+    void reach(int v, double distance, int edge) {
+        this.stamp[v] = this.generation;
+        this.dist[v] = distance;
+        this.parentEdge[v] = edge;
+    }
+
+    /**
+     * gets the estimate a goal directed search stored for a vertex
+     * @param v the vertex id, reached in the current search
+     * @return the estimate last set for v
+     */
+    double getEstimate(int v) {
+        return this.estimate[v];
+    }
+
+    /**
+     * stores a goal directed search's lower bound on the distance left from
+     * a vertex, so it is only computed the first time the vertex is reached
+     * @param v the vertex id, reached in the current search
+     * @param bound the lower bound
+     */
+    void setEstimate(int v, double bound) {
+        this.estimate[v] = bound;
+    }
+
+    /**
+     * gets the parent edges, only meaningful for reached vertices
+     * @return the array of parent edges indexed by vertex id
+     */
+    int[] getParentEdges() {
+        return this.parentEdge;
+    }
+
+    /**
+     * gets an int array with room for every vertex, for a breadth first
+     * search's queue
+     * @return the array
+     */
+    int[] getQueue() {
+        return this.queue;
+    }
+
+    /**
+     * gets the heap, empty at the start of each search
+     * @return the heap
+     */
+    IndexedHeap getHeap() {
+        return this.toCheckQueue;
+    }
+}
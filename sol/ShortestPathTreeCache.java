@@ -0,0 +1,238 @@
+package sol;
+
+import src.ICompactDijkstra;
+import src.ICompactGraph;
+import src.Transport;
+import src.Weighting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The ShortestPathTreeCache class implements the ICompactDijkstra interface.
+ * It keeps the Dijkstra searches of the most recently asked sources, one per
+ * source and Weighting, with their distance and parent edge arrays and their
+ * queue. A search is only kept for a source that repeats: the first query
+ * from a source is an early exit CompactDijkstra search in the calling
+ * thread's SearchWorkspace, which allocates nothing, and the source is only
+ * remembered among the last few asked. A query from a kept source whose
+ * destination was already settled is answered by reading the path off the
+ * parent edges; otherwise the kept search resumes from where it stopped until
+ * the destination is settled. Once a search has settled every city it can
+ * reach its queue is dropped. At most a fixed number of searches are kept,
+ * the least recently used one is dropped to make room, and getRetainedBytes
+ * reports how much memory the kept ones take.
+ */
+public class ShortestPathTreeCache implements ICompactDijkstra {
+
+    public static final int DEFAULT_TREES = 8;
+
+    private ICompactGraph graph;
+    private int maxTrees;
+    private LinkedHashMap<Key, Tree> trees;
+    private LinkedHashMap<Key, Boolean> seen;
+    private CompactDijkstra firstSearch;
+
+    /**
+     * constructs a ShortestPathTreeCache
+     * @param graph the graph that will be searched
+     * @param maxTrees the most searches to keep
+     */
+    public ShortestPathTreeCache(ICompactGraph graph, int maxTrees) {
+        if (maxTrees < 1) {
+            throw new IllegalArgumentException("At least one tree must be "
+                    + "kept.");
+        }
+        this.graph = graph;
+        this.maxTrees = maxTrees;
+        this.trees = new LinkedHashMap<Key, Tree>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Tree> eldest) {
+                return this.size() > ShortestPathTreeCache.this.maxTrees;
+            }
+        };
+        // sources asked once, a few times as many as there are trees so a
+        // source can come back after others were asked in between
+        this.seen = new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Key, Boolean> eldest) {
+                return this.size() > 4 * ShortestPathTreeCache.this.maxTrees;
+            }
+        };
+        this.firstSearch = new CompactDijkstra();
+    }
+
+    /**
+     * gets the path from source to destination with the lowest total weight
+     *
+     * @param graph       the graph to search, the one this cache was made for
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting   how each edge is weighted
+     * @return a List<Transport> representing the path from source to
+     * destination, or empty if there is none
+     * @throws IllegalArgumentException if graph is not the graph this cache
+     *                                  was made for
+     */
+    @Override
+    public List<Transport> getShortestPath(ICompactGraph graph, int source,
+                                           int destination,
+                                           Weighting weighting) {
+        if (graph != this.graph) {
+            throw new IllegalArgumentException("ShortestPathTreeCache was "
+                    + "made for a different graph.");
+        }
+        if (source == destination) {
+            return new ArrayList<Transport>();
+        }
+        Key key = new Key(source, weighting);
+        Tree tree;
+        synchronized (this) {
+            tree = this.trees.get(key);
+            if (tree == null && this.seen.remove(key) != null) {
+                tree = new Tree(graph.getVertexCount(), source, weighting);
+                this.trees.put(key, tree);
+            } else if (tree == null) {
+                this.seen.put(key, Boolean.TRUE);
+            }
+        }
+        if (tree == null) {
+            return this.firstSearch.getShortestPath(graph, source,
+                    destination, weighting);
+        }
+        // a tree is only grown by one query at a time, but queries on
+        // different trees run at once
+        synchronized (tree) {
+            tree.settle(graph, destination);
+            return CompactDijkstra.extractPath(graph, tree.parentEdge, source,
+                    destination);
+        }
+    }
+
+    /**
+     * gets how many searches are kept
+     * @return the number of kept searches
+     */
+    public synchronized int getTreeCount() {
+        return this.trees.size();
+    }
+
+    /**
+     * gets how much memory the kept searches take
+     * @return the size of their arrays in bytes
+     */
+    public synchronized long getRetainedBytes() {
+        long bytes = 0;
+        for (Tree tree : this.trees.values()) {
+            synchronized (tree) {
+                bytes += tree.bytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * A source and the Weighting its search uses.
+     */
+    private static final class Key {
+
+        private int source;
+        private Weighting weighting;
+
+        Key(int source, Weighting weighting) {
+            this.source = source;
+            this.weighting = weighting;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return this.source == other.source
+                    && this.weighting.equals(other.weighting);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.source, this.weighting);
+        }
+    }
+
+    /**
+     * A Dijkstra search from one source that can be stopped and resumed.
+     */
+    private static class Tree {
+
+        private Weighting weighting;
+        private double[] dist;
+        private int[] parentEdge;
+        private BitSet settled;
+        private IndexedHeap toCheckQueue;
+
+        Tree(int n, int source, Weighting weighting) {
+            this.weighting = weighting;
+            this.dist = new double[n];
+            Arrays.fill(this.dist, Double.POSITIVE_INFINITY);
+            this.parentEdge = new int[n];
+            Arrays.fill(this.parentEdge, -1);
+            this.settled = new BitSet(n);
+            this.toCheckQueue = new IndexedHeap(n);
+            this.dist[source] = 0.0;
+            this.toCheckQueue.insert(source, 0.0);
+        }
+
+        /**
+         * resumes the search until destination is settled or every city
+         * that can be reached has been
+         * @param graph the graph being searched
+         * @param destination the destination vertex id
+         */
+        void settle(ICompactGraph graph, int destination) {
+            if (this.toCheckQueue == null) {
+                return;
+            }
+            while (!this.settled.get(destination)
+                    && !this.toCheckQueue.isEmpty()) {
+                int checking = this.toCheckQueue.pop();
+                this.settled.set(checking);
+                int end = graph.getEdgeEnd(checking);
+                for (int e = graph.getEdgeStart(checking); e < end; e++) {
+                    int neighbor = graph.getEdgeTargetId(e);
+                    double candidate = this.dist[checking]
+                            + this.weighting.weight(graph, e);
+                    if (candidate < this.dist[neighbor]) {
+                        this.dist[neighbor] = candidate;
+                        this.parentEdge[neighbor] = e;
+                        this.toCheckQueue.insertOrDecrease(neighbor,
+                                candidate);
+                    }
+                }
+            }
+            if (this.toCheckQueue.isEmpty()) {
+                this.toCheckQueue = null;
+            }
+        }
+
+        /**
+         * gets how much memory the search takes
+         * @return the size of its arrays in bytes
+         */
+        long bytes() {
+            long n = this.dist.length;
+            long bytes = n * 8 + n * 4 + n / 8;
+            if (this.toCheckQueue != null) {
+                // the heap's slots, positions and keys
+                bytes += n * (4 + 4 + 8);
+            }
+            return bytes;
+        }
+    }
+}
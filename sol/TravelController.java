@@ -1,77 +1,506 @@
 package sol;
 
+import src.CSVRowReader;
 import src.City;
+import src.ICompactBFS;
+import src.ICompactDijkstra;
+import src.ICompactGraph;
+import src.IRouteMatrix;
 import src.ITravelController;
-import src.TravelCSVParser;
 import src.Transport;
 import src.TransportType;
+import src.Weighting;
 
+import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
 
 
 /**
  * The TravelController class implements the ITravelController<City, Transport>
  * interface. The class will calculate the route desired and use those for
- * the output of the model
+ * the output of the model. The loaded graph and the engines built for it are
+ * published together as one immutable Snapshot through a volatile field.
+ * Queries read the field once and never take a lock, so any number of
+ * threads can query while load or a setter builds the next Snapshot off to
+ * the side; loads and setters are serialized with each other.
  */
 public class TravelController implements ITravelController<City, Transport> {
 
-    private TravelGraph graph;
+    private volatile Snapshot snapshot;
+    private volatile ICompactBFS hopRouter;
+    private volatile RouteCache routeCache;
+    private volatile int paretoLabelLimit;
+    private RouteStrategy strategy;
+    private LoadStrategy loadStrategy;
+    private long allPairsBudget;
+    private int treeLimit;
+    private int landmarkCount;
+    private String landmarkFile;
 
     /**
      * makes a TravelController object
      */
     public TravelController() {
+        this.strategy = RouteStrategy.DIJKSTRA;
+        this.loadStrategy = LoadStrategy.STREAMING;
+        this.hopRouter = new CompactBFS();
+        this.routeCache = new RouteCache(RouteCache.DEFAULT_CAPACITY);
+        this.treeLimit = ShortestPathTreeCache.DEFAULT_TREES;
+        this.landmarkCount = LandmarkAStar.DEFAULT_LANDMARKS;
+        this.paretoLabelLimit = ParetoSearch.DEFAULT_MAX_LABELS;
     }
 
     /**
-     * loads data into a IGraph
+     * sets the engine fastestRoute and cheapestRoute are answered with
+     * @param strategy the shortest path engine to use
+     */
+    public synchronized void setRouteStrategy(RouteStrategy strategy) {
+        this.strategy = strategy;
+        this.rebuildRouter();
+    }
+
+    /**
+     * sets the engine mostDirectRoute is answered with
+     * @param strategy the breadth first search engine to use
+     */
+    public void setHopStrategy(HopStrategy strategy) {
+        this.hopRouter = switch (strategy) {
+            case BFS -> new CompactBFS();
+            case BIDIRECTIONAL -> new BidirectionalBFS();
+            case DIRECTION_OPTIMIZING -> new DirectionOptimizingBFS();
+            case PARALLEL -> new ParallelBFS();
+        };
+    }
+
+    /**
+     * sets how load reads the transportation file, either row by row or
+     * memory mapped and parsed in chunks on many threads. Both build the
+     * same graph.
+     * @param strategy the way to read the transportation file
+     */
+    public synchronized void setLoadStrategy(LoadStrategy strategy) {
+        this.loadStrategy = strategy;
+    }
+
+    /**
+     * sets how many bytes of all pairs tables a load may build. When the
+     * tables of the loaded graph fit, fastestRoute, cheapestRoute and
+     * mostDirectRoute read their answers from them instead of searching.
+     * @param bytes the most memory the tables may take, 0 to never build them
+     */
+    public synchronized void setAllPairsBudget(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Budget cannot be negative.");
+        }
+        this.allPairsBudget = bytes;
+        Snapshot current = this.snapshot;
+        if (current != null) {
+            this.snapshot = new Snapshot(current.graph, current.router,
+                    this.createAllPairs(current.graph));
+        }
+    }
+
+    /**
+     * checks if queries are being answered from all pairs tables
+     * @return true if the loaded graph fit the all pairs budget
+     */
+    public boolean hasAllPairsTable() {
+        Snapshot current = this.snapshot;
+        return current != null && current.allPairs != null;
+    }
+
+    /**
+     * replaces the route cache with an empty one
+     * @param capacity the most paths the cache holds, 0 to cache nothing
+     */
+    public void setRouteCacheCapacity(int capacity) {
+        this.routeCache = new RouteCache(capacity);
+    }
+
+    /**
+     * gets the cache fastestRoute, cheapestRoute, mostDirectRoute and
+     * weightedRoute are answered through, for its hit and miss counts
+     * @return the route cache
+     */
+    public RouteCache getRouteCache() {
+        return this.routeCache;
+    }
+
+    /**
+     * sets how many single source searches the SHORTEST_PATH_TREES strategy
+     * keeps, so that later queries from the same source reuse them
+     * @param limit the most searches to keep
+     */
+    public synchronized void setShortestPathTreeLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("At least one tree must be "
+                    + "kept.");
+        }
+        this.treeLimit = limit;
+        if (this.strategy == RouteStrategy.SHORTEST_PATH_TREES) {
+            this.rebuildRouter();
+        }
+    }
+
+    /**
+     * gets how much memory the searches kept by the SHORTEST_PATH_TREES
+     * strategy take
+     * @return the size of their arrays in bytes, 0 for other strategies
+     */
+    public long getRetainedTreeBytes() {
+        Snapshot current = this.snapshot;
+        if (current != null
+                && current.router instanceof ShortestPathTreeCache) {
+            return ((ShortestPathTreeCache) current.router).getRetainedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * configures the landmarks the LANDMARKS strategy picks after each load
+     * @param count how many landmarks to pick
+     * @param file the filename the landmark tables are saved to and reloaded
+     *             from when they match the loaded graph, or null to always
+     *             recompute them
+     * @throws IllegalArgumentException if count is less than 1, in which
+     *                                  case nothing is changed
+     */
+    public synchronized void setLandmarks(int count, String file) {
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one landmark must "
+                    + "be picked.");
+        }
+        this.landmarkCount = count;
+        this.landmarkFile = file;
+        if (this.strategy == RouteStrategy.LANDMARKS) {
+            this.rebuildRouter();
+        }
+    }
+
+    /**
+     * sets how many non-dominated labels each city keeps during paretoRoutes;
+     * more labels can find more tradeoffs at the cost of a longer search
+     * @param limit the most labels per city
+     */
+    public void setParetoLabelLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("A city must keep at least "
+                    + "one label.");
+        }
+        this.paretoLabelLimit = limit;
+    }
+
+    /**
+     * publishes a Snapshot of the loaded graph with an engine for the current
+     * strategy. Only called while holding the lock.
+     */
+    private void rebuildRouter() {
+        Snapshot current = this.snapshot;
+        if (current != null) {
+            this.snapshot = new Snapshot(current.graph,
+                    this.createRouter(current.graph), current.allPairs);
+        }
+    }
+
+    /**
+     * makes the shortest path engine for the current strategy
+     * @param compactGraph the graph the engine will search
+     * @return the engine
+     */
+    private ICompactDijkstra createRouter(ICompactGraph compactGraph) {
+        return switch (this.strategy) {
+            case DIJKSTRA -> new CompactDijkstra();
+            case SHORTEST_PATH_TREES -> new ShortestPathTreeCache(compactGraph,
+                    this.treeLimit);
+            case BIDIRECTIONAL -> new BidirectionalDijkstra();
+            case ASTAR -> new AStar(compactGraph);
+            case LANDMARKS -> this.createLandmarkRouter(compactGraph);
+            case CONTRACTION -> new ContractionHierarchy(compactGraph);
+        };
+    }
+
+    /**
+     * makes the all pairs tables of a graph if they fit the budget
+     * @param compactGraph the graph the tables will answer for
+     * @return the tables, or null if they do not fit
+     */
+    private AllPairsTable createAllPairs(ICompactGraph compactGraph) {
+        if (AllPairsTable.estimateBytes(compactGraph.getVertexCount())
+                > this.allPairsBudget) {
+            return null;
+        }
+        return new AllPairsTable(compactGraph);
+    }
+
+    /**
+     * makes a LandmarkAStar, reusing the saved landmark tables if they were
+     * built for the same graph and saving freshly computed ones. Saving is
+     * best effort, a file that cannot be written only costs the next restart
+     * a recomputation.
+     * @param compactGraph the graph the engine will search
+     * @return the engine
+     */
+    private LandmarkAStar createLandmarkRouter(ICompactGraph compactGraph) {
+        if (this.landmarkFile != null) {
+            try {
+                LandmarkAStar saved =
+                        LandmarkAStar.load(compactGraph, this.landmarkFile);
+                if (saved.getLandmarks().length
+                        == Math.min(this.landmarkCount,
+                        compactGraph.getVertexCount())) {
+                    return saved;
+                }
+            } catch (IOException e) {
+                // missing or stale tables are recomputed below
+            }
+        }
+        LandmarkAStar landmarks =
+                new LandmarkAStar(compactGraph, this.landmarkCount);
+        if (this.landmarkFile != null) {
+            try {
+                landmarks.save(this.landmarkFile);
+            } catch (IOException e) {
+                // the tables still work, they just are not persisted
+            }
+        }
+        return landmarks;
+    }
+
+    /**
+     * streams the rows of both files into a CompactGraphBuilder and builds
+     * the CompactTravelGraph that the queries run on. Column indices are
+     * looked up once per file and numbers are parsed straight from the read
+     * buffer, so no Map, City or Transport is made per row. With the MAPPED
+     * load strategy the transportation file is parsed in parallel chunks.
+     * Queries keep running on the previously loaded graph until the new one
+     * and its engines are ready, and it is kept if either file fails to
+     * parse.
      * @param citiesFile    the filename of the cities csv
      * @param transportFile the filename of the transportations csv
      * @return String relaying if method was successful
      */
     @Override
     public String load(String citiesFile, String transportFile) {
-        this.graph = new TravelGraph();
-        TravelCSVParser parser = new TravelCSVParser();
+        CompactGraphBuilder builder = new CompactGraphBuilder();
 
-        Function<Map<String, String>, Void> addVertex = map -> {
-            this.graph.addVertex(new City(map.get("name")));
-            return null;
-        };
+        try (CSVRowReader rows = new CSVRowReader(
+                new FileReader(citiesFile, StandardCharsets.UTF_8))) {
+            int name = rows.requireColumn("name");
+            int latitude = rows.getColumn("latitude");
+            int longitude = rows.getColumn("longitude");
+            while (rows.next()) {
+                builder.addCity(rows.getString(name),
+                        rows.getOptionalDouble(latitude),
+                        rows.getOptionalDouble(longitude));
+            }
+        } catch (IOException e) {
+            return "Error parsing file: " + citiesFile;
+        }
 
         try {
-            // pass in string for CSV and function to create City (vertex) using city name
-            parser.parseLocations(citiesFile, addVertex);
+            LoadStrategy reading;
+            synchronized (this) {
+                reading = this.loadStrategy;
+            }
+            if (reading == LoadStrategy.MAPPED) {
+                new MappedTransportLoader().load(transportFile, builder);
+            } else {
+                loadTransportation(transportFile, builder);
+            }
         } catch (IOException e) {
-            return "Error parsing file: " + citiesFile;
+            return "Error parsing file: " + transportFile;
         }
 
-        Function<Map<String, String>, Void> addEdge = map -> {
-            this.graph.addEdge(this.graph.getCity(map.get("origin")),
-                    new Transport(
-                            this.graph.getCity(map.get("origin")),
-                            this.graph.getCity(map.get("destination")),
-                            TransportType.fromString(map.get("type")),
-                            Double.parseDouble(map.get("price")),
-                            Double.parseDouble(map.get("duration")))
-            );
-            return null;
-        };
+        this.publish(builder.build());
+        return "Successfully loaded cities and transportation files.";
+    }
+
+    /**
+     * loads a graph written by saveSnapshot, which is much faster than
+     * parsing the csv files it was loaded from. Queries keep running on the
+     * previously loaded graph until the new one and its engines are ready,
+     * and it is kept if the snapshot cannot be read.
+     * @param snapshotFile the filename of the snapshot
+     * @return String relaying if method was successful
+     */
+    @Override
+    public String loadSnapshot(String snapshotFile) {
+        ICompactGraph compactGraph;
+        try {
+            compactGraph = GraphSnapshot.read(snapshotFile);
+        } catch (IOException e) {
+            return "Error reading file: " + snapshotFile;
+        }
+        this.publish(compactGraph);
+        return "Successfully loaded snapshot.";
+    }
+
+    /**
+     * memory maps a graph written by saveSnapshot instead of reading it onto
+     * the heap, so its edges take no heap space and every process mapping
+     * the same file shares one copy of it. Queries keep running on the
+     * previously loaded graph until the new one and its engines are ready,
+     * and it is kept if the snapshot cannot be mapped.
+     * @param snapshotFile the filename of the snapshot
+     * @return String relaying if method was successful
+     */
+    public String mapSnapshot(String snapshotFile) {
+        MappedTravelGraph mappedGraph;
+        try {
+            mappedGraph = new MappedTravelGraph(snapshotFile);
+        } catch (IOException e) {
+            return "Error reading file: " + snapshotFile;
+        }
+        this.publish(mappedGraph);
+        return "Successfully mapped snapshot.";
+    }
 
+    /**
+     * writes the loaded graph to a snapshot file for loadSnapshot. A graph
+     * mapped by mapSnapshot is never saved over the file it is mapped from,
+     * which it already is.
+     * @param snapshotFile the filename to write to
+     * @return String relaying if method was successful
+     */
+    @Override
+    public String saveSnapshot(String snapshotFile) {
+        ICompactGraph compactGraph = this.getGraph();
+        if (compactGraph == null) {
+            return "Nothing has been loaded.";
+        }
+        try {
+            if (compactGraph instanceof MappedTravelGraph) {
+                Path target = Paths.get(snapshotFile);
+                if (Files.exists(target) && Files.isSameFile(target,
+                        ((MappedTravelGraph) compactGraph)
+                                .getSnapshotFile())) {
+                    return "Cannot save over the mapped snapshot: "
+                            + snapshotFile;
+                }
+            }
+            GraphSnapshot.write(compactGraph, snapshotFile);
+        } catch (IOException e) {
+            return "Error writing file: " + snapshotFile;
+        }
+        return "Successfully saved snapshot.";
+    }
 
+    /**
+     * applies a batch of changes to the loaded graph. The changed graph is
+     * built next to the current one, which queries keep running on until
+     * the changed graph and its engines are published together, so no query
+     * sees part of a batch. An engine that keeps nothing about the graph,
+     * DIJKSTRA or BIDIRECTIONAL, carries over to the changed graph as it is,
+     * as does the hop engine. The others are rebuilt, since what they
+     * precompute depends on the weights and layout the batch changed:
+     * A* bounds and an empty tree cache cost one pass over the edges, but
+     * landmarks, contraction hierarchies and all pairs tables cost a full
+     * preprocessing, so changes that arrive together are best applied as one
+     * batch. A mapped graph is copied onto the heap by its first update, see
+     * GraphUpdate.
+     * @param update the changes
+     * @return String relaying if method was successful
+     * @throws IllegalArgumentException if a change names a city or transport
+     *                                  that is not in the graph, in which
+     *                                  case the graph is left as it was
+     */
+    public String update(GraphUpdate update) {
+        // holding the lock keeps two updates from both changing the same
+        // graph and one of them being lost
+        synchronized (this) {
+            Snapshot current = this.snapshot;
+            if (current == null) {
+                return "Nothing has been loaded.";
+            }
+            ICompactGraph changed = update.applyTo(current.graph);
+            boolean keepsRouter = current.router instanceof CompactDijkstra
+                    || current.router instanceof BidirectionalDijkstra;
+            this.publish(changed, keepsRouter ? current.router
+                    : this.createRouter(changed));
+        }
+        return "Successfully applied " + update.size() + " changes.";
+    }
 
+    /**
+     * applies the changes in a delta csv to the loaded graph, see
+     * GraphUpdate.read for its columns
+     * @param deltaFile the filename of the delta csv
+     * @return String relaying if method was successful
+     */
+    @Override
+    public String applyDelta(String deltaFile) {
+        GraphUpdate update;
         try {
-            // pass in string for CSV and function to create City (vertex) using city name
-            parser.parseTransportation(transportFile, addEdge);
+            update = GraphUpdate.read(deltaFile);
         } catch (IOException e) {
-            return "Error parsing file: " + transportFile;
+            return "Error parsing file: " + deltaFile;
         }
+        return this.update(update);
+    }
 
-        return "Successfully loaded cities and transportation files.";
+    /**
+     * publishes a Snapshot of a newly loaded graph and drops the cached
+     * routes of the previous one
+     * @param compactGraph the graph
+     */
+    private void publish(ICompactGraph compactGraph) {
+        synchronized (this) {
+            this.publish(compactGraph, this.createRouter(compactGraph));
+        }
+    }
+
+    /**
+     * publishes a Snapshot of a newly loaded graph with a router already
+     * made for it and drops the cached routes of the previous one
+     * @param compactGraph the graph
+     * @param router the shortest path engine for compactGraph
+     */
+    private void publish(ICompactGraph compactGraph,
+                         ICompactDijkstra router) {
+        synchronized (this) {
+            this.snapshot = new Snapshot(compactGraph, router,
+                    this.createAllPairs(compactGraph));
+        }
+        this.routeCache.clear();
+    }
+
+    /**
+     * streams the rows of a transportation file into a builder
+     * @param transportFile the filename of the transportations csv
+     * @param builder the builder holding every city the file names
+     * @throws IOException if the file cannot be read or lacks a column
+     */
+    private static void loadTransportation(String transportFile,
+                                           CompactGraphBuilder builder)
+            throws IOException {
+        try (CSVRowReader rows = new CSVRowReader(
+                new FileReader(transportFile, StandardCharsets.UTF_8))) {
+            int origin = rows.requireColumn("origin");
+            int destination = rows.requireColumn("destination");
+            int type = rows.requireColumn("type");
+            int price = rows.requireColumn("price");
+            int duration = rows.requireColumn("duration");
+            while (rows.next()) {
+                builder.addEdge(builder.getCityId(rows.getField(origin)),
+                        builder.getCityId(rows.getField(destination)),
+                        TransportType.parse(rows.getField(type)),
+                        rows.getDouble(price), rows.getDouble(duration));
+            }
+        }
+    }
+
+    /**
+     * gets the graph built by the last successful load
+     * @return the frozen graph, or null if nothing has been loaded
+     */
+    public ICompactGraph getGraph() {
+        Snapshot current = this.snapshot;
+        return current == null ? null : current.graph;
     }
 
     /**
@@ -84,12 +513,11 @@ public class TravelController implements ITravelController<City, Transport> {
      */
     @Override
     public List<Transport> fastestRoute(String source, String destination) {
-        Function<Transport, Double> getEdgeWeight = t -> {
-            return t.getMinutes();
-        };
-        Dijkstra<City, Transport> dijkstra = new Dijkstra<City, Transport>();
-        return dijkstra.getShortestPath(this.graph, this.graph.getCity(source),
-                this.graph.getCity(destination), getEdgeWeight);
+        Snapshot current = this.snapshot;
+        ICompactDijkstra engine =
+                current.allPairs != null ? current.allPairs : current.router;
+        return this.cachedRoute(current.graph, source, destination,
+                Weighting.MINUTES, engine);
     }
 
     /**
@@ -102,12 +530,11 @@ public class TravelController implements ITravelController<City, Transport> {
      */
     @Override
     public List<Transport> cheapestRoute(String source, String destination) {
-        Function<Transport, Double> getEdgeWeight = t -> {
-            return t.getPrice();
-        };
-        Dijkstra<City, Transport> dijkstra = new Dijkstra<City, Transport>();
-        return dijkstra.getShortestPath(this.graph, this.graph.getCity(source),
-                this.graph.getCity(destination), getEdgeWeight);
+        Snapshot current = this.snapshot;
+        ICompactDijkstra engine =
+                current.allPairs != null ? current.allPairs : current.router;
+        return this.cachedRoute(current.graph, source, destination,
+                Weighting.PRICE, engine);
     }
 
     /**
@@ -120,8 +547,177 @@ public class TravelController implements ITravelController<City, Transport> {
      */
     @Override
     public List<Transport> mostDirectRoute(String source, String destination) {
-        BFS<City, Transport> bfs = new BFS<City, Transport>();
-        return bfs.getPath(this.graph, this.graph.getCity(source),
-                this.graph.getCity(destination));
+        Snapshot current = this.snapshot;
+        ICompactBFS engine =
+                current.allPairs != null ? current.allPairs : this.hopRouter;
+        ICompactGraph searched = current.graph;
+        int s = searched.getVertexId(source);
+        int d = searched.getVertexId(destination);
+        return this.routeCache.get(searched, s, d, null,
+                () -> engine.getPath(searched, s, d));
+    }
+
+    /**
+     * finds the lowest weight route through the route cache
+     * @param searched    the graph to search
+     * @param source      the name of the source city
+     * @param destination the name of the destination city
+     * @param weighting   how each edge is weighted
+     * @param engine      the engine to search with on a cache miss
+     * @return an unmodifiable list of the edges from source to destination
+     */
+    private List<Transport> cachedRoute(ICompactGraph searched,
+                                        String source, String destination,
+                                        Weighting weighting,
+                                        ICompactDijkstra engine) {
+        int s = searched.getVertexId(source);
+        int d = searched.getVertexId(destination);
+        return this.routeCache.get(searched, s, d, weighting,
+                () -> engine.getShortestPath(searched, s, d, weighting));
+    }
+
+    /**
+     * calculates the fastest Route from the source to the destination that
+     * costs at most maxPrice
+     * @param source      the name of the source city
+     * @param destination the name of the destination city
+     * @param maxPrice    the budget
+     * @return the list representing the fastest edges within the budget
+     */
+    @Override
+    public List<Transport> fastestRouteWithinBudget(String source,
+                                                    String destination,
+                                                    double maxPrice) {
+        ICompactGraph searched = this.snapshot.graph;
+        ConstrainedDijkstra search = new ConstrainedDijkstra();
+        return search.getShortestPath(searched,
+                searched.getVertexId(source),
+                searched.getVertexId(destination), Weighting.MINUTES,
+                Weighting.PRICE, maxPrice);
+    }
+
+    /**
+     * calculates the cheapest Route from the source to the destination that
+     * takes at most maxMinutes
+     * @param source      the name of the source city
+     * @param destination the name of the destination city
+     * @param maxMinutes  the time limit
+     * @return the list representing the cheapest edges within the time limit
+     */
+    @Override
+    public List<Transport> cheapestRouteWithinTime(String source,
+                                                   String destination,
+                                                   double maxMinutes) {
+        ICompactGraph searched = this.snapshot.graph;
+        ConstrainedDijkstra search = new ConstrainedDijkstra();
+        return search.getShortestPath(searched,
+                searched.getVertexId(source),
+                searched.getVertexId(destination), Weighting.PRICE,
+                Weighting.MINUTES, maxMinutes);
+    }
+
+    /**
+     * calculates the Route from the source to the destination with the lowest
+     * minutesWeight * minutes + priceWeight * price
+     * @param source        the name of the source city
+     * @param destination   the name of the destination city
+     * @param minutesWeight how much each minute costs
+     * @param priceWeight   how much each dollar costs
+     * @return the list representing the edges with the lowest blended cost
+     * @throws IllegalArgumentException if a weight is negative or both are 0
+     */
+    @Override
+    public List<Transport> weightedRoute(String source, String destination,
+                                         double minutesWeight,
+                                         double priceWeight) {
+        Snapshot current = this.snapshot;
+        return this.cachedRoute(current.graph, source, destination,
+                Weighting.of(minutesWeight, priceWeight), current.router);
+    }
+
+    /**
+     * calculates the routes from the source to the destination that no other
+     * route beats on minutes, price and number of legs all at once
+     * @param source      the name of the source city
+     * @param destination the name of the destination city
+     * @return the Pareto-optimal routes, fastest first
+     */
+    @Override
+    public List<List<Transport>> paretoRoutes(String source,
+                                              String destination) {
+        ICompactGraph searched = this.snapshot.graph;
+        ParetoSearch search = new ParetoSearch(this.paretoLabelLimit);
+        return search.getParetoPaths(searched,
+                searched.getVertexId(source),
+                searched.getVertexId(destination));
+    }
+
+    /**
+     * calculates the fastest routes from every source to every destination
+     * @param sources      the names of the source cities
+     * @param destinations the names of the destination cities
+     * @param keepPaths    whether the routes themselves should be kept
+     * @return the minutes from each source to each destination
+     */
+    @Override
+    public IRouteMatrix<Transport> fastestMatrix(List<String> sources,
+                                                 List<String> destinations,
+                                                 boolean keepPaths) {
+        ICompactGraph searched = this.snapshot.graph;
+        return new RouteMatrix(searched, getVertexIds(searched, sources),
+                getVertexIds(searched, destinations), Weighting.MINUTES,
+                keepPaths);
+    }
+
+    /**
+     * calculates the cheapest routes from every source to every destination
+     * @param sources      the names of the source cities
+     * @param destinations the names of the destination cities
+     * @param keepPaths    whether the routes themselves should be kept
+     * @return the prices from each source to each destination
+     */
+    @Override
+    public IRouteMatrix<Transport> cheapestMatrix(List<String> sources,
+                                                  List<String> destinations,
+                                                  boolean keepPaths) {
+        ICompactGraph searched = this.snapshot.graph;
+        return new RouteMatrix(searched, getVertexIds(searched, sources),
+                getVertexIds(searched, destinations), Weighting.PRICE,
+                keepPaths);
+    }
+
+    /**
+     * gets the vertex id of each of the inputted city names
+     * @param searched the graph the names are looked up in
+     * @param names the names of the cities
+     * @return the ids, in the same order
+     * @throws IllegalArgumentException if a name is not a City in the graph
+     */
+    private static int[] getVertexIds(ICompactGraph searched,
+                                      List<String> names) {
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = searched.getVertexId(names.get(i));
+        }
+        return ids;
+    }
+
+    /**
+     * A loaded graph together with the engines built for it. Its fields never
+     * change, so a query that read it once sees a consistent graph and
+     * engines however many loads happen meanwhile.
+     */
+    private static final class Snapshot {
+
+        private final ICompactGraph graph;
+        private final ICompactDijkstra router;
+        private final AllPairsTable allPairs;
+
+        Snapshot(ICompactGraph graph, ICompactDijkstra router,
+                 AllPairsTable allPairs) {
+            this.graph = graph;
+            this.router = router;
+            this.allPairs = allPairs;
+        }
     }
 }
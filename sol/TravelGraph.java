@@ -4,9 +4,9 @@ import src.City;
 import src.IGraph;
 import src.Transport;
 
-import java.util.HashSet;
 import java.util.Set;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 
 /**
  * The TravelGraph class implements IGraph<City, Transport> interface. It is
@@ -15,13 +15,13 @@ import java.util.HashMap;
  */
 public class TravelGraph implements IGraph<City, Transport> {
 
-    private HashMap<String, City> cities;
+    private LinkedHashMap<String, City> cities;
 
     /**
      * constructs a TravelGraph object
      */
     public TravelGraph() {
-        this.cities = new HashMap<String, City>();
+        this.cities = new LinkedHashMap<String, City>();
     }
 
     /**
@@ -34,13 +34,15 @@ public class TravelGraph implements IGraph<City, Transport> {
     }
 
     /**
-     * adds an edge (transport) to the graph (cities)
+     * adds an edge (transport) to the graph (cities), indexing it as
+     * outgoing from its origin and incoming to its target
      * @param origin the origin of the edge.
      * @param edge the edge to be added
      */
     @Override
     public void addEdge(City origin, Transport edge) {
         this.cities.get(origin.toString()).addOut(edge);
+        edge.getTarget().addIn(edge);
     }
 
     /**
@@ -49,7 +51,7 @@ public class TravelGraph implements IGraph<City, Transport> {
      */
     @Override
     public Set<City> getVertices() {
-        HashSet<City> c = new HashSet<City>();
+        LinkedHashSet<City> c = new LinkedHashSet<City>();
         for (String s : this.cities.keySet()) {
             c.add(this.cities.get(s));
         }
@@ -86,6 +88,16 @@ public class TravelGraph implements IGraph<City, Transport> {
         return fromVertex.getOutgoing();
     }
 
+    /**
+     * gets the edges that go into the inputted city
+     * @param toVertex the vertex
+     * @return the set of incoming edges
+     */
+    @Override
+    public Set<Transport> getIncomingEdges(City toVertex) {
+        return toVertex.getIncoming();
+    }
+
     /**
      * gets the City based on the inputted city name
      * @param name a String representing the name of the city
@@ -0,0 +1,201 @@
+package sol;
+
+import java.util.Arrays;
+
+/**
+ * The VertexWorkspace class is the SearchWorkspace of the generic Dijkstra
+ * and BFS, which search any IGraph and so have no vertex ids to index arrays
+ * by. A search gives each vertex a dense id the first time it reaches it,
+ * through an open addressing table from vertex to id, and keeps each id's
+ * vertex, distance and the edge it was reached by in arrays indexed by id.
+ * Every thread keeps one workspace and reuses it for its next search, so
+ * the tables and arrays are only allocated when a search reaches more
+ * vertices than any before it on that thread. Starting a search only clears
+ * what the last one wrote, so it costs as much as the last search reached
+ * rather than as much as the largest, and no vertex or edge of an old graph
+ * is kept reachable. A search must be done with the workspace before the
+ * thread starts another.
+ *
+ * @param <V> represents a vertex in the graph
+ * @param <E> represents an edge in the graph
+ */
+final class VertexWorkspace<V, E> {
+
+    private static final ThreadLocal<VertexWorkspace<?, ?>> WORKSPACES =
+            ThreadLocal.withInitial(VertexWorkspace::new);
+
+    // id + 1 per slot, 0 for an empty slot
+    private int[] table;
+    private Object[] vertices;
+    private Object[] edges;
+    private double[] dist;
+    private int[] slots;
+    private int size;
+    private IndexedHeap toCheckQueue;
+
+    private VertexWorkspace() {
+        this.table = new int[32];
+        this.vertices = new Object[16];
+        this.edges = new Object[16];
+        this.dist = new double[16];
+        this.slots = new int[16];
+        this.toCheckQueue = new IndexedHeap(16);
+    }
+
+    /**
+     * gets the calling thread's workspace, ready for a new search
+     * @param <V> represents a vertex in the graph
+     * @param <E> represents an edge in the graph
+     * @return the workspace, with no vertex reached and an empty heap
+     */
+    @SuppressWarnings("unchecked")
+    static <V, E> VertexWorkspace<V, E> get() {
+        VertexWorkspace<V, E> workspace =
+                (VertexWorkspace<V, E>) WORKSPACES.get();
+        workspace.begin();
+        return workspace;
+    }
+
+    /**
+     * forgets the last search, clearing only what it wrote
+     */
+    private void begin() {
+        for (int id = 0; id < this.size; id++) {
+            this.table[this.slots[id]] = 0;
+            this.vertices[id] = null;
+            this.edges[id] = null;
+        }
+        this.size = 0;
+        this.toCheckQueue.clear();
+    }
+
+    /**
+     * gets the id the current search gave a vertex
+     * @param v the vertex
+     * @return the id, or -1 if the search has not reached v
+     */
+    int getId(V v) {
+        int mask = this.table.length - 1;
+        for (int slot = hash(v) & mask; this.table[slot] != 0;
+             slot = (slot + 1) & mask) {
+            int id = this.table[slot] - 1;
+            if (this.vertices[id].equals(v)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * gives a vertex the current search has not reached the next id
+     * @param v the vertex
+     * @param distance the distance v was reached at
+     * @param edge the edge v was reached by, or null for where the search
+     *             began
+     * @return the id of v
+     */
+    int add(V v, double distance, E edge) {
+        int id = this.size++;
+        if (id == this.vertices.length) {
+            int capacity = id * 2;
+            this.vertices = Arrays.copyOf(this.vertices, capacity);
+            this.edges = Arrays.copyOf(this.edges, capacity);
+            this.dist = Arrays.copyOf(this.dist, capacity);
+            this.slots = Arrays.copyOf(this.slots, capacity);
+        }
+        this.vertices[id] = v;
+        this.edges[id] = edge;
+        this.dist[id] = distance;
+        if (this.size * 2 > this.table.length) {
+            this.table = new int[this.table.length * 2];
+            for (int i = 0; i < this.size; i++) {
+                this.insert(i);
+            }
+        } else {
+            this.insert(id);
+        }
+        return id;
+    }
+
+    /**
+     * puts an id into the first free slot of its vertex's probe sequence
+     * @param id the id
+     */
+    private void insert(int id) {
+        int mask = this.table.length - 1;
+        int slot = hash(this.vertices[id]) & mask;
+        while (this.table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        this.table[slot] = id + 1;
+        this.slots[id] = slot;
+    }
+
+    /**
+     * gets how many vertices the current search has reached
+     * @return the number of ids given out
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * gets the vertex with an id
+     * @param id the id
+     * @return the vertex
+     */
+    @SuppressWarnings("unchecked")
+    V getVertex(int id) {
+        return (V) this.vertices[id];
+    }
+
+    /**
+     * gets the edge a vertex was last reached by
+     * @param id the id of the vertex
+     * @return the edge, or null for where the search began
+     */
+    @SuppressWarnings("unchecked")
+    E getEdge(int id) {
+        return (E) this.edges[id];
+    }
+
+    /**
+     * gets the distance of a vertex
+     * @param id the id of the vertex
+     * @return the distance it was last reached at
+     */
+    double getDist(int id) {
+        return this.dist[id];
+    }
+
+    /**
+     * records that the current search reached a vertex again by a shorter
+     * path
+     * @param id the id of the vertex
+     * @param distance the new distance
+     * @param edge the edge it was reached by
+     */
+    void improve(int id, double distance, E edge) {
+        this.dist[id] = distance;
+        this.edges[id] = edge;
+    }
+
+    /**
+     * gets the heap, empty at the start of each search
+     * @return the heap
+     */
+    IndexedHeap getHeap() {
+        return this.toCheckQueue;
+    }
+
+    /**
+     * spreads the high bits of a vertex's hash into the low ones the table
+     * indexes by
+     * @param v the vertex
+     * @return the hash
+     */
+    private static int hash(Object v) {
+        int h = v.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
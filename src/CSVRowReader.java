@@ -0,0 +1,426 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads a CSV file with a header row one row at a time, without making a Map
+ * or a String per field the way TravelCSVParser does. Columns are looked up
+ * by name once, then each row's fields are read by index: as CharSequence
+ * views over the read buffer, as Strings only when asked for, or as numbers
+ * parsed straight from the buffer. Quoted fields follow RFC 4180, and blank
+ * lines are skipped. A view is only valid until the next call to next.
+ */
+public class CSVRowReader implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    // the largest mantissa a double holds exactly, and the powers of ten a
+    // double holds exactly, so mantissa / 10^k rounds correctly
+    private static final long MAX_EXACT = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4,
+        1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+        1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private Reader reader;
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private String[] header;
+    private int fieldCount;
+    private int[] fieldStart;
+    private int[] fieldEnd;
+    private Field[] views;
+
+    /**
+     * Makes a CSVRowReader and reads the header row
+     *
+     * @param reader the CSV text
+     * @throws IOException if the reader fails or there is no header row
+     */
+    public CSVRowReader(Reader reader) throws IOException {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Makes a CSVRowReader and reads the header row
+     *
+     * @param reader     the CSV text
+     * @param bufferSize how many chars to read at a time; a longer row grows
+     *                   the buffer
+     * @throws IOException if the reader fails or there is no header row
+     */
+    public CSVRowReader(Reader reader, int bufferSize) throws IOException {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("The buffer must hold at least "
+                + "one char.");
+        }
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+        this.fieldStart = new int[8];
+        this.fieldEnd = new int[8];
+        this.views = new Field[0];
+        if (!this.next()) {
+            throw new IOException("The file has no header row.");
+        }
+        this.header = new String[this.fieldCount];
+        for (int i = 0; i < this.fieldCount; i++) {
+            this.header[i] = this.getString(i);
+        }
+    }
+
+    /**
+     * Returns the index of a column
+     *
+     * @param name the name of the column in the header row
+     * @return the index, or -1 if there is no such column
+     */
+    public int getColumn(String name) {
+        for (int i = 0; i < this.header.length; i++) {
+            if (this.header[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of a column the file must have
+     *
+     * @param name the name of the column in the header row
+     * @return the index
+     * @throws IOException if there is no such column
+     */
+    public int requireColumn(String name) throws IOException {
+        int column = this.getColumn(name);
+        if (column < 0) {
+            throw new IOException("Missing column: " + name);
+        }
+        return column;
+    }
+
+    /**
+     * Moves to the next row
+     *
+     * @return true if there is a row, false at the end of the file
+     * @throws IOException if the reader fails
+     */
+    public boolean next() throws IOException {
+        int rowEnd = this.findRowEnd();
+        // the line break ending the last row is only stepped over now, since
+        // reading past it may move the buffer under that row's fields
+        while (rowEnd == this.position) {
+            this.skipLineBreak();
+            rowEnd = this.findRowEnd();
+        }
+        if (rowEnd < 0) {
+            return false;
+        }
+        this.splitFields(this.position, rowEnd);
+        this.position = rowEnd;
+        return true;
+    }
+
+    /**
+     * Returns a field of the current row without copying it
+     *
+     * @param column the index of the column
+     * @return a view of the field, empty if the row has no such field, which
+     * stays valid until the next call to next
+     */
+    public CharSequence getField(int column) {
+        if (column >= this.views.length) {
+            int old = this.views.length;
+            this.views = Arrays.copyOf(this.views, column + 1);
+            for (int i = old; i <= column; i++) {
+                this.views[i] = new Field(i);
+            }
+        }
+        return this.views[column];
+    }
+
+    /**
+     * Returns a field of the current row as a String
+     *
+     * @param column the index of the column
+     * @return the field, empty if the row has no such field
+     */
+    public String getString(int column) {
+        if (column >= this.fieldCount) {
+            return "";
+        }
+        return new String(this.buffer, this.fieldStart[column],
+            this.fieldEnd[column] - this.fieldStart[column]);
+    }
+
+    /**
+     * Checks if a field of the current row is missing or only whitespace
+     *
+     * @param column the index of the column, or -1 for a missing column
+     * @return true if the field has no value
+     */
+    public boolean isBlank(int column) {
+        if (column < 0 || column >= this.fieldCount) {
+            return true;
+        }
+        for (int i = this.fieldStart[column]; i < this.fieldEnd[column]; i++) {
+            if (!Character.isWhitespace(this.buffer[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a field of the current row as a number, like Double.parseDouble
+     * after trimming it, straight from the buffer
+     *
+     * @param column the index of the column
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double getDouble(int column) {
+        if (column >= this.fieldCount) {
+            throw new NumberFormatException("empty String");
+        }
+        return parseDouble(this.buffer, this.fieldStart[column],
+            this.fieldEnd[column]);
+    }
+
+    /**
+     * Parses chars as a number, like Double.parseDouble after trimming them.
+     * Plain decimals are parsed without making a String and anything else
+     * falls back to Double.parseDouble.
+     *
+     * @param chars the chars
+     * @param start the index of the first char
+     * @param end   one past the index of the last char
+     * @return the value of the chars
+     * @throws NumberFormatException if the chars are not a number
+     */
+    public static double parseDouble(char[] chars, int start, int end) {
+        while (start < end && Character.isWhitespace(chars[start])) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(chars[end - 1])) {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+                if (mantissa > MAX_EXACT) {
+                    break;
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                break;
+            }
+        }
+        if (i < end || digits == 0 || decimals >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(new String(chars, start, end - start));
+        }
+        double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals]
+            : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field of the current row that may be left out, the way
+     * TravelCSVParser.parseOptionalDouble does
+     *
+     * @param column the index of the column, or -1 for a missing column
+     * @return the value of the field, or NaN if it is missing or blank
+     */
+    public double getOptionalDouble(int column) {
+        return this.isBlank(column) ? Double.NaN : this.getDouble(column);
+    }
+
+    /**
+     * Closes the underlying reader
+     *
+     * @throws IOException if the reader fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    /**
+     * Finds where the row at position ends, reading more of the file until
+     * a line break outside of quotes or the end of the file is in the buffer
+     *
+     * @return the index of the line break or of the end of the file, or -1 if
+     * nothing is left
+     */
+    private int findRowEnd() throws IOException {
+        boolean quoted = false;
+        int i = this.position;
+        while (true) {
+            for (; i < this.limit; i++) {
+                char c = this.buffer[i];
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && (c == '\n' || c == '\r')) {
+                    return i;
+                }
+            }
+            if (this.endOfInput) {
+                return i == this.position ? -1 : i;
+            }
+            i -= this.position;
+            this.fill();
+            i += this.position;
+        }
+    }
+
+    /**
+     * Moves the unread part of the buffer to its front, grows the buffer if
+     * the unread part fills it, and reads as much as fits after it
+     */
+    private void fill() throws IOException {
+        int unread = this.limit - this.position;
+        if (unread == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+        } else if (this.position > 0) {
+            System.arraycopy(this.buffer, this.position, this.buffer, 0,
+                unread);
+        }
+        this.position = 0;
+        this.limit = unread;
+        int read = this.reader.read(this.buffer, this.limit,
+            this.buffer.length - this.limit);
+        if (read < 0) {
+            this.endOfInput = true;
+        } else {
+            this.limit += read;
+        }
+    }
+
+    /**
+     * Steps over one line break at position, reading more of the file to see
+     * whether a \r is followed by a \n
+     */
+    private void skipLineBreak() throws IOException {
+        char c = this.buffer[this.position];
+        this.position++;
+        if (c == '\r') {
+            if (this.position == this.limit && !this.endOfInput) {
+                this.fill();
+            }
+            if (this.position < this.limit
+                && this.buffer[this.position] == '\n') {
+                this.position++;
+            }
+        }
+    }
+
+    /**
+     * Records where each field of a row starts and ends, unquoting quoted
+     * fields in place
+     *
+     * @param start the index the row starts at
+     * @param end   the index the row ends at
+     */
+    private void splitFields(int start, int end) {
+        this.fieldCount = 0;
+        int i = start;
+        while (true) {
+            if (this.fieldCount == this.fieldStart.length) {
+                this.fieldStart = Arrays.copyOf(this.fieldStart,
+                    this.fieldCount * 2);
+                this.fieldEnd = Arrays.copyOf(this.fieldEnd,
+                    this.fieldCount * 2);
+            }
+            int fieldStart = i;
+            int fieldEnd;
+            if (i < end && this.buffer[i] == '"') {
+                // shift the unquoted chars left over the quotes
+                int to = i;
+                i++;
+                while (i < end) {
+                    char c = this.buffer[i++];
+                    if (c == '"') {
+                        if (i < end && this.buffer[i] == '"') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    this.buffer[to++] = c;
+                }
+                fieldEnd = to;
+                while (i < end && this.buffer[i] != ',') {
+                    i++;
+                }
+            } else {
+                while (i < end && this.buffer[i] != ',') {
+                    i++;
+                }
+                fieldEnd = i;
+            }
+            this.fieldStart[this.fieldCount] = fieldStart;
+            this.fieldEnd[this.fieldCount] = fieldEnd;
+            this.fieldCount++;
+            if (i >= end) {
+                return;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * A view of one column of the current row.
+     */
+    private final class Field implements CharSequence {
+
+        private final int column;
+
+        Field(int column) {
+            this.column = column;
+        }
+
+        @Override
+        public int length() {
+            CSVRowReader row = CSVRowReader.this;
+            return this.column < row.fieldCount
+                ? row.fieldEnd[this.column] - row.fieldStart[this.column] : 0;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= this.length()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            CSVRowReader row = CSVRowReader.this;
+            return row.buffer[row.fieldStart[this.column] + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return this.toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return CSVRowReader.this.getString(this.column);
+        }
+    }
+}
@@ -1,24 +1,62 @@
 package src;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
  * vertex class (vertices are called Cities)
  */
 public class City {
-    private Set<Transport> outgoing;
-    private String name;
+    private final Set<Transport> outgoing;
+    private final Set<Transport> incoming;
+    private final String name;
+    private final double latitude;
+    private final double longitude;
 
     public City(String name) {
+        this(name, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * Makes a City with a location, in degrees
+     *
+     * @param name      the name of the city
+     * @param latitude  the latitude, or NaN if unknown
+     * @param longitude the longitude, or NaN if unknown
+     */
+    public City(String name, double latitude, double longitude) {
         this.name = name;
-        this.outgoing = new HashSet<>(); //stores all outgoing Transports (edges) for given City (vertex)
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.outgoing = new LinkedHashSet<>(); //stores all outgoing Transports (edges) for given City (vertex)
+        this.incoming = new LinkedHashSet<>(); //stores all incoming Transports (edges) for given City (vertex)
     }
 
     public Set<Transport> getOutgoing() {
         return this.outgoing;
     }
 
+    public Set<Transport> getIncoming() {
+        return this.incoming;
+    }
+
+    public double getLatitude() {
+        return this.latitude;
+    }
+
+    public double getLongitude() {
+        return this.longitude;
+    }
+
+    /**
+     * Checks whether both coordinates of the City are known
+     *
+     * @return true if the City has a latitude and a longitude
+     */
+    public boolean hasLocation() {
+        return !Double.isNaN(this.latitude) && !Double.isNaN(this.longitude);
+    }
+
     /**
      * Adds outgoing edge (Transport) to vertex (City)
      *
@@ -28,6 +66,15 @@ public class City {
         this.outgoing.add(transport);
     }
 
+    /**
+     * Adds incoming edge (Transport) to vertex (City)
+     *
+     * @param transport
+     */
+    public void addIn(Transport transport) {
+        this.incoming.add(transport);
+    }
+
     @Override
     public String toString() {
         return this.name;
@@ -0,0 +1,31 @@
+package src;
+
+import java.util.List;
+
+/**
+ * An interface for breadth first searches that run on the id arrays of an
+ * ICompactGraph instead of on City and Transport objects.
+ */
+public interface ICompactBFS {
+
+    /**
+     * Returns the path from start to end with the fewest edges.
+     *
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @param end   the end vertex id
+     * @return a list of edges starting from the start to the end, or empty if
+     * there is none
+     */
+    public List<Transport> getPath(ICompactGraph graph, int start, int end);
+
+    /**
+     * Returns the fewest edges needed to get from start to every vertex.
+     *
+     * @param graph the graph to search
+     * @param start the start vertex id
+     * @return an array indexed by vertex id holding the number of edges on the
+     * most direct path from start, or -1 where the vertex cannot be reached
+     */
+    public int[] getHopDistances(ICompactGraph graph, int start);
+}
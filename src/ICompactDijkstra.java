@@ -0,0 +1,24 @@
+package src;
+
+import java.util.List;
+
+/**
+ * An interface for shortest path searches that run on the id arrays of an
+ * ICompactGraph instead of on City and Transport objects.
+ */
+public interface ICompactDijkstra {
+
+    /**
+     * Finds the lowest cost path from source to destination.
+     *
+     * @param graph       the graph to search
+     * @param source      the source vertex id
+     * @param destination the destination vertex id
+     * @param weighting   how each edge is weighted
+     * @return a list of edges from source to destination, or empty if there
+     * is none
+     */
+    public List<Transport> getShortestPath(ICompactGraph graph, int source,
+                                           int destination,
+                                           Weighting weighting);
+}
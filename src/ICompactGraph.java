@@ -0,0 +1,154 @@
+package src;
+
+/**
+ * An interface to represent a frozen graph of Cities and Transports whose
+ * vertices and edges are addressed by dense integer ids. Vertex ids range
+ * over [0, getVertexCount()) and the outgoing edges of vertex v are the edge
+ * ids in [getEdgeStart(v), getEdgeEnd(v)).
+ */
+public interface ICompactGraph extends IGraph<City, Transport> {
+
+    /**
+     * Gets the number of vertices in the graph.
+     *
+     * @return the number of vertices
+     */
+    public int getVertexCount();
+
+    /**
+     * Gets the number of edges in the graph.
+     *
+     * @return the number of edges
+     */
+    public int getEdgeCount();
+
+    /**
+     * Gets the id of the vertex with the given name.
+     *
+     * @param name the name of the city
+     * @return the id of that city
+     * @throws IllegalArgumentException if no city has that name
+     */
+    public int getVertexId(String name);
+
+    /**
+     * Gets the City view of the city with the given name.
+     *
+     * @param name the name of the city
+     * @return the City with that name
+     * @throws IllegalArgumentException if no city has that name
+     */
+    public City getCity(String name);
+
+    /**
+     * Gets the City view of a vertex id.
+     *
+     * @param vertex the vertex id
+     * @return the City with that id
+     */
+    public City getVertex(int vertex);
+
+    /**
+     * Gets the latitude of a vertex.
+     *
+     * @param vertex the vertex id
+     * @return the latitude in degrees, or NaN if unknown
+     */
+    public double getLatitude(int vertex);
+
+    /**
+     * Gets the longitude of a vertex.
+     *
+     * @param vertex the vertex id
+     * @return the longitude in degrees, or NaN if unknown
+     */
+    public double getLongitude(int vertex);
+
+    /**
+     * Gets the first outgoing edge id of a vertex.
+     *
+     * @param vertex the vertex id
+     * @return the first outgoing edge id
+     */
+    public int getEdgeStart(int vertex);
+
+    /**
+     * Gets one past the last outgoing edge id of a vertex.
+     *
+     * @param vertex the vertex id
+     * @return one past the last outgoing edge id
+     */
+    public int getEdgeEnd(int vertex);
+
+    /**
+     * Gets the first slot of a vertex's incoming edges, see getInEdge.
+     *
+     * @param vertex the vertex id
+     * @return the first incoming slot
+     */
+    public int getInEdgeStart(int vertex);
+
+    /**
+     * Gets one past the last slot of a vertex's incoming edges.
+     *
+     * @param vertex the vertex id
+     * @return one past the last incoming slot
+     */
+    public int getInEdgeEnd(int vertex);
+
+    /**
+     * Gets the edge id stored in an incoming slot.
+     *
+     * @param slot a slot in [getInEdgeStart(v), getInEdgeEnd(v))
+     * @return the id of an edge whose target is v
+     */
+    public int getInEdge(int slot);
+
+    /**
+     * Gets the source vertex id of an edge.
+     *
+     * @param edge the edge id
+     * @return the source vertex id
+     */
+    public int getEdgeSourceId(int edge);
+
+    /**
+     * Gets the target vertex id of an edge.
+     *
+     * @param edge the edge id
+     * @return the target vertex id
+     */
+    public int getEdgeTargetId(int edge);
+
+    /**
+     * Gets the duration of an edge.
+     *
+     * @param edge the edge id
+     * @return the duration in minutes
+     */
+    public double getMinutes(int edge);
+
+    /**
+     * Gets the price of an edge.
+     *
+     * @param edge the edge id
+     * @return the price
+     */
+    public double getPrice(int edge);
+
+    /**
+     * Gets the type of an edge.
+     *
+     * @param edge the edge id
+     * @return the TransportType of the edge
+     */
+    public TransportType getType(int edge);
+
+    /**
+     * Gets the Transport view of an edge id.
+     *
+     * @param edge the edge id
+     * @return the Transport with that id
+     */
+    public Transport getEdge(int edge);
+}
@@ -55,4 +55,12 @@ public interface IGraph<V, E> {
      * @return the outgoing edges from that vertex
      */
     public Set<E> getOutgoingEdges(V fromVertex);
+
+    /**
+     * Gets the incoming edges of a vertex.
+     *
+     * @param toVertex the vertex
+     * @return the incoming edges to that vertex
+     */
+    public Set<E> getIncomingEdges(V toVertex);
 }
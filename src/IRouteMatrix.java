@@ -0,0 +1,47 @@
+package src;
+
+import java.util.List;
+
+/**
+ * An interface for the costs between a list of sources and a list of
+ * destinations, computed all at once.
+ *
+ * @param <E> the type of edge
+ */
+public interface IRouteMatrix<E> {
+
+    /**
+     * Returns the costs, one row per source and one column per destination.
+     *
+     * @return the lowest cost from each source to each destination, or
+     * infinity where a destination cannot be reached
+     */
+    public double[][] getCosts();
+
+    /**
+     * Returns the lowest cost from a source to a destination.
+     *
+     * @param row    the index of the source in the list of sources
+     * @param column the index of the destination in the list of destinations
+     * @return the cost, or infinity if the destination cannot be reached
+     */
+    public double getCost(int row, int column);
+
+    /**
+     * Returns whether the matrix kept what it needs to rebuild paths.
+     *
+     * @return true if getPath can be called
+     */
+    public boolean hasPaths();
+
+    /**
+     * Returns the lowest cost path from a source to a destination.
+     *
+     * @param row    the index of the source in the list of sources
+     * @param column the index of the destination in the list of destinations
+     * @return the path starting from the source to the destination,
+     * or empty if there is none
+     * @throws IllegalStateException if the matrix did not keep paths
+     */
+    public List<E> getPath(int row, int column);
+}
@@ -19,6 +19,32 @@ public interface ITravelController<V, E> {
      */
     public String load(String citiesFile, String transportFile);
 
+    /**
+     * Loads a graph saved by saveSnapshot into the app.
+     *
+     * @param snapshotFile the filename of the snapshot
+     * @return an informative message to be printed in the REPL
+     */
+    public String loadSnapshot(String snapshotFile);
+
+    /**
+     * Saves the loaded graph to a binary snapshot that loadSnapshot can read
+     * faster than the csv files it came from.
+     *
+     * @param snapshotFile the filename to write to
+     * @return an informative message to be printed in the REPL
+     */
+    public String saveSnapshot(String snapshotFile);
+
+    /**
+     * Applies a delta csv of added, removed and repriced cities and
+     * transports to the loaded graph, without reloading it.
+     *
+     * @param deltaFile the filename of the delta csv
+     * @return an informative message to be printed in the REPL
+     */
+    public String applyDelta(String deltaFile);
+
     /**
      * Finds the fastest route in between two cities
      *
@@ -48,4 +74,79 @@ public interface ITravelController<V, E> {
      * or empty if there is none
      */
     public List<E> mostDirectRoute(String source, String destination);
+
+    /**
+     * Finds the fastest route in between two cities that costs at most maxPrice
+     *
+     * @param source      the name of the source city
+     * @param destination the name of the destination city
+     * @param maxPrice    the budget
+     * @return the path starting from the source to the destination,
+     * or empty if there is none within the budget
+     */
+    public List<E> fastestRouteWithinBudget(String source, String destination,
+                                            double maxPrice);
+
+    /**
+     * Finds the cheapest route in between two cities that takes at most
+     * maxMinutes
+     *
+     * @param source      the name of the source city
+     * @param destination the name of the destination city
+     * @param maxMinutes  the time limit
+     * @return the path starting from the source to the destination,
+     * or empty if there is none within the time limit
+     */
+    public List<E> cheapestRouteWithinTime(String source, String destination,
+                                           double maxMinutes);
+
+    /**
+     * Finds the route in between two cities with the lowest
+     * minutesWeight * minutes + priceWeight * price
+     *
+     * @param source        the name of the source city
+     * @param destination   the name of the destination city
+     * @param minutesWeight how much each minute costs
+     * @param priceWeight   how much each dollar costs
+     * @return the path starting from the source to the destination,
+     * or empty if there is none
+     */
+    public List<E> weightedRoute(String source, String destination,
+                                 double minutesWeight, double priceWeight);
+
+    /**
+     * Finds every route in between two cities that no other route beats on
+     * minutes, price and number of legs at the same time
+     *
+     * @param source      the name of the source city
+     * @param destination the name of the destination city
+     * @return the routes, fastest first, or empty if there are none
+     */
+    public List<List<E>> paretoRoutes(String source, String destination);
+
+    /**
+     * Finds the fastest routes from every source to every destination
+     *
+     * @param sources      the names of the source cities
+     * @param destinations the names of the destination cities
+     * @param keepPaths    whether the routes themselves should be kept, or
+     *                     only their minutes
+     * @return the minutes from each source to each destination
+     */
+    public IRouteMatrix<E> fastestMatrix(List<String> sources,
+                                         List<String> destinations,
+                                         boolean keepPaths);
+
+    /**
+     * Finds the cheapest routes from every source to every destination
+     *
+     * @param sources      the names of the source cities
+     * @param destinations the names of the destination cities
+     * @param keepPaths    whether the routes themselves should be kept, or
+     *                     only their prices
+     * @return the prices from each source to each destination
+     */
+    public IRouteMatrix<E> cheapestMatrix(List<String> sources,
+                                          List<String> destinations,
+                                          boolean keepPaths);
 }
@@ -0,0 +1,98 @@
+package src;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of request latencies that any number of threads can record
+ * into at once. Bucket i counts the requests that took at least 2^i and less
+ * than 2^(i + 1) microseconds, with bucket 0 also holding everything under
+ * one microsecond.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 40;
+
+    private AtomicLongArray buckets;
+    private AtomicLong count;
+    private AtomicLong totalNanos;
+
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.totalNanos = new AtomicLong();
+    }
+
+    /**
+     * Records one request
+     *
+     * @param nanos how long the request took, in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(nanos / 1000, 1);
+        int bucket = Math.min(63 - Long.numberOfLeadingZeros(micros),
+                BUCKETS - 1);
+        this.buckets.incrementAndGet(bucket);
+        this.count.incrementAndGet();
+        this.totalNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Returns how many requests were recorded
+     *
+     * @return the number of requests
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Returns an upper bound on the latency below which the inputted fraction
+     * of requests fall
+     *
+     * @param fraction the fraction of requests, between 0 and 1
+     * @return the upper edge of the bucket holding that request, in
+     * microseconds, or 0 if nothing was recorded
+     */
+    public long getPercentileMicros(double fraction) {
+        long total = this.count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= rank) {
+                return 1L << (i + 1);
+            }
+        }
+        return 1L << BUCKETS;
+    }
+
+    /**
+     * Formats the histogram as one line per non-empty bucket
+     *
+     * @return the count, mean, percentiles and buckets
+     */
+    @Override
+    public String toString() {
+        long total = this.count.get();
+        StringBuilder sb = new StringBuilder();
+        sb.append("count ").append(total);
+        if (total > 0) {
+            sb.append(", mean ").append(this.totalNanos.get() / total / 1000)
+                    .append("us, p50 <").append(this.getPercentileMicros(0.5))
+                    .append("us, p99 <").append(this.getPercentileMicros(0.99))
+                    .append("us");
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            long n = this.buckets.get(i);
+            if (n > 0) {
+                sb.append("\n  [").append(i == 0 ? 0 : 1L << i).append("us, ")
+                        .append(1L << (i + 1)).append("us) ").append(n);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -2,8 +2,32 @@ package src;
 
 import sol.TravelController;
 
+import java.io.IOException;
+
 public class Main {
-    public static void main(String[] args) {
+    /**
+     * Runs the REPL, or with "serve [port] [cities_file] [transport_file]"
+     * or "serve [port] [snapshot_file]" runs a TravelServer instead. A
+     * snapshot is memory mapped, so servers started on the same snapshot
+     * share one copy of the graph.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("serve")) {
+            TravelController controller = new TravelController();
+            if (args.length == 4) {
+                System.out.println(controller.load(args[2], args[3]));
+            } else if (args.length == 3) {
+                System.out.println(controller.mapSnapshot(args[2]));
+            }
+            TravelServer<City, Transport> server = new TravelServer<>(
+                controller, TravelServer.DEFAULT_MAX_CONCURRENT);
+            int port = server.start(args.length > 1
+                ? Integer.parseInt(args[1]) : 8080);
+            System.out.println("Serving on http://localhost:" + port);
+            return;
+        }
         REPL<City, Transport> repl = new REPL<>(new TravelController());
         repl.run();
     }
@@ -72,6 +72,31 @@ public class REPL<V, E> {
                             response = "Usage: load [cities_file] [transport_file]";
                         }
                         break;
+                    case "save":
+                        if (args.length == 2) {
+                            response = this.controller.saveSnapshot(args[1]);
+                        } else {
+                            response = "Usage: save [snapshot_file]";
+                        }
+                        break;
+                    case "loadsnapshot":
+                        if (args.length == 2) {
+                            response = this.controller.loadSnapshot(args[1]);
+                        } else {
+                            response = "Usage: loadsnapshot [snapshot_file]";
+                        }
+                        break;
+                    case "delta":
+                        if (args.length == 2) {
+                            try {
+                                response = this.controller.applyDelta(args[1]);
+                            } catch (Exception e) {
+                                response = e.getMessage();
+                            }
+                        } else {
+                            response = "Usage: delta [delta_file]";
+                        }
+                        break;
                     case "fast":
                         if (args.length == 3) {
                             String origin = args[1];
@@ -114,8 +139,72 @@ public class REPL<V, E> {
                             response = "Usage: direct [origin] [destination]";
                         }
                         break;
+                    case "fastunder":
+                        if (args.length == 4) {
+                            String origin = args[1];
+                            String destination = args[2];
+                            try {
+                                double maxPrice = Double.parseDouble(args[3]);
+                                List<E> path = this.controller.fastestRouteWithinBudget(origin, destination,
+                                    maxPrice);
+                                response = this.getPathString(origin, destination, path);
+                            } catch (Exception e) {
+                                response = e.getMessage();
+                            }
+                        } else {
+                            response = "Usage: fastunder [origin] [destination] [max_price]";
+                        }
+                        break;
+                    case "cheapunder":
+                        if (args.length == 4) {
+                            String origin = args[1];
+                            String destination = args[2];
+                            try {
+                                double maxMinutes = Double.parseDouble(args[3]);
+                                List<E> path = this.controller.cheapestRouteWithinTime(origin, destination,
+                                    maxMinutes);
+                                response = this.getPathString(origin, destination, path);
+                            } catch (Exception e) {
+                                response = e.getMessage();
+                            }
+                        } else {
+                            response = "Usage: cheapunder [origin] [destination] [max_minutes]";
+                        }
+                        break;
+                    case "weighted":
+                        if (args.length == 5) {
+                            String origin = args[1];
+                            String destination = args[2];
+                            try {
+                                double minutesWeight = Double.parseDouble(args[3]);
+                                double priceWeight = Double.parseDouble(args[4]);
+                                List<E> path = this.controller.weightedRoute(origin, destination,
+                                    minutesWeight, priceWeight);
+                                response = this.getPathString(origin, destination, path);
+                            } catch (Exception e) {
+                                response = e.getMessage();
+                            }
+                        } else {
+                            response = "Usage: weighted [origin] [destination] [minutes_weight] [price_weight]";
+                        }
+                        break;
+                    case "pareto":
+                        if (args.length == 3) {
+                            String origin = args[1];
+                            String destination = args[2];
+                            try {
+                                List<List<E>> paths = this.controller.paretoRoutes(origin, destination);
+                                response = this.getPathsString(origin, destination, paths);
+                            } catch (Exception e) {
+                                response = e.getMessage();
+                            }
+                        } else {
+                            response = "Usage: pareto [origin] [destination]";
+                        }
+                        break;
                     default:
-                        response = "Invalid command. Available commands: load, cheap, fast, direct";
+                        response = "Invalid command. Available commands: load, save, loadsnapshot, delta, cheap, fast, direct, "
+                            + "fastunder, cheapunder, weighted, pareto";
                 }
                 System.out.println(response);
                 System.out.print(">>> ");
@@ -166,4 +255,27 @@ public class REPL<V, E> {
         sb.append(this.line("="));
         return sb.toString();
     }
+
+    /**
+     * Formats several alternative paths to be printed in the REPL, one after the other
+     *
+     * @param origin      the paths' origin location
+     * @param destination the paths' ending destination location
+     * @param paths       the alternative paths
+     * @return the string to be printed in the REPL
+     */
+    private String getPathsString(String origin, String destination, List<List<E>> paths) {
+        if (paths.isEmpty()) {
+            return this.getPathString(origin, destination, List.of());
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < paths.size(); i++) {
+            if (i > 0) {
+                sb.append("\n");
+            }
+            sb.append("Option ").append(i + 1).append(" of ").append(paths.size()).append("\n");
+            sb.append(this.getPathString(origin, destination, paths.get(i)));
+        }
+        return sb.toString();
+    }
 }
\ No newline at end of file
@@ -4,11 +4,11 @@ package src;
  * Edge class (edges are called Transports)
  */
 public class Transport {
-    private City source;
-    private City target;
-    private TransportType type;
-    private double minutes;
-    private double price;
+    private final City source;
+    private final City target;
+    private final TransportType type;
+    private final double minutes;
+    private final double price;
 
     public Transport(City source, City destination, TransportType type, double price,
                      double minutes) {
@@ -35,6 +35,10 @@ public class Transport {
         return this.minutes;
     }
 
+    public TransportType getType() {
+        return this.type;
+    }
+
     @Override
     public String toString() {
         return this.source.toString() + " -> " + this.target.toString() +
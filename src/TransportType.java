@@ -8,6 +8,8 @@ public enum TransportType {
     TRAIN("train"),
     PLANE("plane");
 
+    private static final TransportType[] TYPES = values();
+
     private final String label;
 
     TransportType(String label) {
@@ -30,6 +32,33 @@ public enum TransportType {
         };
     }
 
+    /**
+     * returns the enum whose label the inputted chars spell, ignoring case,
+     * without making a String out of them
+     *
+     * @param chars chars to be converted to enum
+     * @return TransportType enum
+     */
+    public static TransportType parse(CharSequence chars) {
+        for (TransportType type : TYPES) {
+            String label = type.label;
+            int length = label.length();
+            if (chars.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length
+                && Character.toLowerCase(chars.charAt(i)) == label.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("String: '" + chars
+            + "' not a valid TransportType");
+    }
+
     /**
      * accessor to get the TransportType's label, for instance "bus" if enum is BUS
      */
@@ -28,7 +28,8 @@ public class TravelCSVParser {
      *
      * @param locationFile path to csv file containing location (ex: data/cities1.csv)
      * @param handleLoc    function that takes a Map (with key "name"and a location as the value) and creates a 
-     * vertex representing that location in your graph class(es).
+     * vertex representing that location in your graph class(es). If the file has optional "latitude" and
+     * "longitude" columns, the Map also holds them (read them with parseOptionalDouble).
      */
     public void parseLocations(String locationFile, Function<Map<String, String>, Void> handleLoc)
         throws IOException {
@@ -40,6 +41,21 @@ public class TravelCSVParser {
         }
     }
 
+    /**
+     * reads an optional numeric column out of a row Map
+     *
+     * @param row the Map the parser created for one row
+     * @param key the column name
+     * @return the value of the column, or NaN if the column is missing or blank
+     */
+    public static double parseOptionalDouble(Map<String, String> row, String key) {
+        String value = row.get(key);
+        if (value == null || value.isBlank()) {
+            return Double.NaN;
+        }
+        return Double.parseDouble(value.trim());
+    }
+
     /**
      * parses a transportation file using the function you will pass in as an argument
      *
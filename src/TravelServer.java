@@ -0,0 +1,333 @@
+package src;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local HTTP front end for an ITravelController, so many clients can query
+ * one loaded planner at once. Exchanges run on a fixed pool of platform
+ * threads, as many as the queries allowed to run at once, and a semaphore
+ * bounds how many queries run against the controller at the same time. A
+ * batch is answered by at most as many workers as that bound, the exchange's
+ * thread and threads of a second fixed pool, which take its lines in turn,
+ * so a large batch never needs a thread per line. The engines keep their
+ * search arrays per thread, so the threads are long lived and few: each
+ * reuses its arrays query after query, and their number bounds the memory
+ * the arrays take.
+ * The server answers:
+ * <ul>
+ *     <li>GET /route?command=fast|cheap|direct&amp;from=...&amp;to=... with
+ *     one leg per line, or nothing if there is no route</li>
+ *     <li>POST /batch with one tab separated "command origin destination"
+ *     query per line, answering each on its own line with its legs tab
+ *     separated, in the order they were sent</li>
+ *     <li>GET /stats with a latency histogram per command</li>
+ * </ul>
+ * The server only reads the planner, loading is left to whoever starts it.
+ * A bad query is answered with status 400 and its error message, or with
+ * "ERROR" and the message on its line of a batch, and any other method than
+ * the one listed with status 405.
+ *
+ * @param <V> the type of the vertices
+ * @param <E> the type of edge
+ */
+public class TravelServer<V, E> {
+
+    public static final int DEFAULT_MAX_CONCURRENT = 64;
+
+    private static final String[] COMMANDS = {"fast", "cheap", "direct",
+        "batch"};
+
+    private ITravelController<V, E> controller;
+    private int maxConcurrent;
+    private Semaphore permits;
+    private Map<String, LatencyHistogram> histograms;
+    private ExecutorService executor;
+    private ExecutorService batchWorkers;
+    private HttpServer server;
+
+    /**
+     * Makes a TravelServer
+     *
+     * @param controller    the planner to answer queries with
+     * @param maxConcurrent the most queries that may run at once
+     */
+    public TravelServer(ITravelController<V, E> controller, int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("At least one query must be "
+                + "allowed to run.");
+        }
+        this.controller = controller;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.histograms = new LinkedHashMap<>();
+        for (String command : COMMANDS) {
+            this.histograms.put(command, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Starts listening on the loopback interface
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @return the port being listened on
+     * @throws IOException if the port cannot be bound
+     */
+    public int start(int port) throws IOException {
+        // batch workers have a pool of their own, so an exchange waiting on
+        // its batch never holds a thread that batch workers need
+        this.executor = Executors.newFixedThreadPool(this.maxConcurrent);
+        this.batchWorkers = Executors.newFixedThreadPool(
+            Math.max(1, this.maxConcurrent - 1));
+        this.server = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/route", exchange -> this.handle(exchange,
+            "GET", () -> {
+                Map<String, String> params = parseQuery(exchange);
+                List<E> path = this.query(params.get("command"),
+                    params.get("from"), params.get("to"));
+                return join(path, "\n");
+            }));
+        this.server.createContext("/batch", exchange -> this.handle(exchange,
+            "POST", () -> this.batch(exchange.getRequestBody())));
+        this.server.createContext("/stats", exchange -> this.handle(exchange,
+            "GET", () -> {
+                StringBuilder sb = new StringBuilder();
+                for (Map.Entry<String, LatencyHistogram> entry
+                    : this.histograms.entrySet()) {
+                    sb.append(entry.getKey()).append(": ")
+                        .append(entry.getValue()).append("\n");
+                }
+                return sb.toString();
+            }));
+        this.server.start();
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Stops listening and lets the threads of running queries finish
+     */
+    public void stop() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.executor.shutdown();
+            this.batchWorkers.shutdown();
+            this.server = null;
+        }
+    }
+
+    /**
+     * Returns the latencies recorded for a command
+     *
+     * @param command fast, cheap, direct or batch
+     * @return the histogram of the command
+     */
+    public LatencyHistogram getHistogram(String command) {
+        LatencyHistogram histogram = this.histograms.get(command);
+        if (histogram == null) {
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+        return histogram;
+    }
+
+    /**
+     * Runs one query once a permit is free, recording how long it took
+     *
+     * @param command     fast, cheap or direct
+     * @param origin      the name of the source city
+     * @param destination the name of the destination city
+     * @return the path from origin to destination, or empty if there is none
+     */
+    public List<E> query(String command, String origin, String destination) {
+        if (origin == null || destination == null) {
+            throw new IllegalArgumentException("A query needs an origin and a "
+                + "destination.");
+        }
+        LatencyHistogram histogram = this.histograms.get(command);
+        if (histogram == null || command.equals("batch")) {
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+        this.permits.acquireUninterruptibly();
+        long start = System.nanoTime();
+        try {
+            return switch (command) {
+                case "fast" -> this.controller.fastestRoute(origin,
+                    destination);
+                case "cheap" -> this.controller.cheapestRoute(origin,
+                    destination);
+                default -> this.controller.mostDirectRoute(origin,
+                    destination);
+            };
+        } finally {
+            histogram.record(System.nanoTime() - start);
+            this.permits.release();
+        }
+    }
+
+    /**
+     * Runs the queries of a batch on at most maxConcurrent workers, the
+     * calling thread being one of them, and answers them in order
+     *
+     * @param body the request body, one tab separated query per line
+     * @return one line per query
+     */
+    private String batch(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        String[] lines = new String(body.readAllBytes(),
+            StandardCharsets.UTF_8).split("\r?\n");
+        String[] answers = new String[lines.length];
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < lines.length;
+                 i = next.getAndIncrement()) {
+                if (!lines[i].isEmpty()) {
+                    answers[i] = this.answer(lines[i]);
+                }
+            }
+        };
+        int workers = Math.min(this.maxConcurrent, lines.length);
+        List<Future<?>> running = new ArrayList<>();
+        for (int w = 1; w < workers; w++) {
+            running.add(this.batchWorkers.submit(worker));
+        }
+        worker.run();
+        try {
+            for (Future<?> future : running) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException("Batch did not finish.", e);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String answer : answers) {
+            if (answer != null) {
+                sb.append(answer).append("\n");
+            }
+        }
+        this.histograms.get("batch").record(System.nanoTime() - start);
+        return sb.toString();
+    }
+
+    /**
+     * Answers one line of a batch
+     *
+     * @param line a tab separated query
+     * @return the legs of the path tab separated, or ERROR and the message
+     */
+    private String answer(String line) {
+        String[] args = line.split("\t");
+        if (args.length != 3) {
+            return "ERROR\tUsage: command\torigin\tdestination";
+        }
+        try {
+            return join(this.query(args[0], args[1], args[2]), "\t");
+        } catch (IllegalArgumentException e) {
+            return "ERROR\t" + e.getMessage();
+        }
+    }
+
+    /**
+     * Answers an exchange with what the inputted handler returns, or with
+     * status 400 and the error message if it throws IllegalArgumentException
+     * and 500 if it throws anything else. An exchange with another method
+     * than the inputted one is answered with status 405.
+     */
+    private void handle(HttpExchange exchange, String method,
+                        Handler handler) throws IOException {
+        int status = 200;
+        String response;
+        try {
+            if (!exchange.getRequestMethod().equals(method)) {
+                status = 405;
+                response = "Use " + method + ".";
+                exchange.getResponseHeaders().set("Allow", method);
+            } else {
+                response = handler.respond();
+            }
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            response = e.getMessage();
+        } catch (RuntimeException e) {
+            status = 500;
+            response = String.valueOf(e.getMessage());
+        }
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+            "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1
+            : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Decodes the query string of an exchange
+     *
+     * @param exchange the exchange
+     * @return the parameters by name
+     */
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int split = pair.indexOf('=');
+            if (split > 0) {
+                params.put(
+                    URLDecoder.decode(pair.substring(0, split),
+                        StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(split + 1),
+                        StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Joins the legs of a path
+     *
+     * @param path      the path
+     * @param separator what goes between two legs
+     * @return the legs as one string
+     */
+    private static <E> String join(List<E> path, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (E leg : path) {
+            if (sb.length() > 0) {
+                sb.append(separator);
+            }
+            sb.append(leg);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Computes the body of a response
+     */
+    private interface Handler {
+        String respond() throws IOException;
+    }
+}
@@ -0,0 +1,88 @@
+package src;
+
+/**
+ * A class representing how a Transport is weighted during a search, as a
+ * linear combination of its minutes and its price. The weight is read
+ * straight from the primitive edge arrays of an ICompactGraph, so searches
+ * never box a Double per relaxation.
+ */
+public final class Weighting {
+
+    public static final Weighting MINUTES = new Weighting(1.0, 0.0);
+    public static final Weighting PRICE = new Weighting(0.0, 1.0);
+
+    private final double minutesFactor;
+    private final double priceFactor;
+
+    private Weighting(double minutesFactor, double priceFactor) {
+        this.minutesFactor = minutesFactor;
+        this.priceFactor = priceFactor;
+    }
+
+    /**
+     * returns the Weighting that weighs an edge by
+     * minutesFactor * minutes + priceFactor * price
+     *
+     * @param minutesFactor how much each minute costs
+     * @param priceFactor   how much each dollar costs
+     * @return the Weighting
+     * @throws IllegalArgumentException if a factor is negative or not a
+     *                                  number, or both factors are 0
+     */
+    public static Weighting of(double minutesFactor, double priceFactor) {
+        if (!(minutesFactor >= 0) || !(priceFactor >= 0)
+            || Double.isInfinite(minutesFactor) || Double.isInfinite(priceFactor)
+            || minutesFactor + priceFactor == 0) {
+            throw new IllegalArgumentException("Weights must be non-negative "
+                + "and not both 0");
+        }
+        return new Weighting(minutesFactor, priceFactor);
+    }
+
+    /**
+     * calculates the weight of an edge
+     *
+     * @param graph the graph holding the edge
+     * @param edge  the edge id
+     * @return the weight of the edge
+     */
+    public double weight(ICompactGraph graph, int edge) {
+        if (this.priceFactor == 0.0) {
+            return this.minutesFactor * graph.getMinutes(edge);
+        }
+        if (this.minutesFactor == 0.0) {
+            return this.priceFactor * graph.getPrice(edge);
+        }
+        return this.minutesFactor * graph.getMinutes(edge)
+            + this.priceFactor * graph.getPrice(edge);
+    }
+
+    public double getMinutesFactor() {
+        return this.minutesFactor;
+    }
+
+    public double getPriceFactor() {
+        return this.priceFactor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Weighting)) {
+            return false;
+        }
+        Weighting other = (Weighting) o;
+        return Double.compare(this.minutesFactor, other.minutesFactor) == 0
+            && Double.compare(this.priceFactor, other.priceFactor) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(this.minutesFactor)
+            + Double.hashCode(this.priceFactor);
+    }
+
+    @Override
+    public String toString() {
+        return this.minutesFactor + " * minutes + " + this.priceFactor + " * price";
+    }
+}
@@ -2,6 +2,12 @@ package test;
 
 import org.junit.Test;
 import sol.BFS;
+import sol.BidirectionalBFS;
+import sol.CompactBFS;
+import sol.CompactTravelGraph;
+import sol.DirectionOptimizingBFS;
+import sol.HopStrategy;
+import sol.ParallelBFS;
 import sol.TravelController;
 import sol.TravelGraph;
 import src.City;
@@ -12,7 +18,10 @@ import test.simple.SimpleGraph;
 import test.simple.SimpleVertex;
 
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class BFSTest {
@@ -65,6 +74,17 @@ public class BFSTest {
         assertEquals(path.size(), 2);
     }
 
+    // generic bfs source to source is empty, even around a cycle
+    @Test
+    public void testBasicBFSSameVertex() {
+        this.makeSimpleGraph();
+        this.graph.addEdge(this.e, new SimpleEdge(1, this.e, this.a));
+        BFS<SimpleVertex, SimpleEdge> bfs = new BFS<>();
+        assertEquals(bfs.getPath(this.graph, this.a, this.a).size(), 0);
+        assertEquals(bfs.getPath(this.graph, this.d, this.d).size(), 0);
+        assertEquals(bfs.getPath(this.graph, this.e, this.b).size(), 2);
+    }
+
     // bfs source to source
     @Test
     public void testBFS1() {
@@ -189,4 +209,150 @@ public class BFSTest {
         assertEquals(path.contains(edgeAF), true);
         assertEquals(path.contains(edgeFN), true);
     }
+
+    // bfs on a long chain with parallel edges finishes quickly
+    @Test
+    public void testBFSLongChain() {
+        SimpleGraph chain = new SimpleGraph();
+        SimpleVertex first = new SimpleVertex("0");
+        chain.addVertex(first);
+        SimpleVertex prev = first;
+        for (int i = 1; i <= 100000; i++) {
+            SimpleVertex next = new SimpleVertex(String.valueOf(i));
+            chain.addVertex(next);
+            chain.addEdge(prev, new SimpleEdge(1, prev, next));
+            chain.addEdge(next, new SimpleEdge(1, next, prev));
+            prev = next;
+        }
+        List<SimpleEdge> path = new BFS<SimpleVertex, SimpleEdge>()
+                .getPath(chain, first, prev);
+        assertEquals(100000, path.size());
+        assertEquals(prev, path.get(99999).target);
+    }
+
+    // compact bfs finds as few legs as the generic bfs on a random graph
+    @Test
+    public void testCompactBFSRandom() {
+        TravelGraph tg = createRandomGraph(7, 300, 600);
+        CompactTravelGraph g = new CompactTravelGraph(tg);
+        BFS<City, Transport> bfs = new BFS<City, Transport>();
+        CompactBFS compact = new CompactBFS();
+        City[] cities = tg.getVertices().toArray(new City[0]);
+        for (int s = 0; s < g.getVertexCount(); s += 11) {
+            for (int d = 0; d < g.getVertexCount(); d += 7) {
+                List<Transport> expected = bfs.getPath(tg, cities[s],
+                        cities[d]);
+                List<Transport> actual = compact.getPath(g, s, d);
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < actual.size(); i++) {
+                    assertEquals(expected.get(i).getTarget().toString(),
+                            actual.get(i).getTarget().toString());
+                }
+            }
+        }
+    }
+
+    // bidirectional and direction optimizing bfs find as few legs as bfs
+    @Test
+    public void testHopEnginesRandom() {
+        CompactTravelGraph g = new CompactTravelGraph(
+                createRandomGraph(11, 400, 6000));
+        CompactBFS bfs = new CompactBFS();
+        BidirectionalBFS bidirectional = new BidirectionalBFS();
+        DirectionOptimizingBFS optimizing = new DirectionOptimizingBFS();
+        DirectionOptimizingBFS topDown = new DirectionOptimizingBFS(1, 1);
+        DirectionOptimizingBFS bottomUp =
+                new DirectionOptimizingBFS(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        for (int s = 0; s < g.getVertexCount(); s += 13) {
+            for (int d = 0; d < g.getVertexCount(); d += 5) {
+                int hops = bfs.getPath(g, s, d).size();
+                assertPath(g, s, d, hops, bidirectional.getPath(g, s, d));
+                List<Transport> path = optimizing.getPath(g, s, d);
+                assertPath(g, s, d, hops, path);
+                // the direction used for each level never changes the path
+                assertEquals(path, topDown.getPath(g, s, d));
+                assertEquals(path, bottomUp.getPath(g, s, d));
+            }
+        }
+    }
+
+    // every engine gives the same hop distances, the parallel one on levels
+    // big enough to be split across workers
+    @Test
+    public void testHopDistances() {
+        CompactTravelGraph g = new CompactTravelGraph(
+                createRandomGraph(13, 20000, 80000));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelBFS parallel = new ParallelBFS(pool);
+            DirectionOptimizingBFS optimizing = new DirectionOptimizingBFS();
+            for (int s = 0; s < g.getVertexCount(); s += 4999) {
+                int[] expected = new CompactBFS().getHopDistances(g, s);
+                assertArrayEquals(expected, parallel.getHopDistances(g, s));
+                assertArrayEquals(expected, optimizing.getHopDistances(g, s));
+                assertArrayEquals(expected,
+                        new BidirectionalBFS().getHopDistances(g, s));
+                for (int d = 1; d < g.getVertexCount(); d += 3001) {
+                    assertEquals(optimizing.getPath(g, s, d),
+                            parallel.getPath(g, s, d));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // every hop strategy gives the controller the same answers
+    @Test
+    public void testHopStrategies() {
+        for (HopStrategy strategy : HopStrategy.values()) {
+            TravelController t = new TravelController();
+            t.setHopStrategy(strategy);
+            t.load("data/ourCities3.csv", "data/ourTransport3.csv");
+            assertEquals(2, t.mostDirectRoute("a", "d").size());
+            assertEquals(1, t.mostDirectRoute("a", "b").size());
+            assertEquals(3, t.mostDirectRoute("a", "e").size());
+            assertEquals(0, t.mostDirectRoute("a", "f").size());
+            assertEquals(0, t.mostDirectRoute("a", "a").size());
+            t.load("data/ourCities.csv", "data/ourTransport.csv");
+            assertEquals(2, t.mostDirectRoute("Trenton", "DC").size());
+            assertEquals(2, t.mostDirectRoute("DC", "Trenton").size());
+        }
+    }
+
+    /**
+     * checks that a path is a connected walk from s to d with the inputted
+     * number of legs
+     */
+    private static void assertPath(CompactTravelGraph g, int s, int d,
+                                   int hops, List<Transport> path) {
+        assertEquals(hops, path.size());
+        String at = g.getVertex(s).toString();
+        for (Transport t : path) {
+            assertEquals(at, t.getSource().toString());
+            at = t.getTarget().toString();
+        }
+        if (hops > 0) {
+            assertEquals(g.getVertex(d).toString(), at);
+        }
+    }
+
+    /**
+     * makes a TravelGraph with n cities and m random transports between them
+     */
+    private static TravelGraph createRandomGraph(long seed, int n, int m) {
+        Random random = new Random(seed);
+        TravelGraph tg = new TravelGraph();
+        City[] cities = new City[n];
+        for (int i = 0; i < n; i++) {
+            cities[i] = new City(String.valueOf(i));
+            tg.addVertex(cities[i]);
+        }
+        for (int i = 0; i < m; i++) {
+            City from = cities[random.nextInt(n)];
+            City to = cities[random.nextInt(n)];
+            tg.addEdge(from, new Transport(from, to, TransportType.BUS, 1, 1));
+        }
+        return tg;
+    }
 }
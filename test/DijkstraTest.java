@@ -1,22 +1,52 @@
 package test;
 
 import org.junit.Test;
+import sol.AStar;
+import sol.AllPairsTable;
+import sol.BidirectionalBFS;
+import sol.BidirectionalDijkstra;
+import sol.CompactBFS;
+import sol.CompactDijkstra;
+import sol.CompactTravelGraph;
+import sol.ConstrainedDijkstra;
+import sol.ContractionHierarchy;
 import sol.Dijkstra;
+import sol.DirectionOptimizingBFS;
+import sol.IndexedHeap;
+import sol.LandmarkAStar;
+import sol.RouteCache;
+import sol.RouteMatrix;
+import sol.RouteStrategy;
+import sol.ShortestPathTreeCache;
 import sol.TravelController;
 import sol.TravelGraph;
 import src.City;
+import src.ICompactBFS;
+import src.ICompactDijkstra;
+import src.ICompactGraph;
 import src.IDijkstra;
+import src.IRouteMatrix;
 import src.Transport;
 import src.TransportType;
+import src.Weighting;
 import test.simple.SimpleEdge;
 import test.simple.SimpleGraph;
 import test.simple.SimpleVertex;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class DijkstraTest {
 
@@ -56,6 +86,71 @@ public class DijkstraTest {
         this.graph.addEdge(this.d, new SimpleEdge(5, this.e, this.d));
     }
 
+    /**
+     * Creates a random compact graph of cities "0" to "n - 1".
+     */
+    private CompactTravelGraph createRandomGraph(long seed, int n, int m) {
+        Random random = new Random(seed);
+        TravelGraph tg = new TravelGraph();
+        City[] cities = new City[n];
+        for (int i = 0; i < n; i++) {
+            cities[i] = new City(String.valueOf(i),
+                    25 + 23 * random.nextDouble(),
+                    -123 + 53 * random.nextDouble());
+            tg.addVertex(cities[i]);
+        }
+        TransportType[] types = TransportType.values();
+        for (int i = 0; i < m; i++) {
+            City from = cities[random.nextInt(n)];
+            City to = cities[random.nextInt(n)];
+            tg.addEdge(from, new Transport(from, to,
+                    types[random.nextInt(types.length)],
+                    1 + random.nextInt(100), 10 + random.nextInt(300)));
+        }
+        return new CompactTravelGraph(tg);
+    }
+
+    /**
+     * Sums the weight of a path.
+     */
+    private static double totalWeight(List<Transport> path,
+                                      Weighting weighting) {
+        double total = 0;
+        for (Transport t : path) {
+            total += weighting.getMinutesFactor() * t.getMinutes()
+                    + weighting.getPriceFactor() * t.getPrice();
+        }
+        return total;
+    }
+
+    /**
+     * Checks that an engine finds paths exactly as cheap as CompactDijkstra.
+     */
+    private void assertMatchesDijkstra(CompactTravelGraph g,
+                                       ICompactDijkstra engine,
+                                       Weighting weighting) {
+        CompactDijkstra reference = new CompactDijkstra();
+        for (int s = 0; s < g.getVertexCount(); s += 3) {
+            for (int d = 0; d < g.getVertexCount(); d += 7) {
+                List<Transport> expected =
+                        reference.getShortestPath(g, s, d, weighting);
+                List<Transport> actual =
+                        engine.getShortestPath(g, s, d, weighting);
+                assertEquals(expected.isEmpty(), actual.isEmpty());
+                assertEquals(totalWeight(expected, weighting),
+                        totalWeight(actual, weighting), DELTA);
+                int at = s;
+                for (Transport t : actual) {
+                    assertEquals(g.getVertex(at), t.getSource());
+                    at = g.getVertexId(t.getTarget().toString());
+                }
+                if (!actual.isEmpty()) {
+                    assertEquals(d, at);
+                }
+            }
+        }
+    }
+
     private void createCityGraph(String citiesFile, String transportFile) {
         TravelController t = new TravelController();
         t.load(citiesFile, transportFile);
@@ -210,4 +305,719 @@ public class DijkstraTest {
         List<Transport> path = t.fastestRoute("a", "a");
         assertEquals(path.size(), 0);
     }
+
+    // indexed heap pops in key order and supports decrease-key
+    @Test
+    public void testIndexedHeap() {
+        IndexedHeap heap = new IndexedHeap(2);
+        heap.insert(0, 5.0);
+        heap.insert(1, 3.0);
+        heap.insert(7, 4.0);
+        heap.insert(3, 9.0);
+        heap.decreaseKey(3, 1.0);
+        assertFalse(heap.insertOrDecrease(0, 6.0));
+        assertTrue(heap.insertOrDecrease(0, 2.0));
+        assertEquals(heap.size(), 4);
+        assertEquals(heap.pop(), 3);
+        assertEquals(heap.pop(), 0);
+        assertEquals(heap.pop(), 1);
+        assertFalse(heap.contains(1));
+        assertEquals(heap.pop(), 7);
+        assertTrue(heap.isEmpty());
+    }
+
+    // compact dijkstra on the id arrays matches the generic one
+    @Test
+    public void testCompactDijkstra() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities2.csv", "data/ourTransport2.csv");
+        ICompactGraph g = t.getGraph();
+        CompactDijkstra d = new CompactDijkstra();
+        List<Transport> path = d.getShortestPath(g, g.getVertexId("NYC"),
+                g.getVertexId("Boston"), Weighting.PRICE);
+        assertEquals(path.size(), 2);
+        assertEquals(path.get(1).getTarget().toString(), "Boston");
+        path = d.getShortestPath(g, g.getVertexId("NYC"),
+                g.getVertexId("Boston"), Weighting.MINUTES);
+        assertEquals(path.size(), 1);
+        assertEquals(path.get(0).getMinutes(), 60.0, DELTA);
+    }
+
+    // cost bound prunes paths that are too expensive
+    @Test
+    public void testDijkstraMaxCost() {
+        this.createSimpleGraph();
+        Dijkstra<SimpleVertex, SimpleEdge> dijkstra = new Dijkstra<>();
+        List<SimpleEdge> path = dijkstra.getShortestPath(this.graph, this.a,
+                this.b, e -> e.weight, 6.0);
+        assertEquals(3, path.size());
+        path = dijkstra.getShortestPath(this.graph, this.a, this.b,
+                e -> e.weight, 5.0);
+        assertEquals(0, path.size());
+
+        TravelController t = new TravelController();
+        t.load("data/ourCities2.csv", "data/ourTransport2.csv");
+        ICompactGraph g = t.getGraph();
+        CompactDijkstra d = new CompactDijkstra();
+        assertEquals(2, d.getShortestPath(g, g.getVertexId("NYC"),
+                g.getVertexId("Boston"), Weighting.PRICE, 50.0).size());
+        assertEquals(0, d.getShortestPath(g, g.getVertexId("NYC"),
+                g.getVertexId("Boston"), Weighting.PRICE, 49.0).size());
+    }
+
+    // long itineraries are rebuilt without recursing once per hop
+    @Test
+    public void testDijkstraLongPath() {
+        SimpleGraph chain = new SimpleGraph();
+        SimpleVertex first = new SimpleVertex("0");
+        chain.addVertex(first);
+        SimpleVertex prev = first;
+        for (int i = 1; i <= 100000; i++) {
+            SimpleVertex next = new SimpleVertex(String.valueOf(i));
+            chain.addVertex(next);
+            chain.addEdge(prev, new SimpleEdge(2, prev, next));
+            chain.addEdge(prev, new SimpleEdge(1, prev, next));
+            prev = next;
+        }
+        List<SimpleEdge> path = new Dijkstra<SimpleVertex, SimpleEdge>()
+                .getShortestPath(chain, first, prev, e -> e.weight);
+        assertEquals(100000, path.size());
+        assertEquals(100000, SimpleGraph.getTotalEdgeWeight(path), DELTA);
+        assertEquals(first, path.get(0).source);
+    }
+
+    // bidirectional search finds paths as cheap as the one-sided search
+    @Test
+    public void testBidirectionalDijkstra() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities2.csv", "data/ourTransport2.csv");
+        t.setRouteStrategy(RouteStrategy.BIDIRECTIONAL);
+        List<Transport> path = t.cheapestRoute("NYC", "Boston");
+        assertEquals(path.size(), 2);
+        assertEquals(path.get(0).getTarget().toString(), "Providence");
+        assertEquals(path.get(1).getTarget().toString(), "Boston");
+        path = t.fastestRoute("Boston", "Providence");
+        assertEquals(path.get(0).getMinutes() + path.get(1).getMinutes(),
+                240.0, 0.01);
+        assertEquals(t.cheapestRoute("Boston", "Philly").size(), 0);
+        assertEquals(t.cheapestRoute("Boston", "Boston").size(), 0);
+
+        t.load("data/ourCities.csv", "data/ourTransport.csv");
+        path = t.cheapestRoute("Philly", "NYC");
+        assertEquals(path.get(0).getPrice() + path.get(1).getPrice(),
+                20.0, 0.01);
+    }
+
+    // bidirectional search on random graphs
+    @Test
+    public void testBidirectionalDijkstraRandom() {
+        CompactTravelGraph g = this.createRandomGraph(5, 200, 900);
+        this.assertMatchesDijkstra(g, new BidirectionalDijkstra(),
+                Weighting.MINUTES);
+        this.assertMatchesDijkstra(g, new BidirectionalDijkstra(),
+                Weighting.PRICE);
+    }
+
+    // a star with coordinates on random graphs
+    @Test
+    public void testAStarRandom() {
+        CompactTravelGraph g = this.createRandomGraph(11, 200, 900);
+        AStar aStar = new AStar(g);
+        this.assertMatchesDijkstra(g, aStar, Weighting.MINUTES);
+        this.assertMatchesDijkstra(g, aStar, Weighting.PRICE);
+        this.assertMatchesDijkstra(g, aStar, Weighting.of(1.0, 2.5));
+    }
+
+    // a star on cities loaded with latitude and longitude columns
+    @Test
+    public void testAStar() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        assertTrue(t.getGraph().getCity("Boston").hasLocation());
+        t.setRouteStrategy(RouteStrategy.ASTAR);
+        List<Transport> path = t.fastestRoute("Boston", "DC");
+        assertEquals(path.size(), 2);
+        assertEquals(path.get(0).getMinutes() + path.get(1).getMinutes(),
+                155.0, DELTA);
+        path = t.cheapestRoute("Boston", "DC");
+        assertEquals(path.size(), 4);
+        assertEquals(totalWeight(path, Weighting.PRICE), 113.0, DELTA);
+        assertEquals(t.fastestRoute("Chicago", "Chicago").size(), 0);
+    }
+
+    // a star without coordinates falls back to dijkstra
+    @Test
+    public void testAStarNoLocation() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities2.csv", "data/ourTransport2.csv");
+        t.setRouteStrategy(RouteStrategy.ASTAR);
+        List<Transport> path = t.cheapestRoute("NYC", "Boston");
+        assertEquals(path.size(), 2);
+        assertEquals(path.get(1).getTarget().toString(), "Boston");
+    }
+
+    // landmark a star on random graphs, including unreachable pairs
+    @Test
+    public void testLandmarkAStarRandom() {
+        CompactTravelGraph g = this.createRandomGraph(23, 200, 500);
+        LandmarkAStar alt = new LandmarkAStar(g, 6);
+        assertEquals(6, alt.getLandmarks().length);
+        this.assertMatchesDijkstra(g, alt, Weighting.MINUTES);
+        this.assertMatchesDijkstra(g, alt, Weighting.PRICE);
+        this.assertMatchesDijkstra(g, alt, Weighting.of(0.5, 3.0));
+    }
+
+    // a negative landmark count is rejected up front
+    @Test(expected = IllegalArgumentException.class)
+    public void testLandmarkAStarNegativeCount() {
+        new LandmarkAStar(this.createRandomGraph(23, 20, 50), -1);
+    }
+
+    // landmark tables are saved and reloaded only for the same graph
+    @Test
+    public void testLandmarkAStarSaveLoad() throws IOException {
+        CompactTravelGraph g = this.createRandomGraph(29, 100, 400);
+        File file = File.createTempFile("landmarks", ".alt");
+        file.deleteOnExit();
+        LandmarkAStar alt = new LandmarkAStar(g, 4);
+        alt.save(file.getPath());
+        LandmarkAStar loaded = LandmarkAStar.load(g, file.getPath());
+        assertEquals(alt.getLandmarks()[3], loaded.getLandmarks()[3]);
+        this.assertMatchesDijkstra(g, loaded, Weighting.MINUTES);
+        try {
+            LandmarkAStar.load(this.createRandomGraph(31, 100, 400),
+                    file.getPath());
+            assertTrue(false);
+        } catch (IOException e) {
+            // expected, the tables belong to another graph
+        }
+
+        TravelController t = new TravelController();
+        t.setRouteStrategy(RouteStrategy.LANDMARKS);
+        t.setLandmarks(2, file.getPath());
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        assertEquals(totalWeight(t.cheapestRoute("Boston", "DC"),
+                Weighting.PRICE), 113.0, DELTA);
+        assertEquals(LandmarkAStar.load(t.getGraph(), file.getPath())
+                .getLandmarks().length, 2);
+    }
+
+    // a landmark count below one is rejected before the controller changes
+    @Test
+    public void testSetLandmarksRejectsCount() {
+        TravelController t = new TravelController();
+        t.setRouteStrategy(RouteStrategy.LANDMARKS);
+        for (int count : new int[]{0, -1}) {
+            try {
+                t.setLandmarks(count, null);
+                fail("a landmark count of " + count + " should throw");
+            } catch (IllegalArgumentException e) {
+                assertEquals(e.getMessage(),
+                        "At least one landmark must be picked.");
+            }
+        }
+        assertEquals(t.load("data/ourCities4.csv", "data/ourTransport4.csv"),
+                "Successfully loaded cities and transportation files.");
+        assertEquals(totalWeight(t.cheapestRoute("Boston", "DC"),
+                Weighting.PRICE), 113.0, DELTA);
+    }
+
+    // a landmark file with a count or id out of range is an IOException, so
+    // the controller recomputes the tables instead of failing the load
+    @Test
+    public void testLandmarkAStarCorruptFile() throws IOException {
+        CompactTravelGraph g = this.createRandomGraph(41, 100, 400);
+        File file = File.createTempFile("landmarks", ".alt");
+        file.deleteOnExit();
+        new LandmarkAStar(g, 4).save(file.getPath());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // the count follows the magic, city count and checksum
+            raf.seek(16);
+            raf.writeInt(Integer.MAX_VALUE);
+        }
+        try {
+            LandmarkAStar.load(g, file.getPath());
+            fail("a count larger than the graph should throw");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().endsWith("is corrupt."));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(16);
+            raf.writeInt(4);
+            raf.writeInt(100);
+        }
+        try {
+            LandmarkAStar.load(g, file.getPath());
+            fail("a landmark id outside the graph should throw");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().endsWith("is corrupt."));
+        }
+        assertEquals(file.getParentFile().list((dir, name) ->
+                name.startsWith(file.getName() + ".")).length, 0);
+    }
+
+    // contraction hierarchies on random graphs, for built weightings and
+    // ones answered without a hierarchy
+    @Test
+    public void testContractionHierarchyRandom() {
+        CompactTravelGraph g = this.createRandomGraph(37, 300, 1200);
+        ContractionHierarchy ch = new ContractionHierarchy(g);
+        assertTrue(ch.getShortcutCount(Weighting.MINUTES) > 0);
+        this.assertMatchesDijkstra(g, ch, Weighting.MINUTES);
+        this.assertMatchesDijkstra(g, ch, Weighting.PRICE);
+        this.assertMatchesDijkstra(g, ch, Weighting.of(2.0, 1.0));
+        assertFalse(ch.hasHierarchy(Weighting.of(2.0, 1.0)));
+        ch = new ContractionHierarchy(g, List.of(Weighting.of(2.0, 1.0)));
+        assertTrue(ch.hasHierarchy(Weighting.of(2.0, 1.0)));
+        assertFalse(ch.hasHierarchy(Weighting.MINUTES));
+        this.assertMatchesDijkstra(g, ch, Weighting.of(2.0, 1.0));
+        g = this.createRandomGraph(41, 300, 450);
+        this.assertMatchesDijkstra(g, new ContractionHierarchy(g),
+                Weighting.MINUTES);
+    }
+
+    // contraction hierarchies through the controller
+    @Test
+    public void testContractionHierarchy() {
+        TravelController t = new TravelController();
+        t.setRouteStrategy(RouteStrategy.CONTRACTION);
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        List<Transport> path = t.cheapestRoute("Boston", "DC");
+        assertEquals(path.size(), 4);
+        assertEquals(path.get(0).getSource().toString(), "Boston");
+        assertEquals(path.get(3).getTarget().toString(), "DC");
+        assertEquals(totalWeight(path, Weighting.PRICE), 113.0, DELTA);
+        assertEquals(totalWeight(t.fastestRoute("Chicago", "Philly"),
+                Weighting.MINUTES), 305.0, DELTA);
+        t.load("data/ourCities3.csv", "data/ourTransport3.csv");
+        assertEquals(t.fastestRoute("a", "f").size(), 0);
+    }
+
+    // pareto routes cover the fastest and cheapest and dominate each other
+    @Test
+    public void testParetoRoutes() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        List<List<Transport>> routes = t.paretoRoutes("Boston", "DC");
+        assertTrue(routes.size() >= 2);
+        assertEquals(totalWeight(routes.get(0), Weighting.MINUTES),
+                totalWeight(t.fastestRoute("Boston", "DC"),
+                        Weighting.MINUTES), DELTA);
+        double cheapest = Double.MAX_VALUE;
+        for (List<Transport> route : routes) {
+            cheapest = Math.min(cheapest, totalWeight(route, Weighting.PRICE));
+            assertEquals(route.get(0).getSource().toString(), "Boston");
+            assertEquals(route.get(route.size() - 1).getTarget().toString(),
+                    "DC");
+            for (List<Transport> other : routes) {
+                if (route != other) {
+                    assertFalse(totalWeight(other, Weighting.MINUTES)
+                            <= totalWeight(route, Weighting.MINUTES)
+                            && totalWeight(other, Weighting.PRICE)
+                            <= totalWeight(route, Weighting.PRICE)
+                            && other.size() <= route.size());
+                }
+            }
+        }
+        assertEquals(113.0, cheapest, DELTA);
+        assertEquals(t.paretoRoutes("Boston", "Boston").size(), 0);
+
+        t.load("data/ourCities3.csv", "data/ourTransport3.csv");
+        assertEquals(t.paretoRoutes("a", "f").size(), 0);
+    }
+
+    // fastest route under a budget and cheapest route under a time limit
+    @Test
+    public void testConstrainedRoutes() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        List<Transport> path = t.fastestRouteWithinBudget("Boston", "DC", 200);
+        assertEquals(totalWeight(path, Weighting.MINUTES), 275.0, DELTA);
+        assertEquals(totalWeight(path, Weighting.PRICE), 185.0, DELTA);
+        assertEquals(t.fastestRouteWithinBudget("Boston", "DC", 1000).size(),
+                2);
+        assertEquals(t.fastestRouteWithinBudget("Boston", "DC", 100).size(),
+                0);
+        path = t.cheapestRouteWithinTime("Boston", "DC", 300);
+        assertEquals(totalWeight(path, Weighting.PRICE), 185.0, DELTA);
+        assertEquals(t.cheapestRouteWithinTime("Boston", "DC", 100).size(), 0);
+        assertEquals(t.cheapestRouteWithinTime("DC", "DC", 0).size(), 0);
+    }
+
+    // constrained search on random graphs agrees with the pareto frontier
+    @Test
+    public void testConstrainedRandom() {
+        CompactTravelGraph g = this.createRandomGraph(43, 150, 700);
+        ConstrainedDijkstra search = new ConstrainedDijkstra();
+        CompactDijkstra dijkstra = new CompactDijkstra();
+        for (int s = 0; s < 150; s += 13) {
+            for (int d = 1; d < 150; d += 17) {
+                List<Transport> cheapest = dijkstra.getShortestPath(g, s, d,
+                        Weighting.PRICE);
+                List<Transport> fastest = dijkstra.getShortestPath(g, s, d,
+                        Weighting.MINUTES);
+                double budget = totalWeight(cheapest, Weighting.PRICE);
+                List<Transport> path = search.getShortestPath(g, s, d,
+                        Weighting.MINUTES, Weighting.PRICE, budget);
+                assertEquals(cheapest.isEmpty(), path.isEmpty());
+                assertTrue(totalWeight(path, Weighting.PRICE) <= budget + DELTA);
+                assertTrue(totalWeight(path, Weighting.MINUTES)
+                        <= totalWeight(cheapest, Weighting.MINUTES) + DELTA);
+                path = search.getShortestPath(g, s, d, Weighting.MINUTES,
+                        Weighting.PRICE, Double.MAX_VALUE);
+                assertEquals(totalWeight(fastest, Weighting.MINUTES),
+                        totalWeight(path, Weighting.MINUTES), DELTA);
+            }
+        }
+    }
+
+    // blended weights choose between fastest and cheapest
+    @Test
+    public void testWeightedRoute() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        assertEquals(totalWeight(t.weightedRoute("Boston", "DC", 1, 0),
+                Weighting.MINUTES), 155.0, DELTA);
+        assertEquals(totalWeight(t.weightedRoute("Boston", "DC", 0, 1),
+                Weighting.PRICE), 113.0, DELTA);
+        List<Transport> path = t.weightedRoute("Boston", "DC", 1, 1);
+        assertEquals(totalWeight(path, Weighting.of(1, 1)), 425.0, DELTA);
+    }
+
+    // weights must be non-negative and not both 0
+    @Test(expected = IllegalArgumentException.class)
+    public void testWeightedRouteInvalid() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        t.weightedRoute("Boston", "DC", 0, 0);
+    }
+
+    // the matrix matches one dijkstra sweep per source, duplicate and
+    // unreachable destinations included
+    @Test
+    public void testRouteMatrix() {
+        CompactTravelGraph g = this.createRandomGraph(17, 300, 700);
+        int[] sources = new int[40];
+        int[] destinations = new int[25];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = (i * 7) % g.getVertexCount();
+        }
+        for (int j = 0; j < destinations.length; j++) {
+            destinations[j] = (j * 13) % 120;
+        }
+        destinations[24] = destinations[3];
+        CompactDijkstra dijkstra = new CompactDijkstra();
+        for (Weighting weighting : new Weighting[] {Weighting.MINUTES,
+                Weighting.PRICE}) {
+            RouteMatrix matrix = new RouteMatrix(g, sources, destinations,
+                    weighting, true);
+            double[][] costs = matrix.getCosts();
+            for (int i = 0; i < sources.length; i++) {
+                double[] expected = dijkstra.getDistancesFrom(g, sources[i],
+                        weighting);
+                for (int j = 0; j < destinations.length; j++) {
+                    assertEquals(expected[destinations[j]], costs[i][j],
+                            DELTA);
+                    List<Transport> path = matrix.getPath(i, j);
+                    if (costs[i][j] != Double.POSITIVE_INFINITY) {
+                        assertEquals(costs[i][j],
+                                totalWeight(path, weighting), DELTA);
+                    } else {
+                        assertTrue(path.isEmpty());
+                    }
+                }
+            }
+        }
+    }
+
+    // matrix queries through the controller
+    @Test
+    public void testControllerMatrix() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        List<String> sources = List.of("Boston", "Chicago");
+        List<String> destinations = List.of("DC", "Philly", "Boston");
+        IRouteMatrix<Transport> fastest =
+                t.fastestMatrix(sources, destinations, false);
+        assertFalse(fastest.hasPaths());
+        assertEquals(155.0, fastest.getCost(0, 0), DELTA);
+        assertEquals(305.0, fastest.getCost(1, 1), DELTA);
+        assertEquals(0.0, fastest.getCost(0, 2), DELTA);
+        IRouteMatrix<Transport> cheapest =
+                t.cheapestMatrix(sources, destinations, true);
+        assertEquals(113.0, cheapest.getCost(0, 0), DELTA);
+        assertEquals(4, cheapest.getPath(0, 0).size());
+        assertTrue(cheapest.getPath(0, 2).isEmpty());
+    }
+
+    // paths cannot be asked for when they were not kept
+    @Test(expected = IllegalStateException.class)
+    public void testMatrixWithoutPaths() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        t.fastestMatrix(List.of("Boston"), List.of("DC"), false)
+                .getPath(0, 0);
+    }
+
+    // all pairs tables give the same costs and hop counts as searching
+    @Test
+    public void testAllPairsTable() {
+        CompactTravelGraph g = this.createRandomGraph(19, 150, 500);
+        AllPairsTable table = new AllPairsTable(g);
+        this.assertMatchesDijkstra(g, table, Weighting.MINUTES);
+        this.assertMatchesDijkstra(g, table, Weighting.PRICE);
+        this.assertMatchesDijkstra(g, table, Weighting.of(1, 2));
+        CompactBFS bfs = new CompactBFS();
+        CompactDijkstra dijkstra = new CompactDijkstra();
+        for (int s = 0; s < g.getVertexCount(); s += 9) {
+            int[] hops = bfs.getHopDistances(g, s);
+            assertArrayEquals(hops, table.getHopDistances(g, s));
+            double[] minutes = dijkstra.getDistancesFrom(g, s,
+                    Weighting.MINUTES);
+            for (int d = 0; d < g.getVertexCount(); d++) {
+                assertEquals(Math.max(hops[d], 0),
+                        table.getPath(g, s, d).size());
+                assertEquals(minutes[d],
+                        table.getCost(s, d, Weighting.MINUTES), DELTA);
+            }
+        }
+    }
+
+    // the controller only builds the tables when they fit the budget
+    @Test
+    public void testAllPairsBudget() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        assertFalse(t.hasAllPairsTable());
+        t.setAllPairsBudget(AllPairsTable.estimateBytes(6) - 1);
+        assertFalse(t.hasAllPairsTable());
+        t.setAllPairsBudget(AllPairsTable.estimateBytes(6));
+        assertTrue(t.hasAllPairsTable());
+        assertEquals(totalWeight(t.fastestRoute("Boston", "DC"),
+                Weighting.MINUTES), 155.0, DELTA);
+        assertEquals(totalWeight(t.cheapestRoute("Boston", "DC"),
+                Weighting.PRICE), 113.0, DELTA);
+        assertEquals(totalWeight(t.fastestRoute("Chicago", "Philly"),
+                Weighting.MINUTES), 305.0, DELTA);
+        assertTrue(t.fastestRoute("DC", "DC").isEmpty());
+        t.load("data/ourCities3.csv", "data/ourTransport3.csv");
+        assertTrue(t.hasAllPairsTable());
+        assertEquals(3, t.mostDirectRoute("a", "e").size());
+        assertEquals(0, t.mostDirectRoute("a", "f").size());
+    }
+
+    // repeated queries are answered from the cache until the next load
+    @Test
+    public void testRouteCache() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        RouteCache cache = t.getRouteCache();
+        List<Transport> first = t.fastestRoute("Boston", "DC");
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertTrue(first == t.fastestRoute("Boston", "DC"));
+        assertEquals(1, cache.getHitCount());
+        // the same pair under another metric is its own entry
+        assertEquals(totalWeight(t.cheapestRoute("Boston", "DC"),
+                Weighting.PRICE), 113.0, DELTA);
+        t.mostDirectRoute("Boston", "DC");
+        t.weightedRoute("Boston", "DC", 1, 1);
+        assertEquals(4, cache.size());
+        assertEquals(4, cache.getMissCount());
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        assertEquals(0, cache.size());
+        assertFalse(first == t.fastestRoute("Boston", "DC"));
+        assertEquals(5, cache.getMissCount());
+    }
+
+    // the least recently used path is evicted first
+    @Test
+    public void testRouteCacheEviction() {
+        RouteCache cache = new RouteCache(2);
+        CompactTravelGraph g = this.createRandomGraph(1, 4, 0);
+        List<Transport> empty = List.of();
+        cache.get(g, 0, 1, Weighting.MINUTES, () -> empty);
+        cache.get(g, 0, 2, Weighting.MINUTES, () -> empty);
+        cache.get(g, 0, 1, Weighting.MINUTES, () -> empty);
+        cache.get(g, 0, 3, Weighting.MINUTES, () -> empty);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHitCount());
+        cache.get(g, 0, 1, Weighting.MINUTES, () -> empty);
+        assertEquals(2, cache.getHitCount());
+        cache.get(g, 0, 2, Weighting.MINUTES, () -> empty);
+        assertEquals(4, cache.getMissCount());
+    }
+
+    // lookups from many threads keep the counts and stay near the capacity
+    @Test
+    public void testRouteCacheConcurrent() throws Exception {
+        RouteCache cache = new RouteCache(64);
+        CompactTravelGraph g = this.createRandomGraph(3, 300, 0);
+        List<Transport> empty = List.of();
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            int seed = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    Random random = new Random(seed);
+                    for (int q = 0; q < 2000; q++) {
+                        int d = random.nextInt(10) < 8 ? random.nextInt(16)
+                                : random.nextInt(300);
+                        assertTrue(cache.get(g, 0, d, Weighting.MINUTES,
+                                () -> empty).isEmpty());
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(16000, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.getHitCount() > 8000);
+        cache.get(g, 0, 299, Weighting.PRICE, () -> empty);
+        assertTrue(cache.size() <= 64);
+    }
+
+    // cached paths cannot be changed by callers
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCachedRouteIsImmutable() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        t.fastestRoute("Boston", "DC").clear();
+    }
+
+    // kept searches answer like fresh ones, resumed or evicted
+    @Test
+    public void testShortestPathTreeCache() {
+        CompactTravelGraph g = this.createRandomGraph(23, 200, 800);
+        ShortestPathTreeCache trees = new ShortestPathTreeCache(g, 3);
+        this.assertMatchesDijkstra(g, trees, Weighting.MINUTES);
+        this.assertMatchesDijkstra(g, trees, Weighting.PRICE);
+        assertEquals(3, trees.getTreeCount());
+        assertTrue(trees.getRetainedBytes() > 0);
+        assertTrue(trees.getRetainedBytes() <= 3L * 200 * (8 + 4 + 1 + 16));
+    }
+
+    // the controller only keeps searches under the tree strategy, and
+    // reports the memory they take
+    @Test
+    public void testControllerShortestPathTrees() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        t.setRouteCacheCapacity(0);
+        assertEquals(totalWeight(t.fastestRoute("Boston", "DC"),
+                Weighting.MINUTES), 155.0, DELTA);
+        assertEquals(0, t.getRetainedTreeBytes());
+        t.setRouteStrategy(RouteStrategy.SHORTEST_PATH_TREES);
+        assertEquals(totalWeight(t.fastestRoute("Boston", "DC"),
+                Weighting.MINUTES), 155.0, DELTA);
+        // a source asked once is searched without keeping a tree
+        assertEquals(0, t.getRetainedTreeBytes());
+        assertEquals(totalWeight(t.fastestRoute("Boston", "DC"),
+                Weighting.MINUTES), 155.0, DELTA);
+        long retained = t.getRetainedTreeBytes();
+        assertTrue(retained > 0);
+        assertEquals(totalWeight(t.fastestRoute("Boston", "Philly"),
+                Weighting.MINUTES), totalWeight(new CompactDijkstra()
+                .getShortestPath(t.getGraph(), 0, 3, Weighting.MINUTES),
+                Weighting.MINUTES), DELTA);
+        assertTrue(t.getRetainedTreeBytes() <= retained);
+        t.setRouteStrategy(RouteStrategy.CONTRACTION);
+        assertEquals(0, t.getRetainedTreeBytes());
+    }
+
+    // queries from many threads stay correct while the graph is reloaded
+    @Test
+    public void testConcurrentQueriesDuringLoad() throws Exception {
+        TravelController t = new TravelController();
+        t.setRouteCacheCapacity(0);
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        AtomicBoolean loading = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                try {
+                    while (loading.get()) {
+                        assertEquals(155.0, totalWeight(t.fastestRoute(
+                                "Boston", "DC"), Weighting.MINUTES), DELTA);
+                        assertEquals(4, t.cheapestRoute("Boston", "DC")
+                                .size());
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            readers[i].start();
+        }
+        RouteStrategy[] strategies = RouteStrategy.values();
+        for (int i = 0; i < 40; i++) {
+            t.setRouteStrategy(strategies[i % strategies.length]);
+            t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        }
+        loading.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    // searches reusing one thread's workspace across graphs of different
+    // sizes never see what an earlier search left behind
+    @Test
+    public void testWorkspaceReuse() {
+        CompactTravelGraph big = this.createRandomGraph(29, 300, 500);
+        CompactTravelGraph small = this.createRandomGraph(31, 40, 60);
+        CompactDijkstra dijkstra = new CompactDijkstra();
+        CompactBFS bfs = new CompactBFS();
+        ICompactBFS[] hopEngines = {new BidirectionalBFS(),
+            new DirectionOptimizingBFS(), new DirectionOptimizingBFS(1, 1)};
+        ICompactDijkstra[][] engines = new ICompactDijkstra[2][];
+        CompactTravelGraph[] graphs = {small, big};
+        for (int i = 0; i < graphs.length; i++) {
+            engines[i] = new ICompactDijkstra[] {dijkstra,
+                new BidirectionalDijkstra(), new AStar(graphs[i]),
+                new LandmarkAStar(graphs[i], 3),
+                new ContractionHierarchy(graphs[i])};
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < graphs.length; i++) {
+                CompactTravelGraph g = graphs[i];
+                for (int s = 0; s < g.getVertexCount(); s += 7) {
+                    double[] expected = dijkstra.getDistancesFrom(g, s,
+                            Weighting.MINUTES);
+                    int[] hops = bfs.getHopDistances(g, s);
+                    for (int d = 0; d < g.getVertexCount(); d += 3) {
+                        double cost = expected[d] == Double.POSITIVE_INFINITY
+                                || s == d ? 0.0 : expected[d];
+                        for (ICompactDijkstra engine : engines[i]) {
+                            assertEquals(cost, totalWeight(
+                                    engine.getShortestPath(g, s, d,
+                                            Weighting.MINUTES),
+                                    Weighting.MINUTES), DELTA);
+                        }
+                        assertEquals(Math.max(hops[d], 0),
+                                bfs.getPath(g, s, d).size());
+                        for (ICompactBFS engine : hopEngines) {
+                            assertEquals(Math.max(hops[d], 0),
+                                    engine.getPath(g, s, d).size());
+                        }
+                    }
+                    for (ICompactBFS engine : hopEngines) {
+                        assertArrayEquals(hops,
+                                engine.getHopDistances(g, s));
+                    }
+                }
+            }
+        }
+    }
 }
@@ -1,17 +1,46 @@
 package test;
 
 import org.junit.Test;
+import sol.CompactBFS;
+import sol.CompactDijkstra;
+import sol.CompactGraphBuilder;
+import sol.CompactTravelGraph;
+import sol.GraphSnapshot;
+import sol.GraphUpdate;
+import sol.LoadStrategy;
+import sol.MappedTravelGraph;
+import sol.MappedTransportLoader;
 import sol.TravelController;
 import sol.TravelGraph;
+import src.CSVRowReader;
 import src.City;
+import src.ICompactGraph;
 import src.Transport;
 import src.TransportType;
+import src.Weighting;
 import test.simple.SimpleEdge;
 import test.simple.SimpleGraph;
 import test.simple.SimpleVertex;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class GraphTest {
     private SimpleGraph graph;
@@ -230,4 +259,525 @@ public class GraphTest {
         tg.getCity("alberta");
     }
 
+    //compact graph keeps vertices, edges and weights of the TravelGraph
+    @Test
+    public void testCompactGraph1() {
+        this.createGraph();
+        CompactTravelGraph cg = new CompactTravelGraph(this.graph1);
+        assertEquals(cg.getVertexCount(), 3);
+        assertEquals(cg.getEdgeCount(), 4);
+        int f = cg.getVertexId("Franklin");
+        assertEquals(cg.getEdgeEnd(f) - cg.getEdgeStart(f), 2);
+        for (int e = cg.getEdgeStart(f); e < cg.getEdgeEnd(f); e++) {
+            assertEquals(cg.getEdgeSourceId(e), f);
+            if (cg.getEdgeTargetId(e) == cg.getVertexId("Nashville")) {
+                assertEquals(cg.getMinutes(e), 30.0, 0.001);
+                assertEquals(cg.getPrice(e), 10.0, 0.001);
+                assertEquals(cg.getType(e), TransportType.BUS);
+            }
+        }
+        assertEquals(cg.getOutgoingEdges(cg.getCity("Nashville")).size(), 1);
+    }
+
+    //compact graph views are materialized once and reused
+    @Test
+    public void testCompactGraph2() {
+        this.createGraph();
+        CompactTravelGraph cg = new CompactTravelGraph(this.graph1);
+        int a = cg.getVertexId("Atlanta");
+        assertTrue(cg.getVertex(a) == cg.getCity("Atlanta"));
+        int e = cg.getEdgeStart(a);
+        assertTrue(cg.getEdge(e) == cg.getEdge(e));
+        assertEquals(cg.getEdge(e).getTarget().toString(), "Franklin");
+    }
+
+    // testing exception for getCity when city name is not in compact graph
+    @Test (expected = IllegalArgumentException.class)
+    public void testCompactGraph3() {
+        CompactTravelGraph cg = new CompactTravelGraph(new TravelGraph());
+        cg.getCity("alberta");
+    }
+
+    // compact graph cannot be modified
+    @Test (expected = UnsupportedOperationException.class)
+    public void testCompactGraph4() {
+        this.createGraph();
+        CompactTravelGraph cg = new CompactTravelGraph(this.graph1);
+        cg.addVertex(new City("Memphis"));
+    }
+
+    //incoming edges are indexed alongside outgoing edges
+    @Test
+    public void testGetIncomingEdges() {
+        this.createGraph();
+        assertEquals(this.graph1.getIncomingEdges(this.franklin).size(), 2);
+        assertTrue(this.graph1.getIncomingEdges(this.franklin)
+                .contains(this.edgeAF));
+        assertTrue(this.graph1.getIncomingEdges(this.franklin)
+                .contains(this.edgeNF));
+        CompactTravelGraph cg = new CompactTravelGraph(this.graph1);
+        int f = cg.getVertexId("Franklin");
+        assertEquals(cg.getInEdgeEnd(f) - cg.getInEdgeStart(f), 2);
+        for (int i = cg.getInEdgeStart(f); i < cg.getInEdgeEnd(f); i++) {
+            assertEquals(cg.getEdgeTargetId(cg.getInEdge(i)), f);
+        }
+        assertEquals(cg.getIncomingEdges(cg.getCity("Atlanta")).size(), 1);
+    }
+
+    //streamed rows unquote fields, skip blank lines and survive refills
+    @Test
+    public void testCSVRowReader() throws IOException {
+        String csv = "name,price,latitude\r\n"
+                + "Boston,15,42.5\r\n"
+                + "\n"
+                + "\"New, \"\"York\"\"\",-0.25,\n"
+                + "\"Multi\nLine\",1e3, 7 \r"
+                + "Short";
+        CSVRowReader rows = new CSVRowReader(new StringReader(csv), 4);
+        int name = rows.requireColumn("name");
+        int price = rows.requireColumn("price");
+        int latitude = rows.getColumn("latitude");
+        assertEquals(rows.getColumn("longitude"), -1);
+        assertTrue(rows.next());
+        assertEquals(rows.getString(name), "Boston");
+        assertEquals(rows.getDouble(price), 15.0, 0.0);
+        assertEquals(rows.getOptionalDouble(latitude), 42.5, 0.0);
+        assertTrue(rows.next());
+        assertEquals(rows.getField(name).toString(), "New, \"York\"");
+        assertEquals(rows.getDouble(price), -0.25, 0.0);
+        assertTrue(Double.isNaN(rows.getOptionalDouble(latitude)));
+        assertTrue(rows.next());
+        assertEquals(rows.getString(name), "Multi\nLine");
+        assertEquals(rows.getDouble(price), 1000.0, 0.0);
+        assertEquals(rows.getOptionalDouble(latitude), 7.0, 0.0);
+        assertTrue(rows.next());
+        assertEquals(rows.getField(name).length(), 5);
+        assertTrue(rows.isBlank(price));
+        assertFalse(rows.next());
+    }
+
+    //numbers parsed from the buffer match Double.parseDouble
+    @Test
+    public void testCSVRowReaderNumbers() throws IOException {
+        Random random = new Random(7);
+        StringBuilder csv = new StringBuilder("value\n");
+        String[] values = new String[500];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = switch (i % 4) {
+                case 0 -> Integer.toString(random.nextInt(100000));
+                case 1 -> Double.toString(random.nextDouble() * 1000);
+                case 2 -> String.format("%.2f", random.nextDouble() * 500);
+                default -> "12345678901234567890." + random.nextInt(1000);
+            };
+            csv.append(values[i]).append('\n');
+        }
+        CSVRowReader rows = new CSVRowReader(new StringReader(csv.toString()));
+        for (String value : values) {
+            assertTrue(rows.next());
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(value)),
+                    Double.doubleToLongBits(rows.getDouble(0)));
+        }
+        assertFalse(rows.next());
+    }
+
+    //a built graph matches the frozen TravelGraph given the same rows
+    @Test
+    public void testCompactGraphBuilder() {
+        Random random = new Random(11);
+        TravelGraph tg = new TravelGraph();
+        CompactGraphBuilder builder = new CompactGraphBuilder();
+        int n = 200;
+        for (int v = 0; v < n; v++) {
+            tg.addVertex(new City("c" + v, v, -v));
+            builder.addCity("c" + v, v, -v);
+        }
+        // adding a city again keeps its place and takes the new location
+        tg.addVertex(new City("c3", 1.5, 2.5));
+        builder.addCity("c3", 1.5, 2.5);
+        TransportType[] types = TransportType.values();
+        for (int e = 0; e < 1000; e++) {
+            String from = "c" + random.nextInt(n);
+            String to = "c" + random.nextInt(n);
+            TransportType type = types[random.nextInt(types.length)];
+            double price = random.nextInt(100);
+            double minutes = random.nextInt(300);
+            tg.addEdge(tg.getCity(from), new Transport(tg.getCity(from),
+                    tg.getCity(to), type, price, minutes));
+            builder.addEdge(builder.getCityId(from),
+                    builder.getCityId(new StringBuilder(to)), type, price,
+                    minutes);
+        }
+        this.assertSameGraph(new CompactTravelGraph(tg), builder.build());
+    }
+
+    /**
+     * Checks that two compact graphs have the same cities and transports
+     * under the same ids.
+     */
+    private void assertSameGraph(ICompactGraph expected,
+                                 ICompactGraph built) {
+        assertEquals(built.getVertexCount(), expected.getVertexCount());
+        assertEquals(built.getEdgeCount(), expected.getEdgeCount());
+        for (int v = 0; v < built.getVertexCount(); v++) {
+            assertEquals(built.getVertex(v).toString(),
+                    expected.getVertex(v).toString());
+            assertEquals(built.getLatitude(v), expected.getLatitude(v), 0.0);
+            assertEquals(built.getEdgeStart(v), expected.getEdgeStart(v));
+            assertEquals(built.getInEdgeStart(v), expected.getInEdgeStart(v));
+        }
+        for (int e = 0; e < built.getEdgeCount(); e++) {
+            assertEquals(built.getEdgeTargetId(e), expected.getEdgeTargetId(e));
+            assertEquals(built.getMinutes(e), expected.getMinutes(e), 0.0);
+            assertEquals(built.getPrice(e), expected.getPrice(e), 0.0);
+            assertEquals(built.getType(e), expected.getType(e));
+            assertEquals(built.getInEdge(e), expected.getInEdge(e));
+        }
+    }
+
+    //parsing a mapped file in many small chunks builds the streamed graph
+    @Test
+    public void testMappedTransportLoader() throws IOException {
+        Random random = new Random(13);
+        CompactGraphBuilder streamed = new CompactGraphBuilder();
+        CompactGraphBuilder mapped = new CompactGraphBuilder();
+        int n = 50;
+        for (int v = 0; v < n; v++) {
+            streamed.addCity("c" + v, Double.NaN, Double.NaN);
+            mapped.addCity("c" + v, Double.NaN, Double.NaN);
+        }
+        streamed.addCity("S\u00e3o Paulo, BR", Double.NaN, Double.NaN);
+        mapped.addCity("S\u00e3o Paulo, BR", Double.NaN, Double.NaN);
+        File file = File.createTempFile("transport", ".csv");
+        file.deleteOnExit();
+        String[] types = {"bus", "Train", "PLANE"};
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8)) {
+            out.write("type,origin,notes,destination,price,duration\r\n");
+            for (int e = 0; e < 2000; e++) {
+                String from = "c" + random.nextInt(n);
+                String to = e % 97 == 0 ? "\"S\u00e3o Paulo, BR\""
+                        : "c" + random.nextInt(n);
+                out.write(types[random.nextInt(3)] + "," + from
+                        + ",\"a, \"\"b\"\"\"," + to + ","
+                        + random.nextInt(100) + "." + random.nextInt(100)
+                        + "," + random.nextInt(300)
+                        + (e % 3 == 0 ? "\r\n" : "\n"));
+                if (e % 500 == 0) {
+                    out.write("\n");
+                }
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new MappedTransportLoader(pool, 64).load(file.getPath(), mapped);
+        } finally {
+            pool.shutdown();
+        }
+        try (CSVRowReader rows = new CSVRowReader(new FileReader(file,
+                StandardCharsets.UTF_8))) {
+            while (rows.next()) {
+                streamed.addEdge(
+                        streamed.getCityId(rows.getField(
+                                rows.getColumn("origin"))),
+                        streamed.getCityId(rows.getField(
+                                rows.getColumn("destination"))),
+                        TransportType.parse(rows.getField(
+                                rows.getColumn("type"))),
+                        rows.getDouble(rows.getColumn("price")),
+                        rows.getDouble(rows.getColumn("duration")));
+            }
+        }
+        assertEquals(mapped.getEdgeCount(), 2000);
+        this.assertSameGraph(streamed.build(), mapped.build());
+    }
+
+    //both load strategies build the same graph
+    @Test
+    public void testControllerLoadStrategies() {
+        TravelController streamed = new TravelController();
+        streamed.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        TravelController mapped = new TravelController();
+        mapped.setLoadStrategy(LoadStrategy.MAPPED);
+        assertEquals(mapped.load("data/ourCities4.csv",
+                "data/ourTransport4.csv"),
+                "Successfully loaded cities and transportation files.");
+        this.assertSameGraph(streamed.getGraph(), mapped.getGraph());
+        assertEquals(mapped.load("data/ourCities4.csv", "data/missing.csv"),
+                "Error parsing file: data/missing.csv");
+    }
+
+    //a snapshot reads back the graph it was written from
+    @Test
+    public void testGraphSnapshot() throws IOException {
+        Random random = new Random(17);
+        CompactGraphBuilder builder = new CompactGraphBuilder();
+        int n = 100;
+        for (int v = 0; v < n; v++) {
+            builder.addCity("c\u00e9" + v, v % 3 == 0 ? Double.NaN : v, -v);
+        }
+        TransportType[] types = TransportType.values();
+        for (int e = 0; e < 600; e++) {
+            builder.addEdge(random.nextInt(n), random.nextInt(n),
+                    types[random.nextInt(types.length)],
+                    random.nextDouble() * 100, random.nextInt(300));
+        }
+        CompactTravelGraph graph = builder.build();
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        GraphSnapshot.write(graph, file.getPath());
+        CompactTravelGraph read = GraphSnapshot.read(file.getPath());
+        this.assertSameGraph(graph, read);
+        assertTrue(Double.isNaN(read.getLatitude(0)));
+        assertEquals(read.getVertexId("c\u00e97"), 7);
+    }
+
+    // a snapshot whose bytes changed is rejected
+    @Test (expected = IOException.class)
+    public void testGraphSnapshotCorrupt() throws IOException {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        GraphSnapshot.write(t.getGraph(), file.getPath());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write(raf.read() ^ 1);
+        }
+        GraphSnapshot.read(file.getPath());
+    }
+
+    //the controller answers the same from a saved snapshot
+    @Test
+    public void testControllerSnapshot() throws IOException {
+        TravelController t = new TravelController();
+        assertEquals(t.saveSnapshot("unused"), "Nothing has been loaded.");
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        assertEquals(t.saveSnapshot(file.getPath()),
+                "Successfully saved snapshot.");
+        TravelController restarted = new TravelController();
+        assertEquals(restarted.loadSnapshot(file.getPath()),
+                "Successfully loaded snapshot.");
+        this.assertSameGraph(t.getGraph(), restarted.getGraph());
+        List<Transport> path = restarted.fastestRoute("Boston", "DC");
+        assertEquals(path.get(0).getMinutes() + path.get(1).getMinutes(),
+                155.0, 0.001);
+        assertEquals(restarted.loadSnapshot("data/ourCities4.csv"),
+                "Error reading file: data/ourCities4.csv");
+        assertEquals(restarted.getGraph().getVertexCount(), 6);
+    }
+
+    //searches read a mapped snapshot the same as the graph it came from
+    @Test
+    public void testMappedTravelGraph() throws IOException {
+        Random random = new Random(19);
+        CompactGraphBuilder builder = new CompactGraphBuilder();
+        int n = 150;
+        for (int v = 0; v < n; v++) {
+            builder.addCity("c" + v, v, -v);
+        }
+        TransportType[] types = TransportType.values();
+        for (int e = 0; e < 700; e++) {
+            builder.addEdge(random.nextInt(n), random.nextInt(n),
+                    types[random.nextInt(types.length)],
+                    random.nextInt(100), 1 + random.nextInt(300));
+        }
+        CompactTravelGraph graph = builder.build();
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        GraphSnapshot.write(graph, file.getPath());
+        MappedTravelGraph mapped = new MappedTravelGraph(file.getPath());
+        this.assertSameGraph(graph, mapped);
+        assertTrue(mapped.getCity("c4") == mapped.getVertex(4));
+        assertEquals(mapped.getOutgoingEdges(mapped.getCity("c4")).size(),
+                graph.getEdgeEnd(4) - graph.getEdgeStart(4));
+        CompactDijkstra dijkstra = new CompactDijkstra();
+        CompactBFS bfs = new CompactBFS();
+        for (int s = 0; s < n; s += 10) {
+            assertArrayEquals(dijkstra.getDistancesFrom(graph, s,
+                    Weighting.PRICE), dijkstra.getDistancesFrom(mapped, s,
+                    Weighting.PRICE), 0.0);
+            assertArrayEquals(bfs.getHopDistances(graph, s),
+                    bfs.getHopDistances(mapped, s));
+        }
+    }
+
+    //the controller can serve queries from a mapped snapshot
+    @Test
+    public void testControllerMapSnapshot() throws IOException {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        t.saveSnapshot(file.getPath());
+        TravelController mapped = new TravelController();
+        assertEquals(mapped.mapSnapshot(file.getPath()),
+                "Successfully mapped snapshot.");
+        assertTrue(mapped.getGraph() instanceof MappedTravelGraph);
+        List<Transport> path = mapped.cheapestRoute("Boston", "DC");
+        assertEquals(path.size(), 4);
+        assertEquals(mapped.mostDirectRoute("Boston", "DC").size(),
+                t.mostDirectRoute("Boston", "DC").size());
+        assertEquals(mapped.mapSnapshot("data/ourCities4.csv"),
+                "Error reading file: data/ourCities4.csv");
+        assertEquals(mapped.saveSnapshot(file.getPath()),
+                "Cannot save over the mapped snapshot: " + file.getPath());
+    }
+
+    //a snapshot is replaced whole, so a graph mapped from the old one keeps
+    //reading it and no temporary file is left behind
+    @Test
+    public void testGraphSnapshotReplace() throws IOException {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        File dir = Files.createTempDirectory("snapshots").toFile();
+        File file = new File(dir, "graph.snapshot");
+        assertEquals(t.saveSnapshot(file.getPath()),
+                "Successfully saved snapshot.");
+        MappedTravelGraph mapped = new MappedTravelGraph(file.getPath());
+        CompactTravelGraph other = new CompactGraphBuilder().build();
+        GraphSnapshot.write(other, file.getPath());
+        this.assertSameGraph(t.getGraph(), mapped);
+        assertEquals(GraphSnapshot.read(file.getPath()).getVertexCount(), 0);
+        assertEquals(dir.list().length, 1);
+        assertTrue(file.delete());
+        assertTrue(dir.delete());
+    }
+
+    //updates publish a new graph while the old one stays as it was
+    @Test
+    public void testGraphUpdate() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        assertEquals(totalMinutes(t.fastestRoute("Boston", "DC")), 155.0,
+                0.001);
+        ICompactGraph before = t.getGraph();
+        assertEquals(t.update(new GraphUpdate().reprice("NYC", "DC",
+                TransportType.PLANE, 150, 300)),
+                "Successfully applied 1 changes.");
+        assertEquals(totalMinutes(t.fastestRoute("Boston", "DC")), 275.0,
+                0.001);
+        assertEquals(t.getGraph().getEdgeCount(), before.getEdgeCount());
+        // a query still running on the old graph sees none of the update
+        int nyc = before.getVertexId("NYC");
+        for (int e = before.getEdgeStart(nyc); e < before.getEdgeEnd(nyc);
+                e++) {
+            if (before.getType(e) == TransportType.PLANE) {
+                assertEquals(before.getMinutes(e), 80.0, 0.0);
+            }
+        }
+
+        t.update(new GraphUpdate()
+                .removeTransport("Boston", "NYC", TransportType.PLANE)
+                .addCity("Baltimore", 39.29, -76.61)
+                .addTransport("NYC", "Baltimore", TransportType.TRAIN, 10, 60)
+                .addTransport("Baltimore", "DC", TransportType.BUS, 5, 30)
+                .removeCity("Chicago"));
+        List<Transport> path = t.fastestRoute("Boston", "DC");
+        assertEquals(totalMinutes(path), 315.0, 0.001);
+        assertEquals(path.get(path.size() - 1).getSource().toString(),
+                "Baltimore");
+        assertEquals(t.getGraph().getVertexCount(), 6);
+        assertEquals(t.getGraph().getEdgeCount(), 13);
+        assertTrue(t.getGraph().getCity("Baltimore").hasLocation());
+    }
+
+    //transports added in a batch can be changed and removed by later changes
+    //of the same batch, and a mapped graph is copied onto the heap
+    @Test
+    public void testGraphUpdateAddedAndMapped() throws IOException {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        t.update(new GraphUpdate()
+                .addCity("Albany", 42.65, -73.75)
+                .addTransport("Boston", "Albany", TransportType.BUS, 20, 180)
+                .addTransport("Albany", "NYC", TransportType.TRAIN, 30, 150)
+                .reprice("Albany", "NYC", TransportType.TRAIN, 30, 60)
+                .removeCity("Providence"));
+        assertEquals(totalMinutes(t.fastestRoute("Albany", "NYC")), 60.0,
+                0.001);
+        assertEquals(t.getGraph().getVertexCount(), 6);
+        assertEquals(t.getGraph().getEdgeCount(), 12);
+
+        File file = File.createTempFile("graph", ".snapshot");
+        file.deleteOnExit();
+        t.saveSnapshot(file.getPath());
+        TravelController mapped = new TravelController();
+        mapped.mapSnapshot(file.getPath());
+        ICompactGraph before = mapped.getGraph();
+        mapped.update(new GraphUpdate().reprice("NYC", "DC",
+                TransportType.PLANE, 150, 300));
+        assertTrue(mapped.getGraph() instanceof CompactTravelGraph);
+        assertEquals(totalMinutes(mapped.fastestRoute("Boston", "DC")),
+                275.0, 0.001);
+        mapped.update(new GraphUpdate()
+                .addTransport("DC", "Albany", TransportType.BUS, 40, 400)
+                .removeCity("Albany"));
+        assertEquals(mapped.getGraph().getVertexCount(), 5);
+        assertEquals(mapped.getGraph().getEdgeCount(), 10);
+        this.assertSameGraph(t.getGraph(), before);
+    }
+
+    // a batch with a change that cannot apply changes nothing
+    @Test
+    public void testGraphUpdateFails() {
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        ICompactGraph before = t.getGraph();
+        try {
+            t.update(new GraphUpdate()
+                    .addTransport("Boston", "DC", TransportType.PLANE, 1, 1)
+                    .removeTransport("DC", "Boston", TransportType.BUS));
+            fail("removing a missing transport should throw");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(), "Transport is not in the graph.");
+        }
+        assertTrue(t.getGraph() == before);
+        assertEquals(new TravelController().update(new GraphUpdate()),
+                "Nothing has been loaded.");
+    }
+
+    //a delta file applies its rows in order
+    @Test
+    public void testApplyDelta() throws IOException {
+        File file = File.createTempFile("delta", ".csv");
+        file.deleteOnExit();
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8)) {
+            out.write("action,name,origin,destination,type,price,duration\n"
+                    + "addcity,Albany,,,,,\n"
+                    + "add,,Boston,Albany,bus,20,180\n"
+                    + "add,,Albany,NYC,train,30,150\n"
+                    + "reprice,,Boston,NYC,plane,500,75\n"
+                    + "remove,,Boston,Providence,bus\n");
+        }
+        TravelController t = new TravelController();
+        t.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        assertEquals(t.applyDelta(file.getPath()),
+                "Successfully applied 5 changes.");
+        // Boston -> Albany -> NYC -> Philly -> DC
+        List<Transport> path = t.cheapestRoute("Boston", "DC");
+        assertEquals(path.size(), 4);
+        assertEquals(path.get(0).getTarget().toString(), "Albany");
+        assertEquals(t.getGraph().getEdgeCount(), 16);
+        assertEquals(t.applyDelta("data/ourCities4.csv"),
+                "Error parsing file: data/ourCities4.csv");
+    }
+
+    private static double totalMinutes(List<Transport> path) {
+        double minutes = 0;
+        for (Transport leg : path) {
+            minutes += leg.getMinutes();
+        }
+        return minutes;
+    }
+
+    // transports must be between cities that were added
+    @Test (expected = IllegalArgumentException.class)
+    public void testCompactGraphBuilderUnknownCity() {
+        CompactGraphBuilder builder = new CompactGraphBuilder();
+        builder.addCity("Boston", Double.NaN, Double.NaN);
+        builder.getCityId("Providence");
+    }
 }
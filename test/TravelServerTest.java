@@ -0,0 +1,135 @@
+package test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sol.TravelController;
+import src.City;
+import src.Transport;
+import src.TravelServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TravelServerTest {
+
+    private TravelServer<City, Transport> server;
+    private int port;
+
+    @Before
+    public void setUp() throws IOException {
+        TravelController controller = new TravelController();
+        controller.load("data/ourCities4.csv", "data/ourTransport4.csv");
+        this.server = new TravelServer<>(controller, 4);
+        this.port = this.server.start(0);
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop();
+    }
+
+    /**
+     * Sends a request and returns the status followed by the body.
+     */
+    private String request(String method, String path, String body)
+            throws IOException {
+        URL url = new URL("http://localhost:" + this.port + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status == 200 ? connection.getInputStream()
+                : connection.getErrorStream();
+        String text = in == null ? ""
+                : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        return status + "\n" + text;
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    // a single query answers with one leg per line
+    @Test
+    public void testRoute() throws IOException {
+        String response = this.request("GET", "/route?command=cheap&from="
+                + encode("Boston") + "&to=" + encode("DC"), null);
+        String[] lines = response.split("\n");
+        assertEquals("200", lines[0]);
+        assertEquals(5, lines.length);
+        assertTrue(lines[1].startsWith("Boston -> "));
+        assertEquals(1, this.server.getHistogram("cheap").getCount());
+    }
+
+    // unknown cities and commands are bad requests
+    @Test
+    public void testBadRequests() throws IOException {
+        assertTrue(this.request("GET", "/route?command=fast&from=Boston&to=X",
+                null).startsWith("400\n"));
+        assertTrue(this.request("GET", "/route?command=slow&from=Boston&to=DC",
+                null).startsWith("400\nUnknown command"));
+        assertTrue(this.request("GET", "/batch", null).startsWith("405\n"));
+        assertTrue(this.request("POST", "/route?command=fast&from=Boston"
+                + "&to=DC", "").startsWith("405\n"));
+        // the server cannot be made to load files
+        assertTrue(this.request("GET", "/load?cities=data/ourCities.csv"
+                + "&transport=data/ourTransport.csv", null)
+                .startsWith("404\n"));
+    }
+
+    // a batch far larger than the concurrency bound is answered in order
+    @Test
+    public void testLargeBatch() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            body.append(i % 2 == 0 ? "fast\tBoston\tDC\n"
+                    : "direct\tChicago\tPhilly\n");
+        }
+        String[] lines = this.request("POST", "/batch", body.toString())
+                .split("\n");
+        assertEquals(5001, lines.length);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(lines[1 + i].startsWith(i % 2 == 0 ? "Boston -> "
+                    : "Chicago -> "));
+        }
+        assertEquals(2500, this.server.getHistogram("direct").getCount());
+    }
+
+    // a batch answers every query in order, errors included
+    @Test
+    public void testBatch() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            body.append("fast\tBoston\tDC\n");
+            body.append("direct\tChicago\tPhilly\n");
+        }
+        body.append("cheap\tBoston\tNowhere\n");
+        String[] lines = this.request("POST", "/batch", body.toString())
+                .split("\n");
+        assertEquals("200", lines[0]);
+        assertEquals(42, lines.length);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(lines[1 + 2 * i].startsWith("Boston -> "));
+            assertTrue(lines[2 + 2 * i].startsWith("Chicago -> "));
+        }
+        assertTrue(lines[41].startsWith("ERROR\t"));
+        assertEquals(20, this.server.getHistogram("fast").getCount());
+        assertEquals(1, this.server.getHistogram("batch").getCount());
+        assertTrue(this.request("GET", "/stats", null)
+                .contains("fast: count 20"));
+    }
+}
@@ -20,6 +20,7 @@ public class SimpleGraph implements IGraph<SimpleVertex, SimpleEdge> {
     @Override
     public void addEdge(SimpleVertex origin, SimpleEdge edge) {
         origin.addEdge(edge);
+        edge.target.addIncomingEdge(edge);
     }
 
     @Override
@@ -42,6 +43,11 @@ public class SimpleGraph implements IGraph<SimpleVertex, SimpleEdge> {
         return fromVertex.outgoingEdges;
     }
 
+    @Override
+    public Set<SimpleEdge> getIncomingEdges(SimpleVertex toVertex) {
+        return toVertex.incomingEdges;
+    }
+
     public static double getTotalEdgeWeight(List<SimpleEdge> path) {
         double total = 0;
         for (SimpleEdge segment : path) {
@@ -9,6 +9,7 @@ import java.util.Set;
 public class SimpleVertex {
     public String id;
     public Set<SimpleEdge> outgoingEdges = new HashSet<>();
+    public Set<SimpleEdge> incomingEdges = new HashSet<>();
 
     public SimpleVertex(String id) {
         this.id = id;
@@ -18,6 +19,10 @@ public class SimpleVertex {
         this.outgoingEdges.add(edge);
     }
 
+    public void addIncomingEdge(SimpleEdge edge) {
+        this.incomingEdges.add(edge);
+    }
+
     @Override
     public String toString() {
         return this.id;